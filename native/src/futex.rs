@@ -0,0 +1,126 @@
+//
+// Event backed by a single futex word in shared memory (linux only). Waiters sleep in the kernel on the word and
+// are woken immediately by a signal, with no spinning or polling in between.
+//
+
+use std::error::Error;
+use std::sync::atomic::{AtomicU32, Ordering};
+use std::time::{Duration, Instant};
+use raw_sync::events::{EventImpl, EventState};
+use raw_sync::Timeout;
+
+const CLEAR: u32 = 0;
+const SIGNALED: u32 = 1;
+
+// the futex word followed by the auto reset flag, which keeps whatever follows 8 byte aligned
+pub const FUTEX_EVENT_SIZE: usize = 8;
+
+pub struct FutexEvent {
+    word: *const AtomicU32,
+    auto_reset: bool,
+}
+
+impl FutexEvent {
+
+    pub unsafe fn new(mem: *mut u8, auto_reset: bool) -> (Box<dyn EventImpl>, usize) {
+        let word = mem as *const AtomicU32;
+        let flag = mem.offset(4) as *const AtomicU32;
+
+        (*flag).store(if auto_reset { 1 } else { 0 }, Ordering::Release);
+        (*word).store(CLEAR, Ordering::Release);
+
+        return (Box::new(FutexEvent { word, auto_reset }), FUTEX_EVENT_SIZE);
+    }
+
+    pub unsafe fn from_existing(mem: *mut u8) -> (Box<dyn EventImpl>, usize) {
+        let word = mem as *const AtomicU32;
+        let flag = mem.offset(4) as *const AtomicU32;
+
+        let auto_reset = (*flag).load(Ordering::Acquire) != 0;
+
+        return (Box::new(FutexEvent { word, auto_reset }), FUTEX_EVENT_SIZE);
+    }
+
+    fn word(&self) -> &AtomicU32 {
+        unsafe { &*self.word }
+    }
+
+    fn try_acquire(&self) -> bool {
+        let word = self.word();
+        if self.auto_reset {
+            return word.compare_exchange(SIGNALED, CLEAR, Ordering::AcqRel, Ordering::Acquire).is_ok();
+        } else {
+            return word.load(Ordering::Acquire) == SIGNALED;
+        }
+    }
+}
+
+// IMPORTANT: the word lives in memory shared across processes, so we must NOT use FUTEX_PRIVATE_FLAG
+fn futex_wait(word: &AtomicU32, expected: u32, timeout: Option<Duration>) {
+    let ts = timeout.map(|d| libc::timespec {
+        tv_sec: d.as_secs() as libc::time_t,
+        tv_nsec: d.subsec_nanos() as libc::c_long,
+    });
+    let ts_ptr = match ts.as_ref() {
+        Some(t) => t as *const libc::timespec,
+        None => std::ptr::null(),
+    };
+
+    // a spurious wakeup, interrupt, timeout or the value no longer matching all just return to the caller to re-check
+    unsafe {
+        libc::syscall(libc::SYS_futex, word as *const AtomicU32 as *const u32, libc::FUTEX_WAIT, expected, ts_ptr,
+            std::ptr::null::<u32>(), 0);
+    }
+}
+
+fn futex_wake(word: &AtomicU32, count: i32) {
+    unsafe {
+        libc::syscall(libc::SYS_futex, word as *const AtomicU32 as *const u32, libc::FUTEX_WAKE, count,
+            std::ptr::null::<libc::timespec>(), std::ptr::null::<u32>(), 0);
+    }
+}
+
+impl EventImpl for FutexEvent {
+
+    fn wait(&self, timeout: Timeout) -> Result<(), Box<dyn Error>> {
+        let deadline = match timeout {
+            Timeout::Infinite => None,
+            Timeout::Val(d) => Some(Instant::now() + d),
+        };
+
+        loop {
+            if self.try_acquire() {
+                return Ok(());
+            }
+
+            let remaining = match deadline {
+                None => None,
+                Some(d) => {
+                    let now = Instant::now();
+                    if now >= d {
+                        return Err("Timed out waiting for futex event".into());
+                    }
+                    Some(d - now)
+                }
+            };
+
+            // only sleeps if the word is still clear, so a signal between our check and here is never lost
+            futex_wait(self.word(), CLEAR, remaining);
+        }
+    }
+
+    fn set(&self, state: EventState) -> Result<(), Box<dyn Error>> {
+        let word = self.word();
+        match state {
+            EventState::Clear => {
+                word.store(CLEAR, Ordering::Release);
+            }
+            EventState::Signaled => {
+                word.store(SIGNALED, Ordering::Release);
+                // an auto reset event only lets one waiter through, so there is no point waking more than one
+                futex_wake(word, if self.auto_reset { 1 } else { i32::MAX });
+            }
+        }
+        return Ok(());
+    }
+}
@@ -0,0 +1,102 @@
+//
+// Class refs, constructor and field IDs resolved once and cached for the life of the library, so the hot path
+// (signal, await, newByteBuffer) never has to look anything up by name.
+//
+
+use std::sync::OnceLock;
+use jni::JNIEnv;
+use jni::objects::{GlobalRef, JClass, JFieldID, JMethodID, JObject, JValue};
+use jni::signature::{Primitive, ReturnType};
+use jni::sys::{jboolean, jlong};
+
+pub struct JniCache {
+    shmem_class: GlobalRef,
+    shmem_ctor: JMethodID,
+    shmem_ptr: JFieldID,
+    condition_class: GlobalRef,
+    condition_ctor: JMethodID,
+    condition_ptr: JFieldID,
+    condition_size: JFieldID,
+    condition_spin_lock: JFieldID,
+}
+
+static CACHE: OnceLock<JniCache> = OnceLock::new();
+
+pub fn get(env: &mut JNIEnv) -> &'static JniCache {
+    return CACHE.get_or_init(|| {
+        let shmem_class = env.find_class("com/fizzed/shmemj/Shmem").unwrap();
+        let condition_class = env.find_class("com/fizzed/shmemj/ShmemCondition").unwrap();
+
+        JniCache {
+            shmem_ctor: env.get_method_id(&shmem_class, "<init>", "()V").unwrap(),
+            shmem_ptr: env.get_field_id(&shmem_class, "ptr", "J").unwrap(),
+            shmem_class: env.new_global_ref(&shmem_class).unwrap(),
+            condition_ctor: env.get_method_id(&condition_class, "<init>", "()V").unwrap(),
+            condition_ptr: env.get_field_id(&condition_class, "ptr", "J").unwrap(),
+            condition_size: env.get_field_id(&condition_class, "size", "J").unwrap(),
+            condition_spin_lock: env.get_field_id(&condition_class, "spinLock", "Z").unwrap(),
+            condition_class: env.new_global_ref(&condition_class).unwrap(),
+        }
+    });
+}
+
+fn get_long(env: &mut JNIEnv, target: &JObject, field: JFieldID) -> jlong {
+    unsafe {
+        return env.get_field_unchecked(target, field, ReturnType::Primitive(Primitive::Long))
+            .unwrap()
+            .j()
+            .unwrap();
+    }
+}
+
+fn set_long(env: &mut JNIEnv, target: &JObject, field: JFieldID, value: jlong) {
+    unsafe {
+        env.set_field_unchecked(target, field, JValue::Long(value))
+            .unwrap();
+    }
+}
+
+impl JniCache {
+
+    pub fn new_shmem<'local>(&self, env: &mut JNIEnv<'local>) -> JObject<'local> {
+        let class: &JClass = self.shmem_class.as_obj().into();
+        unsafe {
+            return env.new_object_unchecked(class, self.shmem_ctor, &[]).unwrap();
+        }
+    }
+
+    pub fn get_shmem_ptr(&self, env: &mut JNIEnv, target: &JObject) -> jlong {
+        return get_long(env, target, self.shmem_ptr);
+    }
+
+    pub fn set_shmem_ptr(&self, env: &mut JNIEnv, target: &JObject, ptr: jlong) {
+        set_long(env, target, self.shmem_ptr, ptr);
+    }
+
+    pub fn new_condition<'local>(&self, env: &mut JNIEnv<'local>) -> JObject<'local> {
+        let class: &JClass = self.condition_class.as_obj().into();
+        unsafe {
+            return env.new_object_unchecked(class, self.condition_ctor, &[]).unwrap();
+        }
+    }
+
+    pub fn get_condition_ptr(&self, env: &mut JNIEnv, target: &JObject) -> jlong {
+        return get_long(env, target, self.condition_ptr);
+    }
+
+    pub fn set_condition_ptr(&self, env: &mut JNIEnv, target: &JObject, ptr: jlong) {
+        set_long(env, target, self.condition_ptr, ptr);
+    }
+
+    pub fn set_condition_size(&self, env: &mut JNIEnv, target: &JObject, size: jlong) {
+        set_long(env, target, self.condition_size, size);
+    }
+
+    pub fn set_condition_spin_lock(&self, env: &mut JNIEnv, target: &JObject, spin_lock: jboolean) {
+        unsafe {
+            env.set_field_unchecked(target, self.condition_spin_lock, JValue::Bool(spin_lock))
+                .unwrap();
+        }
+    }
+
+}
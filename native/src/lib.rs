@@ -1,12 +1,17 @@
 use std::time::Duration;
 use jni::JNIEnv;
-use jni::objects::{JObject, JString, JValue};
+use jni::objects::{JClass, JObject, JString};
 use jni::sys::{jstring, jlong, jboolean, JNI_TRUE, JNI_FALSE};
 use jni::sys::jobject;
 use raw_sync::events::{BusyEvent, Event, EventImpl, EventInit, EventState};
 use raw_sync::Timeout;
 use shared_memory::{Shmem, ShmemConf, ShmemError};
 
+mod jni_cache;
+
+#[cfg(target_os = "linux")]
+mod futex;
+
 fn to_jboolean(v: bool) -> jboolean {
     if v {
         return JNI_TRUE;
@@ -98,20 +103,15 @@ fn create_shmem_object(env: &mut JNIEnv, shmem: Shmem) -> jobject {
 
     // println!("create(): shmem ptr={:p}, osid={}, byteptr={:p}", shmem_leaked, shmem_leaked.get_os_id(), shmem_leaked.as_ptr());
 
-    let shared_memory_class = env.find_class("com/fizzed/shmemj/Shmem").unwrap();
+    let cache = jni_cache::get(env);
 
-    //println!("Found shmem class: {:?}", shared_memory_class);
-
-    let shmem_jobj = env.new_object(&shared_memory_class, "()V", &[])
-        .unwrap();
+    let shmem_jobj = cache.new_shmem(env);
 
     let ptr = shmem_leaked as *const Shmem as jlong;
 
     // println!("create(): ptr was {}", ptr);
 
-    // primitive type of a long is a J
-    env.set_field(&shmem_jobj, "ptr", "J", JValue::Long(ptr))
-        .unwrap();
+    cache.set_shmem_ptr(env, &shmem_jobj, ptr);
 
     return shmem_jobj.into_raw();
 }
@@ -123,10 +123,7 @@ fn create_shmem_object(env: &mut JNIEnv, shmem: Shmem) -> jobject {
 fn get_shmem_co_object<'local>(env: &mut JNIEnv, target: &JObject) -> Option<&'local mut Shmem> {
 
     // the "ptr" field on the Shmem class instance is the address of the companion object in rust
-    let ptr = env.get_field(&target, "ptr", "J")
-        .unwrap()
-        .j()
-        .unwrap();
+    let ptr = jni_cache::get(env).get_shmem_ptr(env, target);
 
     if ptr == 0 {
         return None;
@@ -147,8 +144,7 @@ pub extern "system" fn Java_com_fizzed_shmemj_Shmem_nativeDestroy<'local>(mut en
     }
 
     // clear out pointer so the java object is flagged as destroyed before we actually destroy it
-    env.set_field(&target, "ptr", "J", JValue::Long(0))
-        .unwrap();
+    jni_cache::get(&mut env).set_shmem_ptr(&mut env, &target, 0);
 
     unsafe {
         let shmem_boxed = Box::from_raw(shmem.unwrap());
@@ -255,10 +251,9 @@ fn create_event_object(env: &mut JNIEnv, event_boxed: Box<dyn EventImpl>, event_
 
     // println!("newCondition(): event ptr={:p}, size={}", event, event_size);
 
-    let shared_condition_class = env.find_class("com/fizzed/shmemj/ShmemCondition").unwrap();
+    let cache = jni_cache::get(env);
 
-    let shcond_obj = env.new_object(&shared_condition_class, "()V", &[])
-        .unwrap();
+    let shcond_obj = cache.new_condition(env);
 
     // apparently traits like EventImpl are "fat" and we have to get a pointer to them
     // https://users.rust-lang.org/t/sending-a-boxed-trait-over-ffi/21708/4
@@ -270,15 +265,9 @@ fn create_event_object(env: &mut JNIEnv, event_boxed: Box<dyn EventImpl>, event_
 
     // println!("newCondition(): ptr was {}", ptr);
 
-    // primitive type of a long is a J
-    env.set_field(&shcond_obj, "ptr", "J", JValue::Long(ptr as jlong))
-        .unwrap();
-
-    env.set_field(&shcond_obj, "size", "J", JValue::Long(event_size as jlong))
-        .unwrap();
-
-    env.set_field(&shcond_obj, "spinLock", "Z", JValue::Bool(spin_lock))
-        .unwrap();
+    cache.set_condition_ptr(env, &shcond_obj, ptr as jlong);
+    cache.set_condition_size(env, &shcond_obj, event_size as jlong);
+    cache.set_condition_spin_lock(env, &shcond_obj, spin_lock);
 
     return shcond_obj.into_raw();
 }
@@ -341,16 +330,68 @@ pub extern "system" fn Java_com_fizzed_shmemj_Shmem_nativeExistingCondition<'loc
     }
 }
 
+#[no_mangle]
+pub extern "system" fn Java_com_fizzed_shmemj_Shmem_nativeIsFutexSupported<'local>(_env: JNIEnv<'local>, _class: JClass<'local>) -> jboolean {
+    return to_jboolean(cfg!(target_os = "linux"));
+}
+
+#[no_mangle]
+pub extern "system" fn Java_com_fizzed_shmemj_Shmem_nativeNewFutexCondition<'local>(mut env: JNIEnv<'local>, target: JObject<'local>, offset: jlong, auto_reset: jboolean) -> jobject {
+
+    let shmem = get_shmem_co_object(&mut env, &target);
+
+    if handle_shmem_invalid(&mut env, &shmem) {
+        return JObject::null().into_raw();
+    }
+
+    #[cfg(target_os = "linux")]
+    unsafe {
+        let mem_ptr = shmem.unwrap().as_ptr().offset(offset as isize);
+
+        let (event_boxed, event_size) = futex::FutexEvent::new(mem_ptr, from_jboolean(auto_reset));
+        return create_event_object(&mut env, event_boxed, event_size, JNI_FALSE);
+    }
+
+    #[cfg(not(target_os = "linux"))]
+    {
+        let _ = (offset, auto_reset);
+        env.throw("Futex conditions are only supported on linux").unwrap();
+        return JObject::null().into_raw();
+    }
+}
+
+#[no_mangle]
+pub extern "system" fn Java_com_fizzed_shmemj_Shmem_nativeExistingFutexCondition<'local>(mut env: JNIEnv<'local>, target: JObject<'local>, offset: jlong) -> jobject {
+
+    let shmem = get_shmem_co_object(&mut env, &target);
+
+    if handle_shmem_invalid(&mut env, &shmem) {
+        return JObject::null().into_raw();
+    }
+
+    #[cfg(target_os = "linux")]
+    unsafe {
+        let mem_ptr = shmem.unwrap().as_ptr().offset(offset as isize);
+
+        let (event_boxed, event_size) = futex::FutexEvent::from_existing(mem_ptr);
+        return create_event_object(&mut env, event_boxed, event_size, JNI_FALSE);
+    }
+
+    #[cfg(not(target_os = "linux"))]
+    {
+        let _ = offset;
+        env.throw("Futex conditions are only supported on linux").unwrap();
+        return JObject::null().into_raw();
+    }
+}
+
 //
 // SharedCondition native methods
 //
 
 fn get_event_co_object<'local>(env: &mut JNIEnv, target: &JObject) -> Option<&'local mut dyn EventImpl> {
-    // the "ptr" field on the Shmem class instance is the address of the companion object in rust
-    let ptr = env.get_field(&target, "ptr", "J")
-        .unwrap()
-        .j()
-        .unwrap();
+    // the "ptr" field on the ShmemCondition class instance is the address of the companion object in rust
+    let ptr = jni_cache::get(env).get_condition_ptr(env, target);
 
     // pointer should NOT be zero, if it is then we don't have a co-object
     if ptr == 0 {
@@ -376,18 +417,16 @@ fn get_event_co_object<'local>(env: &mut JNIEnv, target: &JObject) -> Option<&'l
 #[no_mangle]
 pub extern "system" fn Java_com_fizzed_shmemj_ShmemCondition_nativeDestroy<'local>(mut env: JNIEnv<'local>, target: JObject<'local>) {
 
-    let ptr = env.get_field(&target, "ptr", "J")
-        .unwrap()
-        .j()
-        .unwrap();
+    let cache = jni_cache::get(&mut env);
+
+    let ptr = cache.get_condition_ptr(&mut env, &target);
 
     if ptr == 0 {
         return;     // nothing to do
     }
 
     // clear out pointer so java object is flagged as destroyed before we actually destroy this
-    env.set_field(&target, "ptr", "J", JValue::Long(0))
-        .unwrap();
+    cache.set_condition_ptr(&mut env, &target, 0);
 
     unsafe {
         let event_ptr_raw = ptr as *mut *mut dyn EventImpl;
@@ -427,6 +466,26 @@ pub extern "system" fn Java_com_fizzed_shmemj_ShmemCondition_nativeAwaitMillis<'
     }
 }
 
+#[no_mangle]
+pub extern "system" fn Java_com_fizzed_shmemj_ShmemCondition_nativeTryAwait<'local>(mut env: JNIEnv<'local>, target: JObject<'local>) -> jboolean {
+
+    let event_result = get_event_co_object(&mut env, &target);
+
+    if event_result.is_none() {
+        // we just need to return any value, the exception will be handled above
+        return JNI_FALSE;
+    }
+
+    let event = event_result.unwrap();
+
+    // a deadline that already passed only checks (and consumes, if auto reset) the signal, it never sleeps
+    let result = event.wait(Timeout::Val(Duration::ZERO));
+    return match result {
+        Ok(_) => JNI_TRUE,
+        Err(_) => JNI_FALSE
+    };
+}
+
 #[no_mangle]
 pub extern "system" fn Java_com_fizzed_shmemj_ShmemCondition_nativeSignal<'local>(mut env: JNIEnv<'local>, target: JObject<'local>) {
 
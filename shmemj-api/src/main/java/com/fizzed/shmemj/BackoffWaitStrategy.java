@@ -0,0 +1,57 @@
+package com.fizzed.shmemj;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+class BackoffWaitStrategy implements ShmemWaitStrategy {
+
+    @Override
+    public boolean await(ShmemCondition condition, long timeoutNanos, LongConsumer waitingConsumer) throws InterruptedException {
+        // we can only simulate interruptibly via checking with a spinlock technique
+        final long timeoutMillis = TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+        final long startTimeMillis = System.currentTimeMillis();
+        long elapsedMillis = 0;
+        int awaitCount = 0;
+        long nativeAwaitMillis = 10L;
+        do {
+            // IMPORTANT: the underlying "nativeAwaitMillis" uses a CAS spinlock under-the-hood, which will eat up
+            // cpu if it needs to wait for long periods of time.  We'll use a backoff strategy and put ourselves to
+            // sleep, rather than continuously killing the cpu.
+            // NOTE: anything less than 1 second usually results in almost instantaneous return
+            if (condition.awaitSlice(nativeAwaitMillis)) {
+                return true;
+            }
+
+            if (awaitCount < 10) {          // 10 * 10 mills = 100 millis
+                // we will quickly try to await again
+            } else if (awaitCount < 80) {   // 60 * (10 + 25 millis) = 2100 millis
+                // go to sleep for a very short duration, should be interruptible
+                Thread.sleep(ShmemWaitingMonitor.capMillis(waitingConsumer, 25L));
+                // switch to a very short CAS cycle now
+                nativeAwaitMillis = 1L;
+            } else if (awaitCount < 160) {   // 60 * (10 + 100 millis) = 2100 millis
+                // go to sleep for a longer duration (this represents main latency)
+                Thread.sleep(ShmemWaitingMonitor.capMillis(waitingConsumer, 50L));
+            } else {
+                // go to sleep for a longer duration (this represents main latency)
+                Thread.sleep(ShmemWaitingMonitor.capMillis(waitingConsumer, 200L));
+            }
+
+            elapsedMillis = System.currentTimeMillis() - startTimeMillis;
+
+            if (waitingConsumer != null) {
+                waitingConsumer.accept(elapsedMillis);
+            }
+
+            awaitCount++;
+        } while (elapsedMillis < timeoutMillis);
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "Backoff";
+    }
+
+}
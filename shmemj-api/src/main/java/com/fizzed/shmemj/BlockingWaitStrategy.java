@@ -0,0 +1,41 @@
+package com.fizzed.shmemj;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+class BlockingWaitStrategy implements ShmemWaitStrategy {
+
+    @Override
+    public boolean await(ShmemCondition condition, long timeoutNanos, LongConsumer waitingConsumer) throws InterruptedException {
+        final long timeoutMillis = TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+        final long startTimeMillis = System.currentTimeMillis();
+        long elapsedMillis = 0;
+        boolean triggerConsumer = waitingConsumer != null;
+        // IMPORTANT: anything less than 1 second usually results in almost instantaneous return
+        // since the underlying event is a pthread mutex condition
+        final long sliceMillis = ShmemWaitingMonitor.capMillis(waitingConsumer, timeoutMillis >= 1000L ? 1000L : 10L);
+        do {
+            if (condition.awaitSlice(sliceMillis)) {
+                return true;
+            }
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+
+            elapsedMillis = System.currentTimeMillis() - startTimeMillis;
+
+            if (triggerConsumer) {
+                waitingConsumer.accept(elapsedMillis);
+            }
+        } while (elapsedMillis < timeoutMillis);
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "Blocking";
+    }
+
+}
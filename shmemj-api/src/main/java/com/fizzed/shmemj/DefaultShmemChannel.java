@@ -5,35 +5,70 @@ import com.fizzed.crux.util.WaitFor;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Consumer;
+import java.util.concurrent.locks.LockSupport;
 
 public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChannel {
 
-    // probably best to keep control buffer as divisible by 8
-    static private final int CONTROL_BUFFER_SIZE = 40;
+    // probably best to keep control buffer as divisible by 8 (every long is 8 byte aligned so it can be accessed atomically)
+    static private final int CONTROL_BUFFER_SIZE = 168;
     static private final int CONTROL_MAGIC_POS = 0;
     static private final int CONTROL_VERSION_POS = 1;
-    static private final int CONTROL_SERVER_PID_POS = 2;
-    static private final int CONTROL_CLIENT_PID_POS = 10;
-    static private final int CONTROL_SPIN_LOCK_POS = 18;
-    static private final int CONTROL_SERVER_BUFFER_SIZE_POS = 19;
-    static private final int CONTROL_CLIENT_BUFFER_SIZE_POS = 27;
+    static private final int CONTROL_LOCK_TYPE_POS = 2;
+    static private final int CONTROL_RING_BUFFERS_POS = 3;
+    static private final int CONTROL_SLOT_COUNT_POS = 4;
+    static private final int CONTROL_SERVER_PID_POS = 8;
+    static private final int CONTROL_CLIENT_PID_POS = 16;
+    static private final int CONTROL_SERVER_BUFFER_SIZE_POS = 24;
+    static private final int CONTROL_CLIENT_BUFFER_SIZE_POS = 32;
+    static private final int CONTROL_SERVER_RING_HEAD_POS = 40;
+    static private final int CONTROL_SERVER_RING_TAIL_POS = 48;
+    static private final int CONTROL_CLIENT_RING_HEAD_POS = 56;
+    static private final int CONTROL_CLIENT_RING_TAIL_POS = 64;
+    static private final int CONTROL_SERVER_WRITE_LENGTH_POS = 72;
+    static private final int CONTROL_CLIENT_WRITE_LENGTH_POS = 80;
+    static private final int CONTROL_SLOT_SIZE_POS = 88;
+    static private final int CONTROL_SERVER_WRITE_SEQ_POS = 96;
+    static private final int CONTROL_SERVER_READ_SEQ_POS = 104;
+    static private final int CONTROL_CLIENT_WRITE_SEQ_POS = 112;
+    static private final int CONTROL_CLIENT_READ_SEQ_POS = 120;
+    static private final int CONTROL_DOORBELL_OFFSET_POS = 128;
+    static private final int CONTROL_HEARTBEAT_INTERVAL_POS = 136;
+    static private final int CONTROL_HEARTBEAT_TIMEOUT_POS = 140;
+    static private final int CONTROL_SERVER_HEARTBEAT_POS = 144;
+    static private final int CONTROL_CLIENT_HEARTBEAT_POS = 152;
+    static private final int CONTROL_GENERATION_POS = 160;
 
     static private final long NOT_CONNECTED_PID = 0L;
+    static private final long CLOSED_PID = -1L;         // closed, but not claimable by a new client until the server accepts again
     static private final byte MAGIC = (byte)42;         // random value to detect this is most likely a shmem channel
-    static private final byte VERSION_1_0 = (byte)10;   // safety of versioned channels in case of long running processes...
-    static private final byte THREAD_LOCKS = (byte)0;
-    static private final byte SPIN_LOCKS = (byte)1;
+    static private final byte VERSION_1_6 = (byte)16;   // safety of versioned channels in case of long running processes...
+    static private final byte PING_PONG_BUFFERS = (byte)0;
+    static private final byte RING_BUFFERS = (byte)1;
+    static private final long DOORBELL_ALIGNMENT = 64L;
 
     static private class Control {
 
         private final ByteBuffer buffer;
+        private final ShmemAtomics atomics;
 
         public Control(Shmem shmem, long offset) {
-            this.buffer = shmem.newByteBuffer(offset, CONTROL_BUFFER_SIZE);
+            // both processes are on the same host, so native order is safe and matches the atomic accesses
+            this.buffer = shmem.newByteBuffer(offset, CONTROL_BUFFER_SIZE).order(ByteOrder.nativeOrder());
+            this.atomics = ShmemAtomics.of(this.buffer);
+        }
+
+        public ByteBuffer getBuffer() {
+            return this.buffer;
+        }
+
+        public ShmemAtomics getAtomics() {
+            return this.atomics;
         }
 
         public long getSize() {
@@ -56,28 +91,48 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
             this.buffer.put(CONTROL_VERSION_POS, version);
         }
 
+        public int getSlotCount() {
+            return this.buffer.getInt(CONTROL_SLOT_COUNT_POS);
+        }
+
+        public void setSlotCount(int slotCount) {
+            this.buffer.putInt(CONTROL_SLOT_COUNT_POS, slotCount);
+        }
+
+        public long getSlotSize() {
+            return this.buffer.getLong(CONTROL_SLOT_SIZE_POS);
+        }
+
+        public void setSlotSize(long slotSize) {
+            this.buffer.putLong(CONTROL_SLOT_SIZE_POS, slotSize);
+        }
+
         public long getServerPid() {
-            return this.buffer.getLong(CONTROL_SERVER_PID_POS);
+            return this.atomics.getLongVolatile(CONTROL_SERVER_PID_POS);
         }
 
         public void setServerPid(long pid) {
-            this.buffer.putLong(CONTROL_SERVER_PID_POS, pid);
+            this.atomics.setLongVolatile(CONTROL_SERVER_PID_POS, pid);
         }
 
         public long getClientPid() {
-            return this.buffer.getLong(CONTROL_CLIENT_PID_POS);
+            return this.atomics.getLongVolatile(CONTROL_CLIENT_PID_POS);
         }
 
         public void setClientPid(long pid) {
-            this.buffer.putLong(CONTROL_CLIENT_PID_POS, pid);
+            this.atomics.setLongVolatile(CONTROL_CLIENT_PID_POS, pid);
         }
 
-        public boolean isSpinLocks() {
-            return this.buffer.get(CONTROL_SPIN_LOCK_POS) == SPIN_LOCKS;
+        public boolean compareAndSetClientPid(long expectedPid, long pid) {
+            return this.atomics.compareAndSetLong(CONTROL_CLIENT_PID_POS, expectedPid, pid);
         }
 
-        public void setSpinLocks(boolean spinLocks) {
-            this.buffer.put(CONTROL_SPIN_LOCK_POS, spinLocks ? SPIN_LOCKS : THREAD_LOCKS);
+        public ShmemLockType getLockType() {
+            return ShmemLockType.fromValue(this.buffer.get(CONTROL_LOCK_TYPE_POS));
+        }
+
+        public void setLockType(ShmemLockType lockType) {
+            this.buffer.put(CONTROL_LOCK_TYPE_POS, lockType.getValue());
         }
 
         public long getServerBufferSize() {
@@ -96,19 +151,125 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
             this.buffer.putLong(CONTROL_CLIENT_BUFFER_SIZE_POS, pid);
         }
 
+        public long getServerWriteLength() {
+            return this.buffer.getLong(CONTROL_SERVER_WRITE_LENGTH_POS);
+        }
+
+        public void setServerWriteLength(long length) {
+            this.buffer.putLong(CONTROL_SERVER_WRITE_LENGTH_POS, length);
+        }
+
+        public long getClientWriteLength() {
+            return this.buffer.getLong(CONTROL_CLIENT_WRITE_LENGTH_POS);
+        }
+
+        public void setClientWriteLength(long length) {
+            this.buffer.putLong(CONTROL_CLIENT_WRITE_LENGTH_POS, length);
+        }
+
+        public boolean isRingBuffers() {
+            return this.buffer.get(CONTROL_RING_BUFFERS_POS) == RING_BUFFERS;
+        }
+
+        // number of messages each side has written and read, so readiness can be checked without consuming a signal
+
+        public long getWriteSequence(boolean server) {
+            return this.atomics.getLongVolatile(server ? CONTROL_SERVER_WRITE_SEQ_POS : CONTROL_CLIENT_WRITE_SEQ_POS);
+        }
+
+        public void incrementWriteSequence(boolean server) {
+            final int pos = server ? CONTROL_SERVER_WRITE_SEQ_POS : CONTROL_CLIENT_WRITE_SEQ_POS;
+            // only that side ever writes it
+            this.atomics.setLongRelease(pos, this.atomics.getLongOpaque(pos) + 1L);
+        }
+
+        public long getReadSequence(boolean server) {
+            return this.atomics.getLongVolatile(server ? CONTROL_SERVER_READ_SEQ_POS : CONTROL_CLIENT_READ_SEQ_POS);
+        }
+
+        public void incrementReadSequence(boolean server) {
+            final int pos = server ? CONTROL_SERVER_READ_SEQ_POS : CONTROL_CLIENT_READ_SEQ_POS;
+            this.atomics.setLongRelease(pos, this.atomics.getLongOpaque(pos) + 1L);
+        }
+
+        public long getDoorbellOffset() {
+            return this.buffer.getLong(CONTROL_DOORBELL_OFFSET_POS);
+        }
+
+        public void setDoorbellOffset(long offset) {
+            this.buffer.putLong(CONTROL_DOORBELL_OFFSET_POS, offset);
+        }
+
+        // heartbeats are disabled when the interval is zero
+
+        public int getHeartbeatIntervalMillis() {
+            return this.buffer.getInt(CONTROL_HEARTBEAT_INTERVAL_POS);
+        }
+
+        public void setHeartbeatIntervalMillis(int millis) {
+            this.buffer.putInt(CONTROL_HEARTBEAT_INTERVAL_POS, millis);
+        }
+
+        public int getHeartbeatTimeoutMillis() {
+            return this.buffer.getInt(CONTROL_HEARTBEAT_TIMEOUT_POS);
+        }
+
+        public void setHeartbeatTimeoutMillis(int millis) {
+            this.buffer.putInt(CONTROL_HEARTBEAT_TIMEOUT_POS, millis);
+        }
+
+        public long getHeartbeat(boolean server) {
+            return this.atomics.getLongVolatile(server ? CONTROL_SERVER_HEARTBEAT_POS : CONTROL_CLIENT_HEARTBEAT_POS);
+        }
+
+        public void incrementHeartbeat(boolean server) {
+            final int pos = server ? CONTROL_SERVER_HEARTBEAT_POS : CONTROL_CLIENT_HEARTBEAT_POS;
+            // only that side ever writes it
+            this.atomics.setLongRelease(pos, this.atomics.getLongOpaque(pos) + 1L);
+        }
+
+        public long getGeneration() {
+            return this.buffer.getLong(CONTROL_GENERATION_POS);
+        }
+
+        public void setGeneration(long generation) {
+            this.buffer.putLong(CONTROL_GENERATION_POS, generation);
+        }
+
+        public void resetSequences() {
+            this.atomics.setLongVolatile(CONTROL_SERVER_WRITE_SEQ_POS, 0L);
+            this.atomics.setLongVolatile(CONTROL_SERVER_READ_SEQ_POS, 0L);
+            this.atomics.setLongVolatile(CONTROL_CLIENT_WRITE_SEQ_POS, 0L);
+            this.atomics.setLongVolatile(CONTROL_CLIENT_READ_SEQ_POS, 0L);
+        }
+
+        public void setRingBuffers(boolean ringBuffers) {
+            this.buffer.put(CONTROL_RING_BUFFERS_POS, ringBuffers ? RING_BUFFERS : PING_PONG_BUFFERS);
+        }
+
     }
 
     abstract protected static class AbstractOp implements Closeable {
 
-        final protected ByteBuffer buffer;
+        protected ByteBuffer buffer;
 
         public AbstractOp(ByteBuffer buffer) {
             this.buffer = buffer;
         }
 
+        // the channel reuses the same op for every read (or write), since only one may be in flight at a time
+        void reset(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
         public ByteBuffer getBuffer() {
             return buffer;
         }
+
+        /**
+         * Ends the operation as if it never happened, e.g. nobody is left to finish it.
+         */
+        abstract void abort();
     }
 
     public class Read extends AbstractOp implements ShmemChannel.Read {
@@ -121,6 +282,11 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
         public void close() throws IOException {
             DefaultShmemChannel.this.readEnd();
         }
+
+        @Override
+        void abort() {
+            DefaultShmemChannel.this.readAbort();
+        }
     }
 
     public class Write extends AbstractOp implements ShmemChannel.Write {
@@ -131,7 +297,118 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
 
         @Override
         public void close() throws IOException {
-            DefaultShmemChannel.this.writeEnd();
+            DefaultShmemChannel.this.writeEnd(this.buffer);
+        }
+
+        @Override
+        void abort() {
+            DefaultShmemChannel.this.writeAbort();
+        }
+    }
+
+    // batches are framed as [int count] followed by [int length][bytes] for each record
+    static private final int BATCH_COUNT_SIZE = 4;
+    static private final int BATCH_RECORD_HEADER_SIZE = 4;
+
+    static public class BatchWrite implements ShmemChannel.BatchWrite {
+
+        private final ShmemChannel.Write write;
+        private final ByteBuffer buffer;
+        private int count;
+        private int recordPos;
+
+        public BatchWrite(ShmemChannel.Write write) {
+            this.write = write;
+            this.buffer = write.getBuffer();
+            this.count = 0;
+            this.recordPos = -1;
+            // reserve room for the count
+            this.buffer.position(BATCH_COUNT_SIZE);
+        }
+
+        @Override
+        public int getCount() {
+            return this.count;
+        }
+
+        @Override
+        public ByteBuffer next() {
+            this.endRecord();
+            this.recordPos = this.buffer.position();
+            // reserve room for the length
+            this.buffer.position(this.recordPos + BATCH_RECORD_HEADER_SIZE);
+            this.count++;
+            return this.buffer;
+        }
+
+        @Override
+        public void add(ByteBuffer record) {
+            final int pos = record.position();
+            this.next().put(record);
+            // do not consume the caller's buffer
+            record.position(pos);
+        }
+
+        private void endRecord() {
+            if (this.recordPos >= 0) {
+                this.buffer.putInt(this.recordPos, this.buffer.position() - this.recordPos - BATCH_RECORD_HEADER_SIZE);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.endRecord();
+            this.buffer.putInt(0, this.count);
+            this.write.close();
+        }
+    }
+
+    static public class BatchRead implements ShmemChannel.BatchRead {
+
+        private final ShmemChannel.Read read;
+        private final ByteBuffer buffer;
+        private final ByteBuffer record;
+        private final int count;
+        private int remaining;
+        private int nextPos;
+
+        public BatchRead(ShmemChannel.Read read) {
+            this.read = read;
+            this.buffer = read.getBuffer();
+            // a single view is reused for every record, so iterating allocates nothing
+            this.record = this.buffer.duplicate();
+            this.count = this.buffer.remaining() >= BATCH_COUNT_SIZE ? this.buffer.getInt(0) : 0;
+            this.remaining = this.count;
+            this.nextPos = BATCH_COUNT_SIZE;
+        }
+
+        @Override
+        public int getCount() {
+            return this.count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @Override
+        public ByteBuffer next() {
+            if (this.remaining <= 0) {
+                return null;
+            }
+            final int length = this.buffer.getInt(this.nextPos);
+            final int start = this.nextPos + BATCH_RECORD_HEADER_SIZE;
+            this.record.limit(start + length);
+            this.record.position(start);
+            this.nextPos = start + length;
+            this.remaining--;
+            return this.record;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.read.close();
         }
     }
 
@@ -147,14 +424,28 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
     private final ShmemCondition clientReadCondition;
     private final ByteBuffer serverBuffer;
     private final ByteBuffer clientBuffer;
+    private final ShmemRingBuffer serverRing;
+    private final ShmemRingBuffer clientRing;
     private final AtomicBoolean connecting;
     private final AtomicBoolean reading;
     private final AtomicBoolean writing;
+    // reused for every read and write, so the steady state of either allocates nothing
+    private final Read readOp;
+    private final Write writeOp;
+    private final ProcessDiedMonitor readMonitor;
+    private final ProcessDiedMonitor writeMonitor;
+    private final AtomicBoolean ticking;
+    private volatile boolean heartbeating;
+    private ScheduledFuture<?> heartbeatTask;
+    private ShmemDoorbell doorbell;
+    // a single slot channel has a doorbell of its own, otherwise it's shared by (and closed with) every slot
+    private boolean ownsDoorbell;
     private boolean destroyed;
 
     private DefaultShmemChannel(Shmem shmem, ProcessProvider processProvider, Control control, ShmemCondition clientConnectCondition,
                                 ShmemCondition serverWriteCondition, ShmemCondition serverReadCondition, ShmemCondition clientWriteCondition,
-                                ShmemCondition clientReadCondition, ByteBuffer serverBuffer, ByteBuffer clientBuffer) {
+                                ShmemCondition clientReadCondition, ByteBuffer serverBuffer, ByteBuffer clientBuffer,
+                                ShmemRingBuffer serverRing, ShmemRingBuffer clientRing) {
 
         this.shmem = shmem;
         this.server = shmem.isOwner();
@@ -167,9 +458,16 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
         this.clientReadCondition = clientReadCondition;
         this.serverBuffer = serverBuffer;
         this.clientBuffer = clientBuffer;
+        this.serverRing = serverRing;
+        this.clientRing = clientRing;
         this.connecting = new AtomicBoolean(false);
         this.reading = new AtomicBoolean(false);
         this.writing = new AtomicBoolean(false);
+        this.readOp = new Read(null);
+        this.writeOp = new Write(null);
+        this.readMonitor = new ProcessDiedMonitor();
+        this.writeMonitor = new ProcessDiedMonitor();
+        this.ticking = new AtomicBoolean(false);
         this.destroyed = false;
 
         String flink = this.shmem.getFlink();
@@ -209,12 +507,124 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
 
     @Override
     public boolean isSpinLocks() {
+        return this.getLockType() == ShmemLockType.SPIN;
+    }
+
+    @Override
+    public ShmemLockType getLockType() {
         this.checkShmem(true);
-        return this.control.isSpinLocks();
+        return this.control.getLockType();
+    }
+
+    public ShmemWaitStrategy getWaitStrategy() {
+        return this.serverWriteCondition.getWaitStrategy();
+    }
+
+    // package-level access (the wait strategy is local to this process, so each side may choose their own)
+    void setWaitStrategy(ShmemWaitStrategy waitStrategy) {
+        this.clientConnectCondition.setWaitStrategy(waitStrategy);
+        this.serverWriteCondition.setWaitStrategy(waitStrategy);
+        this.serverReadCondition.setWaitStrategy(waitStrategy);
+        this.clientWriteCondition.setWaitStrategy(waitStrategy);
+        this.clientReadCondition.setWaitStrategy(waitStrategy);
+    }
+
+    @Override
+    public boolean isRingBuffers() {
+        return this.serverRing != null;
+    }
+
+    ShmemDoorbell getDoorbell() {
+        return this.doorbell;
+    }
+
+    long getDoorbellOffset() {
+        this.checkShmem(true);
+        return this.control.getDoorbellOffset();
+    }
+
+    // package-level access (rung on every read, write and close so a selector can wait on many connections at once)
+    void setDoorbell(ShmemDoorbell doorbell, long offset) {
+        this.doorbell = doorbell;
+        if (this.server) {
+            this.control.setDoorbellOffset(offset);
+        }
+    }
+
+    long getHeartbeatIntervalMillis() {
+        this.checkShmem(true);
+        return this.control.getHeartbeatIntervalMillis();
+    }
+
+    long getHeartbeatTimeoutMillis() {
+        this.checkShmem(true);
+        return this.control.getHeartbeatTimeoutMillis();
+    }
+
+    // package-level access (only the server decides, since both sides need to agree on it)
+    void setHeartbeat(long intervalMillis, long timeoutMillis) {
+        if (this.server) {
+            this.control.setHeartbeatIntervalMillis((int)intervalMillis);
+            this.control.setHeartbeatTimeoutMillis((int)timeoutMillis);
+        }
+    }
+
+    // each side publishes its heartbeat while connected, so the other side can tell it is still alive
+    synchronized void startHeartbeat() {
+        this.stopHeartbeat();
+        final long intervalMillis = this.control.getHeartbeatIntervalMillis();
+        if (intervalMillis > 0) {
+            this.heartbeating = true;
+            this.heartbeatTask = ShmemHeartbeat.schedule(this::tickHeartbeat, intervalMillis);
+        }
+    }
+
+    synchronized void stopHeartbeat() {
+        this.heartbeating = false;
+        if (this.heartbeatTask != null) {
+            this.heartbeatTask.cancel(false);
+            this.heartbeatTask = null;
+        }
+        // a tick may be in progress, which must not touch the shared memory once it is destroyed
+        while (this.ticking.get()) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void tickHeartbeat() {
+        this.ticking.set(true);
+        try {
+            if (this.heartbeating && !this.shmem.isDestroyed()) {
+                this.control.incrementHeartbeat(this.server);
+            }
+        } finally {
+            this.ticking.set(false);
+        }
+    }
+
+    @Override
+    public long getGeneration() {
+        this.checkShmem(true);
+        return this.control.getGeneration();
+    }
+
+    @Override
+    public int getSlotCount() {
+        this.checkShmem(true);
+        return this.control.getSlotCount();
+    }
+
+    long getSlotSize() {
+        this.checkShmem(true);
+        return this.control.getSlotSize();
     }
 
     @Override
     public long getWriteBufferSize() {
+        if (this.serverRing != null) {
+            // largest record that can be written into the ring
+            return this.server ? this.serverRing.getMaxRecordLength() : this.clientRing.getMaxRecordLength();
+        }
         if (this.server) {
             return this.serverBuffer.capacity();
         } else {
@@ -224,6 +634,9 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
 
     @Override
     public long getReadBufferSize() {
+        if (this.serverRing != null) {
+            return this.server ? this.clientRing.getMaxRecordLength() : this.serverRing.getMaxRecordLength();
+        }
         if (this.server) {
             return this.clientBuffer.capacity();
         } else {
@@ -249,8 +662,17 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
         this.clientWriteCondition.clear();
         this.clientReadCondition.clear();
 
+        // reset ring and message sequences (client is not connected yet, so nothing is reading/writing them)
+        this.control.resetSequences();
+        if (this.serverRing != null) {
+            this.serverRing.reset();
+            this.clientRing.reset();
+        }
+
         try {
-            // set the pid to indicate our end is ready (after this is done, a client can theoretically connect now)
+            // reset the client pid so it can be claimed, then set our pid to indicate our end is ready (after this is
+            // done, a client can theoretically connect now)
+            this.control.setClientPid(NOT_CONNECTED_PID);
             this.control.setServerPid(this.processProvider.getCurrentPid());
 
             try {
@@ -267,6 +689,8 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
                 this.clientWriteCondition.signal();
                 this.serverWriteCondition.signal();
 
+                this.startHeartbeat();
+
                 return new ShmemChannelConnection(this);
             } catch (TimeoutException e) {
                 this.control.setServerPid(NOT_CONNECTED_PID);
@@ -287,14 +711,72 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
 
         this.connecting.set(true);
         try {
-            // set the pid to indicate our end is ready
-            this.control.setClientPid(this.processProvider.getCurrentPid());
+            final long pid = this.processProvider.getCurrentPid();
+
+            // we could wait for the server to accept OR someone closing this client
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            long pauseNanos = CONNECT_POLL_MIN_NANOS;
+            while (!this.claimConnection(pid)) {
+                final long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    throw new TimeoutException();
+                }
+                pauseNanos = connectPause(pauseNanos, remainingNanos);
+            }
 
-            // we could wait for the server pid OR someone closing this client
-            if (!WaitFor.of(() -> this.control.getServerPid() > 0 || this.isClientConnectionClosed()).awaitMillis(unit.toMillis(timeout), 50L)) {
-                throw new TimeoutException();
+            return this.completeConnect(pid);
+        } finally {
+            this.connecting.set(false);
+        }
+    }
+
+    /**
+     * Tries to connect to a server that is currently accepting, without waiting.
+     *
+     * @return the connection or null if the server is not accepting or another client beat us to it
+     */
+    ShmemChannelConnection tryConnect(long pid) throws IOException {
+        this.connecting.set(true);
+        try {
+            if (!this.claimConnection(pid)) {
+                return null;
             }
 
+            return this.completeConnect(pid);
+        } finally {
+            this.connecting.set(false);
+        }
+    }
+
+    // a server that is already accepting (e.g. one we are reconnecting to) is claimed within microseconds, while an
+    // idle wait backs off to the same cost as a slow poll
+    static final long CONNECT_POLL_MIN_NANOS = TimeUnit.MICROSECONDS.toNanos(10L);
+    static private final long CONNECT_POLL_MAX_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+
+    /**
+     * Parks between polls for a server to accept, doubling the pause each time up to a max.
+     *
+     * @return the pause to use for the next poll
+     */
+    static long connectPause(long pauseNanos, long remainingNanos) throws InterruptedException {
+        LockSupport.parkNanos(Math.min(pauseNanos, remainingNanos));
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return Math.min(pauseNanos * 2, CONNECT_POLL_MAX_NANOS);
+    }
+
+    private boolean claimConnection(long pid) {
+        this.checkShmem(true);
+
+        // the server is accepting once its pid is set and the client pid was reset, which we atomically swap in our
+        // pid for, so only one client can ever win
+        return this.control.getServerPid() > NOT_CONNECTED_PID
+            && this.control.compareAndSetClientPid(NOT_CONNECTED_PID, pid);
+    }
+
+    private ShmemChannelConnection completeConnect(long pid) throws IOException {
+        try {
             // double check client is connected (we could have been signaled to close)
             this.checkConnectionClosed(true);
 
@@ -305,12 +787,12 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
             // have not really connected to it, we'll see if that's an issue
             // TODO: should we let the server signal us now? based on testing this does not seem to be an issue
 
+            this.startHeartbeat();
+
             return new ShmemChannelConnection(this);
         } catch (Exception e) {
-            this.control.setClientPid(NOT_CONNECTED_PID);
+            this.control.compareAndSetClientPid(pid, NOT_CONNECTED_PID);
             throw e;
-        } finally {
-            this.connecting.set(false);
         }
     }
 
@@ -351,21 +833,50 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
         }
     }
 
-    private Consumer<Long> createProcessDiedMonitor() {
-        long remotePid = this.server ? this.getClientPid() : this.getServerPid();
-        return new Consumer<>() {
-            private long lastElaspedMillis = 0;
-            @Override
-            public void accept(Long elapsedMillis) {
-                // only check every 1 sec so we're not doing this too frequently
-                if ((elapsedMillis - lastElaspedMillis) >= 1000L) {
-                    if (!DefaultShmemChannel.this.processProvider.isAlive(remotePid)) {
-                        throw new ShmemProcessDiedException("Remote process " + remotePid + " either crashed or exited w/o properly closing this channel");
-                    }
-                    lastElaspedMillis = elapsedMillis;
+    // with heartbeats, the remote process is dead once its heartbeat stops changing (no syscalls, and a stuck or
+    // reused pid is detected too), otherwise we fall back to asking the process provider
+    private class ProcessDiedMonitor implements ShmemWaitingMonitor {
+        private long remotePid;
+        private long lastElapsedMillis;
+        private long heartbeatTimeoutMillis;
+        private long lastHeartbeat;
+
+        private ProcessDiedMonitor reset() {
+            this.remotePid = server ? getClientPid() : getServerPid();
+            this.lastElapsedMillis = 0;
+            this.heartbeatTimeoutMillis = control.getHeartbeatTimeoutMillis();
+            this.lastHeartbeat = control.getHeartbeat(!server);
+            return this;
+        }
+
+        @Override
+        public long getIntervalMillis() {
+            // checked often enough that a missed heartbeat is noticed within 1.5x its timeout
+            return this.heartbeatTimeoutMillis > 0 ? Math.max(1L, this.heartbeatTimeoutMillis / 2) : 1000L;
+        }
+
+        @Override
+        public void accept(long elapsedMillis) {
+            if (this.heartbeatTimeoutMillis > 0) {
+                final long heartbeat = control.getHeartbeat(!server);
+                if (heartbeat != this.lastHeartbeat) {
+                    this.lastHeartbeat = heartbeat;
+                    this.lastElapsedMillis = elapsedMillis;
+                } else if ((elapsedMillis - this.lastElapsedMillis) >= this.heartbeatTimeoutMillis) {
+                    throw new ShmemProcessDiedException("Remote process " + this.remotePid + " missed heartbeats for "
+                        + (elapsedMillis - this.lastElapsedMillis) + " ms (it either crashed, hung or exited w/o properly closing this channel)");
+                }
+                return;
+            }
+
+            // only check every 1 sec so we're not doing this too frequently
+            if ((elapsedMillis - this.lastElapsedMillis) >= 1000L) {
+                if (!processProvider.isAlive(this.remotePid)) {
+                    throw new ShmemProcessDiedException("Remote process " + this.remotePid + " either crashed or exited w/o properly closing this channel");
                 }
+                this.lastElapsedMillis = elapsedMillis;
             }
-        };
+        }
     }
 
     public boolean isClosed() {
@@ -385,6 +896,25 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
         // delegate rest of destroying to close the connection
         this.closeConnection(true);
 
+        if (this.ownsDoorbell) {
+            this.doorbell.close();
+        }
+
+        this.shmem.unregisterResource(this);
+    }
+
+    /**
+     * Lets go of this channel without closing its connection, e.g. a slot that another client has claimed.
+     */
+    void detach() {
+        if (this.destroyed) {
+            return;
+        }
+
+        this.destroyed = true;
+
+        this.stopHeartbeat();
+
         this.shmem.unregisterResource(this);
     }
 
@@ -397,19 +927,30 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
 
         this.checkShmem(false);
 
+        this.stopHeartbeat();
+
         // does the side initiating the close matter?
+        final boolean owned;
         if (this.server) {
-            this.control.setServerPid(0L);
+            this.control.setServerPid(NOT_CONNECTED_PID);
+            owned = true;
         } else {
-            this.control.setClientPid(0L);
+            // a new client cannot claim this connection until the server accepts again, but only if it is still ours
+            // to close, it may have been claimed by another process since
+            owned = this.control.compareAndSetClientPid(this.processProvider.getCurrentPid(), CLOSED_PID);
         }
 
-        // unblock any read/writes on client & owner
-        this.clientConnectCondition.signal();
-        this.serverWriteCondition.signal();
-        this.serverReadCondition.signal();
-        this.clientWriteCondition.signal();
-        this.clientReadCondition.signal();
+        if (owned) {
+            // unblock any read/writes on client & owner
+            this.clientConnectCondition.signal();
+            this.serverWriteCondition.signal();
+            this.serverReadCondition.signal();
+            this.clientWriteCondition.signal();
+            this.clientReadCondition.signal();
+            if (this.doorbell != null) {
+                this.doorbell.ring();
+            }
+        }
 
         // wait for connecting to be false, if we don't wait, segfaults are potentially on the table since these flags
         // indicate that some thread is possibly accessing the shmem
@@ -419,27 +960,38 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
     }
 
     protected Write write(long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
+        return this.write(-1, timeout, unit);
+    }
+
+    protected Write write(int length, long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
         // 1. check if the channel is closed
         this.checkConnectionClosed(true);
 
+        if (length > this.getWriteBufferSize()) {
+            throw new IllegalArgumentException("Length " + length + " exceeds write buffer size of " + this.getWriteBufferSize());
+        }
+
         this.writing.set(true);
         try {
-            final Consumer<Long> processCrashDetector = this.createProcessDiedMonitor();
-
-            // 2.  wait till we are allowed to write
+            final ProcessDiedMonitor processCrashDetector = this.writeMonitor.reset();
             final ShmemCondition condition = this.server ? this.serverWriteCondition : this.clientWriteCondition;
-            boolean signaled = condition.await(timeout, unit, processCrashDetector);
-            if (!signaled) {
-                throw new TimeoutException();
-            }
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
 
-            // 3. check if we were signaled b/c the channel is closed
-            this.checkConnectionClosed(true);
+            // 2. wait till we are allowed to write (with ring buffers, only if the ring is full)
+            ByteBuffer buffer;
+            while ((buffer = this.claimWriteBuffer(length)) == null) {
+                final long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0 || !condition.await(remainingNanos, TimeUnit.NANOSECONDS, processCrashDetector)) {
+                    throw new TimeoutException();
+                }
+
+                // 3. check if we were signaled b/c the channel is closed
+                this.checkConnectionClosed(true);
+            }
 
             // 4. ready for writing
-            final ByteBuffer buffer = this.server ? this.serverBuffer : this.clientBuffer;
-            buffer.rewind();
-            return new Write(buffer);
+            this.writeOp.reset(buffer);
+            return this.writeOp;
         } catch (Exception e) {
             this.writing.set(false);
 
@@ -452,10 +1004,25 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
         }
     }
 
-    protected void writeEnd() {
+    protected void writeEnd(ByteBuffer buffer) {
         // TODO: is this overkill?
         this.checkShmem(true);
 
+        if (this.serverRing != null) {
+            // publish the record to the reader
+            final ShmemRingBuffer ring = this.server ? this.serverRing : this.clientRing;
+            ring.commit(buffer);
+        } else {
+            // record how much was written so the reader only sees that (the signal below publishes it)
+            if (this.server) {
+                this.control.setServerWriteLength(buffer.position());
+            } else {
+                this.control.setClientWriteLength(buffer.position());
+            }
+        }
+
+        this.control.incrementWriteSequence(this.server);
+
         if (this.server) {
             // client may now read AND must be the only operation that occurs next
             this.clientReadCondition.signal();
@@ -464,6 +1031,20 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
             this.serverReadCondition.signal();
         }
 
+        if (this.doorbell != null) {
+            this.doorbell.ring();
+        }
+
+        this.writing.set(false);
+    }
+
+    private void writeAbort() {
+        if (this.serverRing != null) {
+            // nothing was published, so the claimed space is simply claimed again by the next write
+            final ShmemRingBuffer ring = this.server ? this.serverRing : this.clientRing;
+            ring.abort();
+        }
+
         this.writing.set(false);
     }
 
@@ -473,22 +1054,25 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
 
         this.reading.set(true);
         try {
-            final Consumer<Long> processCrashDetector = this.createProcessDiedMonitor();
-
-            // 2.  wait till we are allowed to read
+            final ProcessDiedMonitor processCrashDetector = this.readMonitor.reset();
             final ShmemCondition condition = this.server ? this.serverReadCondition : this.clientReadCondition;
-            final boolean signaled = condition.await(timeout, unit, processCrashDetector);
-            if (!signaled) {
-                throw new TimeoutException();
-            }
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
 
-            // 3. check if we were signaled b/c the channel is closed
-            this.checkConnectionClosed(true);
+            // 2. wait till we are allowed to read (with ring buffers, only if the ring is empty)
+            ByteBuffer buffer;
+            while ((buffer = this.pollReadBuffer()) == null) {
+                final long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0 || !condition.await(remainingNanos, TimeUnit.NANOSECONDS, processCrashDetector)) {
+                    throw new TimeoutException();
+                }
+
+                // 3. check if we were signaled b/c the channel is closed
+                this.checkConnectionClosed(true);
+            }
 
             // 4. ready for reading
-            final ByteBuffer buffer = this.server ? this.clientBuffer : this.serverBuffer;
-            buffer.rewind();
-            return new Read(buffer);
+            this.readOp.reset(buffer);
+            return this.readOp;
         } catch (Exception e) {
             // set reading to false so that close connection doesn't hang
             this.reading.set(false);
@@ -506,6 +1090,14 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
         // TODO: is this overkill?
         this.checkShmem(true);
 
+        if (this.serverRing != null) {
+            // give the space of the record back to the writer
+            final ShmemRingBuffer ring = this.server ? this.clientRing : this.serverRing;
+            ring.release();
+        }
+
+        this.control.incrementReadSequence(this.server);
+
         if (this.server) {
             // client may now write
             this.clientWriteCondition.signal();
@@ -514,19 +1106,197 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
             this.serverWriteCondition.signal();
         }
 
+        if (this.doorbell != null) {
+            this.doorbell.ring();
+        }
+
+        this.reading.set(false);
+    }
+
+    private void readAbort() {
+        if (this.serverRing != null) {
+            // the record stays in the ring for the next read
+            final ShmemRingBuffer ring = this.server ? this.clientRing : this.serverRing;
+            ring.unpoll();
+        }
+
         this.reading.set(false);
     }
 
+    /**
+     * Begins a write only if the channel is writable right now, without waiting.
+     *
+     * @return the write or null if the reader has not consumed the last message yet (or the ring is full)
+     */
+    Write tryWrite(int length) throws IOException {
+        this.checkConnectionClosed(true);
+
+        if (length > this.getWriteBufferSize()) {
+            throw new IllegalArgumentException("Length " + length + " exceeds write buffer size of " + this.getWriteBufferSize());
+        }
+
+        this.writing.set(true);
+        try {
+            final ByteBuffer buffer = this.claimWriteBuffer(length);
+            if (buffer == null) {
+                this.writing.set(false);
+                return null;
+            }
+            this.writeOp.reset(buffer);
+            return this.writeOp;
+        } catch (RuntimeException e) {
+            this.writing.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Begins a read only if a message is available right now, without waiting.
+     *
+     * @return the read or null if no message is available
+     */
+    Read tryRead() throws IOException {
+        this.checkConnectionClosed(true);
+
+        this.reading.set(true);
+        try {
+            final ByteBuffer buffer = this.pollReadBuffer();
+            if (buffer == null) {
+                this.reading.set(false);
+                return null;
+            }
+            this.readOp.reset(buffer);
+            return this.readOp;
+        } catch (RuntimeException e) {
+            this.reading.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Whether a read would not wait right now.
+     */
+    boolean isReadable() {
+        this.checkShmem(true);
+
+        if (this.serverRing != null) {
+            final ShmemRingBuffer ring = this.server ? this.clientRing : this.serverRing;
+            return !ring.isEmpty();
+        }
+
+        // the other side has written more messages than we have read
+        return this.control.getWriteSequence(!this.server) > this.control.getReadSequence(this.server);
+    }
+
+    /**
+     * Whether a write (of the max length) would not wait right now.
+     */
+    boolean isWritable() {
+        this.checkShmem(true);
+
+        if (this.serverRing != null) {
+            final ShmemRingBuffer ring = this.server ? this.serverRing : this.clientRing;
+            return ring.canClaim(ring.getMaxRecordLength());
+        }
+
+        // the other side has read every message we have written
+        return this.control.getWriteSequence(this.server) == this.control.getReadSequence(!this.server);
+    }
+
+    // the sequences in control are what actually decide if we can read or write, while the conditions are only used
+    // to wake up waiters, so a stale signal (e.g. one left latched after a tryRead) only ever causes a spurious wakeup
+
+    private ByteBuffer claimWriteBuffer(int length) {
+        if (this.serverRing != null) {
+            final ShmemRingBuffer ring = this.server ? this.serverRing : this.clientRing;
+            return ring.claim(length >= 0 ? length : ring.getMaxRecordLength());
+        }
+
+        if (this.control.getWriteSequence(this.server) != this.control.getReadSequence(!this.server)) {
+            return null;
+        }
+
+        final ByteBuffer buffer = this.server ? this.serverBuffer : this.clientBuffer;
+        buffer.clear();
+        if (length >= 0) {
+            buffer.limit(length);
+        }
+        return buffer;
+    }
+
+    private ByteBuffer pollReadBuffer() {
+        if (this.serverRing != null) {
+            final ShmemRingBuffer ring = this.server ? this.clientRing : this.serverRing;
+            return ring.poll();
+        }
+
+        if (this.control.getWriteSequence(!this.server) <= this.control.getReadSequence(this.server)) {
+            return null;
+        }
+
+        // only the bytes the writer actually wrote
+        final ByteBuffer buffer = this.server ? this.clientBuffer : this.serverBuffer;
+        final long length = this.server ? this.control.getClientWriteLength() : this.control.getServerWriteLength();
+        buffer.clear();
+        buffer.limit((int)length);
+        return buffer;
+    }
+
+    // random, so a server recreating the channel at the same address is told apart from the one before it
+    static private long newGeneration() {
+        long generation;
+        do {
+            generation = ThreadLocalRandom.current().nextLong();
+        } while (generation == 0L);
+        return generation;
+    }
+
     static DefaultShmemChannel create(ProcessProvider processProvider, Shmem shmem, boolean spinLocks) {
-        return createOrExisting(processProvider, shmem, spinLocks);
+        return create(processProvider, shmem, spinLocks, false);
+    }
+
+    static DefaultShmemChannel create(ProcessProvider processProvider, Shmem shmem, boolean spinLocks, boolean ringBuffers) {
+        return create(processProvider, shmem, ShmemLockType.fromSpinLock(spinLocks), ringBuffers);
+    }
+
+    static DefaultShmemChannel create(ProcessProvider processProvider, Shmem shmem, ShmemLockType lockType, boolean ringBuffers) {
+        // the doorbell goes at the end, so a selector can block on the channel rather than poll it
+        final long doorbellOffset = ((shmem.getSize() - ShmemDoorbell.RESERVED_SIZE) / DOORBELL_ALIGNMENT) * DOORBELL_ALIGNMENT;
+        final DefaultShmemChannel channel = createOrExisting(processProvider, shmem, lockType, ringBuffers, 0L, doorbellOffset, 1);
+        channel.setDoorbell(ShmemDoorbell.create(shmem, doorbellOffset, channel.getLockType()), doorbellOffset);
+        channel.ownsDoorbell = true;
+        return channel;
+    }
+
+    /**
+     * Creates the channel of a single slot, where a multi-slot layout is simply slotCount channels laid out back to
+     * back, each slotSize in length.
+     */
+    static DefaultShmemChannel create(ProcessProvider processProvider, Shmem shmem, ShmemLockType lockType, boolean ringBuffers,
+                                      long baseOffset, long slotSize, int slotCount) {
+        return createOrExisting(processProvider, shmem, lockType, ringBuffers, baseOffset, slotSize, slotCount);
     }
 
     static DefaultShmemChannel existing(ProcessProvider processProvider, Shmem shmem) {
-        return createOrExisting(processProvider, shmem, false);  // spinLock argument irr
+        return existing(processProvider, shmem, 0L);
+    }
+
+    static DefaultShmemChannel existing(ProcessProvider processProvider, Shmem shmem, long baseOffset) {
+        final DefaultShmemChannel channel = createOrExisting(processProvider, shmem, null, null, baseOffset, 0L, 0);  // all but baseOffset irr
+
+        // the doorbell of a multi-slot channel is shared by its slots, which SlottedShmemChannel takes care of
+        final long doorbellOffset = channel.control.getDoorbellOffset();
+        if (channel.control.getSlotCount() <= 1 && doorbellOffset > 0) {
+            channel.setDoorbell(ShmemDoorbell.existing(shmem, doorbellOffset, channel.getLockType()), doorbellOffset);
+            channel.ownsDoorbell = true;
+        }
+
+        return channel;
     }
 
-    static private DefaultShmemChannel createOrExisting(ProcessProvider processProvider, Shmem shmem, Boolean spinLocks) {
-        long offset = 0L;
+    static private DefaultShmemChannel createOrExisting(ProcessProvider processProvider, Shmem shmem, ShmemLockType lockType,
+                                                        Boolean ringBuffers, long baseOffset, long slotSize, int slotCount) {
+        long offset = baseOffset;
 
         // attach the "control" to the memory, so we can quickly detect how to proceed
         final Control control = new Control(shmem, offset);
@@ -541,34 +1311,43 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
         final long clientBufferSize;
 
         if (shmem.isOwner()) {
-            final boolean _spinLocks = spinLocks != null ? spinLocks : false;
+            final ShmemLockType _lockType = lockType != null ? lockType : ShmemLockType.THREAD;
 
-            clientConnectCondition = shmem.newCondition(offset, _spinLocks, true);
+            clientConnectCondition = shmem.newCondition(offset, _lockType, true);
             offset += clientConnectCondition.getSize();
 
-            serverWriteCondition = shmem.newCondition(offset, _spinLocks, true);
+            serverWriteCondition = shmem.newCondition(offset, _lockType, true);
             offset += serverWriteCondition.getSize();
 
-            serverReadCondition = shmem.newCondition(offset, _spinLocks, true);
+            serverReadCondition = shmem.newCondition(offset, _lockType, true);
             offset += serverReadCondition.getSize();
 
-            clientWriteCondition = shmem.newCondition(offset, _spinLocks, true);
+            clientWriteCondition = shmem.newCondition(offset, _lockType, true);
             offset += clientWriteCondition.getSize();
 
-            clientReadCondition = shmem.newCondition(offset, _spinLocks, true);
+            clientReadCondition = shmem.newCondition(offset, _lockType, true);
             offset += clientReadCondition.getSize();
 
-            // buffers takes up the rest of the available space
-            long totalBuffersLen = shmem.getSize() - offset;
+            // buffers takes up the rest of the available space in the slot
+            long totalBuffersLen = slotSize - (offset - baseOffset);
             serverBufferSize = totalBuffersLen / 2;
             clientBufferSize = totalBuffersLen - serverBufferSize;
 
-            // zero out control buffer, set spin lock used
+            // zero out control buffer, set lock type used
             control.setMagic(MAGIC);
-            control.setVersion(VERSION_1_0);
+            control.setVersion(VERSION_1_6);
             control.setServerPid(0);
             control.setClientPid(0);
-            control.setSpinLocks(_spinLocks);
+            control.setLockType(_lockType);
+            control.setServerWriteLength(0);
+            control.setClientWriteLength(0);
+            control.setRingBuffers(ringBuffers != null ? ringBuffers : false);
+            control.setSlotCount(slotCount);
+            control.setSlotSize(slotSize);
+            control.setDoorbellOffset(0L);
+            control.setHeartbeatIntervalMillis(0);
+            control.setHeartbeatTimeoutMillis(0);
+            control.setGeneration(newGeneration());
             // important: on windows and mac, the operating system will round up on shmem, but only tell the owner
             // the original size requested, while the non-owner sees the full shmem, causing calculation issues if we're
             // dividing by 2 -- so we will include the length of the buffer as part of the control
@@ -577,28 +1356,28 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
         } else {
             // validate magic and version are what we expect
             if (control.getMagic() != MAGIC) {
-                throw new IllegalStateException("Shared memory channel has an unexpected magic value (it is either corrupted or not initialized as a channel yet)");
+                throw new ShmemChannelNotInitializedException("Shared memory channel has an unexpected magic value (it is either corrupted or not initialized as a channel yet)");
             }
-            if (control.getVersion() != VERSION_1_0) {
-                throw new IllegalStateException("Shared memory channel has an unexpected version value (it is either corrupted or not initialized as a channel yet)");
+            if (control.getVersion() != VERSION_1_6) {
+                throw new ShmemChannelNotInitializedException("Shared memory channel has an unexpected version value (it is either corrupted or not initialized as a channel yet)");
             }
 
-            // the control buffer will help figure out if it's using SPIN vs. STANDARD locks
-            final boolean _spinLocks = control.isSpinLocks();
+            // the control buffer will help figure out if it's using THREAD vs. SPIN vs. FUTEX locks
+            final ShmemLockType _lockType = control.getLockType();
 
-            clientConnectCondition = shmem.existingCondition(offset, _spinLocks);
+            clientConnectCondition = shmem.existingCondition(offset, _lockType);
             offset += clientConnectCondition.getSize();
 
-            serverWriteCondition = shmem.existingCondition(offset, _spinLocks);
+            serverWriteCondition = shmem.existingCondition(offset, _lockType);
             offset += serverWriteCondition.getSize();
 
-            serverReadCondition = shmem.existingCondition(offset, _spinLocks);
+            serverReadCondition = shmem.existingCondition(offset, _lockType);
             offset += serverReadCondition.getSize();
 
-            clientWriteCondition = shmem.existingCondition(offset, _spinLocks);
+            clientWriteCondition = shmem.existingCondition(offset, _lockType);
             offset += clientWriteCondition.getSize();
 
-            clientReadCondition = shmem.existingCondition(offset, _spinLocks);
+            clientReadCondition = shmem.existingCondition(offset, _lockType);
             offset += clientReadCondition.getSize();
 
             serverBufferSize = control.getServerBufferSize();
@@ -608,8 +1387,17 @@ public class DefaultShmemChannel implements ShmemServerChannel, ShmemClientChann
         final ByteBuffer serverBuffer = shmem.newByteBuffer(offset, serverBufferSize);
         final ByteBuffer clientBuffer = shmem.newByteBuffer(offset+serverBufferSize, clientBufferSize);
 
+        // the control buffer will help figure out if it's using PING-PONG vs. RING buffers
+        ShmemRingBuffer serverRing = null;
+        ShmemRingBuffer clientRing = null;
+        if (control.isRingBuffers()) {
+            serverRing = new ShmemRingBuffer(serverBuffer, control.getAtomics(), CONTROL_SERVER_RING_HEAD_POS, CONTROL_SERVER_RING_TAIL_POS);
+            clientRing = new ShmemRingBuffer(clientBuffer, control.getAtomics(), CONTROL_CLIENT_RING_HEAD_POS, CONTROL_CLIENT_RING_TAIL_POS);
+        }
+
         DefaultShmemChannel channel = new DefaultShmemChannel(shmem, processProvider, control, clientConnectCondition,
-            serverWriteCondition, serverReadCondition, clientWriteCondition, clientReadCondition, serverBuffer, clientBuffer);
+            serverWriteCondition, serverReadCondition, clientWriteCondition, clientReadCondition, serverBuffer, clientBuffer,
+            serverRing, clientRing);
 
         shmem.registerResource(channel);
 
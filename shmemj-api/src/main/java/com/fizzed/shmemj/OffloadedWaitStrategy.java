@@ -0,0 +1,288 @@
+package com.fizzed.shmemj;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Hands the checking of the condition off to a small pool of platform threads, while the calling thread only ever parks
+ * with LockSupport. A virtual thread waiting this way unmounts from its carrier rather than pinning it inside native
+ * code, so many virtual threads can wait at once without starving the carriers.
+ *
+ * Each condition being waited on is watched by exactly one pool thread, no matter how many threads wait on it, and a
+ * signal is handed to the longest waiting of them. Pool threads poll their conditions with ShmemCondition.tryAwait(),
+ * which never sleeps, and park for a moment in between passes when nothing was signaled. So the latency of a signal
+ * is bounded by MAX_IDLE_PARK_NANOS plus a pass over the watched conditions, rather than growing with the waiters.
+ */
+class OffloadedWaitStrategy implements ShmemWaitStrategy {
+
+    // how often the waiting consumer is called while parked
+    static private final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100L);
+    // how long a pool thread parks in between passes over its conditions once idle
+    static private final long MIN_IDLE_PARK_NANOS = 1000L;
+    static private final long MAX_IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(250L);
+    static private final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    static private final int WAITING = 0;
+    static private final int SIGNALED = 1;
+    static private final int CANCELLED = 2;
+    static private final int FAILED = 3;
+
+    static private class Request {
+        private final Thread waiter;
+        private final AtomicInteger state;
+        private volatile RuntimeException failure;
+
+        private Request(Thread waiter) {
+            this.waiter = waiter;
+            this.state = new AtomicInteger(WAITING);
+        }
+    }
+
+    /**
+     * A condition being waited on and everyone waiting on it, in the order they started waiting.
+     */
+    static private class Watch {
+        private final ShmemCondition condition;
+        private final Poller poller;
+        private final ConcurrentLinkedQueue<Request> waiters;
+        // the poller is inside a native call on the condition
+        private volatile boolean polling;
+
+        private Watch(ShmemCondition condition, Poller poller) {
+            this.condition = condition;
+            this.poller = poller;
+            this.waiters = new ConcurrentLinkedQueue<>();
+        }
+
+        private Request firstWaiting() {
+            Request request;
+            while ((request = this.waiters.peek()) != null && request.state.get() != WAITING) {
+                // gave up, or already completed
+                this.waiters.remove(request);
+            }
+            return request;
+        }
+    }
+
+    static private class Poller {
+        private final CopyOnWriteArrayList<Watch> watches;
+        private Thread thread;
+
+        private Poller() {
+            this.watches = new CopyOnWriteArrayList<>();
+        }
+    }
+
+    private final int threads;
+    private final Poller[] pollers;
+    // guarded by this
+    private final Map<ShmemCondition,Watch> watches;
+    private volatile boolean started;
+
+    public OffloadedWaitStrategy(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be >= 1");
+        }
+        this.threads = threads;
+        this.pollers = new Poller[threads];
+        for (int i = 0; i < threads; i++) {
+            this.pollers[i] = new Poller();
+        }
+        this.watches = new IdentityHashMap<>();
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public boolean await(ShmemCondition condition, long timeoutNanos, LongConsumer waitingConsumer) throws InterruptedException {
+        final long startTime = System.nanoTime();
+        final long deadline = startTime + timeoutNanos;
+        final long maxParkNanos = ShmemWaitingMonitor.capNanos(waitingConsumer, MAX_PARK_NANOS);
+        final Request request = new Request(Thread.currentThread());
+
+        this.start();
+        final Watch watch = this.watch(condition, request);
+
+        try {
+            for (;;) {
+                final int state = request.state.get();
+                if (state == SIGNALED) {
+                    return true;
+                }
+                if (state == FAILED) {
+                    throw request.failure;
+                }
+
+                final long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    if (cancel(watch, request)) {
+                        return false;
+                    }
+                    continue;   // a pool thread completed it at the last moment
+                }
+
+                LockSupport.parkNanos(this, Math.min(remainingNanos, maxParkNanos));
+
+                if (Thread.interrupted()) {
+                    if (cancel(watch, request)) {
+                        throw new InterruptedException();
+                    }
+                    // signaled at the same time, so report that, but keep the interrupt for the caller
+                    Thread.currentThread().interrupt();
+                    continue;
+                }
+
+                if (waitingConsumer != null) {
+                    waitingConsumer.accept((System.nanoTime() - startTime) / 1000000L);
+                }
+            }
+        } finally {
+            // e.g. the waiting consumer threw, so nobody is waiting anymore
+            cancel(watch, request);
+        }
+    }
+
+    /**
+     * Cancels the request if it is still waiting. The caller is free to close the condition once we return, so this
+     * still waits out a poll of the condition that is in flight, but a poll never sleeps (it's a single tryAwait).
+     */
+    static private boolean cancel(Watch watch, Request request) {
+        final boolean cancelled = request.state.compareAndSet(WAITING, CANCELLED);
+        while (watch.polling) {
+            Thread.onSpinWait();
+        }
+        return cancelled;
+    }
+
+    private void start() {
+        if (!this.started) {
+            synchronized (this) {
+                if (!this.started) {
+                    for (Poller poller : this.pollers) {
+                        poller.thread = new Thread(() -> this.run(poller), "shmemj-waiter-" + THREAD_IDS.incrementAndGet());
+                        poller.thread.setDaemon(true);
+                        poller.thread.start();
+                    }
+                    this.started = true;
+                }
+            }
+        }
+    }
+
+    private Watch watch(ShmemCondition condition, Request request) {
+        final Watch watch;
+        synchronized (this) {
+            Watch existing = this.watches.get(condition);
+            if (existing == null) {
+                // the least busy pool thread watches it
+                Poller poller = this.pollers[0];
+                for (Poller p : this.pollers) {
+                    if (p.watches.size() < poller.watches.size()) {
+                        poller = p;
+                    }
+                }
+                existing = new Watch(condition, poller);
+                this.watches.put(condition, existing);
+                poller.watches.add(existing);
+            }
+            existing.waiters.add(request);
+            watch = existing;
+        }
+        LockSupport.unpark(watch.poller.thread);
+        return watch;
+    }
+
+    private void unwatch(Watch watch) {
+        synchronized (this) {
+            // someone may have started waiting on it since
+            if (watch.firstWaiting() == null) {
+                this.watches.remove(watch.condition);
+                watch.poller.watches.remove(watch);
+            }
+        }
+    }
+
+    private void run(Poller poller) {
+        long idleParkNanos = MIN_IDLE_PARK_NANOS;
+        for (;;) {
+            if (poller.watches.isEmpty()) {
+                // pool threads live forever, until a condition is watched again
+                LockSupport.park(this);
+                continue;
+            }
+
+            boolean signaled = false;
+            for (Watch watch : poller.watches) {
+                signaled |= this.poll(watch);
+            }
+
+            if (signaled) {
+                idleParkNanos = MIN_IDLE_PARK_NANOS;
+            } else {
+                LockSupport.parkNanos(this, idleParkNanos);
+                idleParkNanos = Math.min(idleParkNanos * 2, MAX_IDLE_PARK_NANOS);
+            }
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * One non-blocking check of the condition, handing its signal to the longest waiting request.
+     *
+     * @return true if the condition was signaled
+     */
+    private boolean poll(Watch watch) {
+        watch.polling = true;
+        try {
+            // checked once polling, so a request cancelled from here on waits for us to finish
+            if (watch.firstWaiting() == null) {
+                watch.polling = false;
+                this.unwatch(watch);
+                return false;
+            }
+
+            if (!watch.condition.tryAwait()) {
+                return false;
+            }
+
+            Request request;
+            while ((request = watch.waiters.poll()) != null) {
+                if (request.state.compareAndSet(WAITING, SIGNALED)) {
+                    LockSupport.unpark(request.waiter);
+                    return true;
+                }
+            }
+            // everyone gave up while we consumed the signal, pass it on to whoever waits next
+            watch.condition.signal();
+            return true;
+        } catch (RuntimeException e) {
+            // e.g. the shared memory was destroyed, which fails everyone waiting on it
+            Request request;
+            while ((request = watch.waiters.poll()) != null) {
+                request.failure = e;
+                if (request.state.compareAndSet(WAITING, FAILED)) {
+                    LockSupport.unpark(request.waiter);
+                }
+            }
+            watch.polling = false;
+            this.unwatch(watch);
+            return true;
+        } finally {
+            watch.polling = false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Offloaded{threads=" + threads + '}';
+    }
+
+}
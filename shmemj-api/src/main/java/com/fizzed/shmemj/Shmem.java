@@ -1,6 +1,7 @@
 package com.fizzed.shmemj;
 
 import java.nio.ByteBuffer;
+import java.util.ServiceLoader;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Shmem implements java.lang.AutoCloseable {
@@ -8,48 +9,159 @@ public class Shmem implements java.lang.AutoCloseable {
         LibraryLoader.loadLibrary();
     }
 
+    static private final ShmemConditionProvider CONDITION_PROVIDER = loadConditionProvider();
+    static private final boolean FUTEX_SUPPORTED = CONDITION_PROVIDER != null || detectFutexSupported();
+
     /** pointer to the native object */
     private long ptr;
     final private CopyOnWriteArrayList<AutoCloseable> resources;
+    // immutable for the life of the native object, so only ask for them once (every native call has a cost)
+    private volatile String osId;
+    private volatile String flink;
+    private volatile boolean flinkCached;
+    private volatile byte owner;
+    private volatile long size;
 
     public Shmem() {
         this.ptr = 0;
         this.resources = new CopyOnWriteArrayList<>();
+        this.size = -1;
     }
 
     public String getOsId() {
-        return this.nativeGetOsId();
+        this.checkNotDestroyed();
+        if (this.osId == null) {
+            this.osId = this.nativeGetOsId();
+        }
+        return this.osId;
     }
 
     public String getFlink() {
-        return this.nativeGetFlink();
+        this.checkNotDestroyed();
+        if (!this.flinkCached) {
+            this.flink = this.nativeGetFlink();
+            this.flinkCached = true;
+        }
+        return this.flink;
     }
 
-
     public boolean isOwner() {
-        return this.nativeIsOwner();
+        this.checkNotDestroyed();
+        if (this.owner == 0) {
+            this.owner = this.nativeIsOwner() ? (byte)1 : (byte)2;
+        }
+        return this.owner == 1;
     }
 
     public long getSize() {
-        return this.nativeGetSize();
+        this.checkNotDestroyed();
+        if (this.size < 0) {
+            this.size = this.nativeGetSize();
+        }
+        return this.size;
+    }
+
+    private void checkNotDestroyed() {
+        if (this.ptr == 0) {
+            // same as what the native methods throw
+            throw new IllegalStateException("Shmem is invalid (no native resource attached)");
+        }
     }
 
     public ShmemCondition newCondition(long offset, boolean spinLock, boolean autoReset) {
+        return this.newCondition(offset, ShmemLockType.fromSpinLock(spinLock), autoReset);
+    }
+
+    public ShmemCondition newCondition(long offset, ShmemLockType lockType, boolean autoReset) {
+        return this.newCondition(offset, lockType, autoReset, null);
+    }
+
+    /**
+     * Creates a new condition at the offset.
+     *
+     * @param offset the offset in the shared memory
+     * @param lockType the type of lock backing the condition
+     * @param autoReset whether a signal is consumed by the first waiter
+     * @param waitStrategy how threads wait on the condition or null for the default of the lock type
+     * @return the new condition
+     */
+    public ShmemCondition newCondition(long offset, ShmemLockType lockType, boolean autoReset, ShmemWaitStrategy waitStrategy) {
         this.checkConditionOffset(offset);
-        ShmemCondition c = this.nativeNewCondition(offset, spinLock, autoReset);
+        final ShmemCondition c;
+        if (lockType == ShmemLockType.FUTEX) {
+            checkFutexSupported();
+            c = CONDITION_PROVIDER != null
+                ? CONDITION_PROVIDER.newFutexCondition(this, offset, autoReset) : this.nativeNewFutexCondition(offset, autoReset);
+        } else {
+            c = this.nativeNewCondition(offset, lockType == ShmemLockType.SPIN, autoReset);
+        }
         c.setShmem(this);
+        c.setLockType(lockType);
+        c.setWaitStrategy(waitStrategy);
         //this.closeables.add(c);
         return c;
     }
 
     public ShmemCondition existingCondition(long offset, boolean spinLock) {
+        return this.existingCondition(offset, ShmemLockType.fromSpinLock(spinLock));
+    }
+
+    public ShmemCondition existingCondition(long offset, ShmemLockType lockType) {
+        return this.existingCondition(offset, lockType, null);
+    }
+
+    public ShmemCondition existingCondition(long offset, ShmemLockType lockType, ShmemWaitStrategy waitStrategy) {
         this.checkConditionOffset(offset);
-        ShmemCondition c = this.nativeExistingCondition(offset, spinLock);
+        final ShmemCondition c;
+        if (lockType == ShmemLockType.FUTEX) {
+            checkFutexSupported();
+            c = CONDITION_PROVIDER != null
+                ? CONDITION_PROVIDER.existingFutexCondition(this, offset) : this.nativeExistingFutexCondition(offset);
+        } else {
+            c = this.nativeExistingCondition(offset, lockType == ShmemLockType.SPIN);
+        }
         c.setShmem(this);
+        c.setLockType(lockType);
+        c.setWaitStrategy(waitStrategy);
         //this.closeables.add(c);
         return c;
     }
 
+    /**
+     * Whether conditions of lock type FUTEX are supported (only on linux).
+     */
+    static public boolean isFutexSupported() {
+        return FUTEX_SUPPORTED;
+    }
+
+    static private void checkFutexSupported() {
+        if (!FUTEX_SUPPORTED) {
+            throw new UnsupportedOperationException("Futex conditions are not supported on this platform (only linux)");
+        }
+    }
+
+    static private boolean detectFutexSupported() {
+        try {
+            return nativeIsFutexSupported();
+        } catch (UnsatisfiedLinkError e) {
+            // native library is older than futex support
+            return false;
+        }
+    }
+
+    static private ShmemConditionProvider loadConditionProvider() {
+        try {
+            for (ShmemConditionProvider provider : ServiceLoader.load(ShmemConditionProvider.class)) {
+                if (provider.isFutexSupported()) {
+                    return provider;
+                }
+            }
+        } catch (Throwable t) {
+            // e.g. provider compiled for a newer java than we are running on, fallback to jni natives
+        }
+        return null;
+    }
+
     private void checkConditionOffset(long offset) {
         long size = this.getSize();
         if (offset >= size) {
@@ -71,6 +183,17 @@ public class Shmem implements java.lang.AutoCloseable {
         return this.nativeNewByteBuffer(offset, length);
     }
 
+    /**
+     * Volatile and atomic access to the int and long values in a region of the shared memory.
+     *
+     * @param offset the offset of the region (8 byte aligned if it will hold longs)
+     * @param length the length of the region
+     * @return the atomics view of the region
+     */
+    public ShmemAtomics newAtomics(long offset, long length) {
+        return ShmemAtomics.of(this.newByteBuffer(offset, length));
+    }
+
     void registerResource(AutoCloseable resource) {
         this.resources.addIfAbsent(resource);
     }
@@ -114,6 +237,12 @@ public class Shmem implements java.lang.AutoCloseable {
 
     protected native ShmemCondition nativeExistingCondition(long offset, boolean spinLock);
 
+    protected native ShmemCondition nativeNewFutexCondition(long offset, boolean autoReset);
+
+    protected native ShmemCondition nativeExistingFutexCondition(long offset);
+
+    static protected native boolean nativeIsFutexSupported();
+
     protected native ByteBuffer nativeNewByteBuffer(long offset, long length);
 
     protected native void nativeDestroy();
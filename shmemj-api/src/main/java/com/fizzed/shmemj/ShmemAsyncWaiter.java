@@ -0,0 +1,213 @@
+package com.fizzed.shmemj;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single daemon thread shared by every connection in the process that completes async reads and writes, so there
+ * is no thread per in-flight request. Pending operations are registered with a ShmemSelector and completed (on this
+ * thread) once their connection is ready, fails or they time out.
+ */
+class ShmemAsyncWaiter {
+
+    static private final long MAX_SELECT_NANOS = TimeUnit.MILLISECONDS.toNanos(100L);
+    static private volatile ShmemAsyncWaiter DEFAULT;
+
+    interface TryOp<T> {
+        T tryOp() throws Exception;
+    }
+
+    static private class Pending<T> {
+        private final ShmemChannelConnection connection;
+        private final int op;
+        private final TryOp<T> tryOp;
+        private final long deadline;
+        private final CompletableFuture<T> future;
+        private final Set<Object> inFlight;
+        private final Object inFlightKey;
+        private ShmemSelector.Key key;
+
+        private Pending(ShmemChannelConnection connection, int op, TryOp<T> tryOp, long deadline, Set<Object> inFlight) {
+            this.connection = connection;
+            this.op = op;
+            this.tryOp = tryOp;
+            this.deadline = deadline;
+            this.future = new CompletableFuture<>();
+            this.inFlight = inFlight;
+            this.inFlightKey = new InFlightKey(connection, op == ShmemSelector.OP_READ);
+        }
+
+        // the next operation may be submitted from a callback of this one, so it must no longer be in flight by then
+        private boolean complete(T result) {
+            this.inFlight.remove(this.inFlightKey);
+            return this.future.complete(result);
+        }
+
+        private void fail(Throwable t) {
+            this.inFlight.remove(this.inFlightKey);
+            this.future.completeExceptionally(t);
+        }
+
+        // true once completed (either way)
+        private boolean tryComplete() {
+            // e.g. cancelled by the caller, which must not start an operation nobody will ever finish
+            if (this.future.isDone()) {
+                return true;
+            }
+            try {
+                final T result = this.tryOp.tryOp();
+                if (result == null) {
+                    return false;
+                }
+                if (!this.complete(result)) {
+                    // future was cancelled in the meantime, so abandon what we started rather than publish an empty
+                    // write (or drop an unread message)
+                    if (result instanceof DefaultShmemChannel.AbstractOp) {
+                        ((DefaultShmemChannel.AbstractOp)result).abort();
+                    } else if (result instanceof AutoCloseable) {
+                        ((AutoCloseable)result).close();
+                    }
+                }
+            } catch (Throwable t) {
+                this.fail(t);
+            }
+            return true;
+        }
+    }
+
+    private final ShmemSelector selector;
+    private final ConcurrentLinkedQueue<Pending<?>> submitted;
+    // connection + op of every pending operation, since only one read and one write may be in flight on each
+    private final Set<Object> inFlight;
+    private final Thread thread;
+
+    private ShmemAsyncWaiter() {
+        this.selector = new ShmemSelector();
+        this.submitted = new ConcurrentLinkedQueue<>();
+        this.inFlight = ConcurrentHashMap.newKeySet();
+        this.thread = new Thread(this::run, "shmemj-async-waiter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    static ShmemAsyncWaiter getDefault() {
+        ShmemAsyncWaiter waiter = DEFAULT;
+        if (waiter == null) {
+            synchronized (ShmemAsyncWaiter.class) {
+                waiter = DEFAULT;
+                if (waiter == null) {
+                    waiter = DEFAULT = new ShmemAsyncWaiter();
+                }
+            }
+        }
+        return waiter;
+    }
+
+    /**
+     * Submits an operation, which is tried right away on the calling thread and only handed to the waiter thread if
+     * the connection is not ready yet.
+     */
+    <T> CompletableFuture<T> submit(ShmemChannelConnection connection, int op, TryOp<T> tryOp, long timeout, TimeUnit unit) {
+        final Pending<T> pending = new Pending<>(connection, op, tryOp, System.nanoTime() + unit.toNanos(timeout), this.inFlight);
+
+        if (!this.inFlight.add(pending.inFlightKey)) {
+            throw new IllegalStateException("Connection already has an async " + (op == ShmemSelector.OP_READ ? "read" : "write") + " in flight");
+        }
+
+        // a caller cancelling the future also ends the operation
+        pending.future.whenComplete((r, e) -> this.inFlight.remove(pending.inFlightKey));
+
+        if (!pending.tryComplete()) {
+            this.submitted.add(pending);
+            this.selector.wakeup();
+            LockSupport.unpark(this.thread);
+        }
+
+        return pending.future;
+    }
+
+    private void run() {
+        for (;;) {
+            try {
+                // register newly submitted operations
+                Pending<?> pending;
+                while ((pending = this.submitted.poll()) != null) {
+                    pending.key = this.selector.register(pending.connection, pending.op, pending);
+                }
+
+                if (this.selector.keys().isEmpty()) {
+                    LockSupport.park(this);
+                    continue;
+                }
+
+                this.selector.select(this.nextSelectNanos(), TimeUnit.NANOSECONDS);
+
+                for (ShmemSelector.Key key : this.selector.selectedKeys()) {
+                    final Pending<?> p = (Pending<?>)key.getAttachment();
+                    if (p.future.isDone() || p.tryComplete()) {
+                        key.cancel();
+                    }
+                }
+
+                // expire operations past their deadline, or that were cancelled by the caller
+                final long now = System.nanoTime();
+                for (Iterator<ShmemSelector.Key> it = this.selector.keys().iterator(); it.hasNext(); ) {
+                    final ShmemSelector.Key key = it.next();
+                    final Pending<?> p = (Pending<?>)key.getAttachment();
+                    if (p.future.isDone()) {
+                        key.cancel();
+                    } else if (now - p.deadline >= 0) {
+                        key.cancel();
+                        p.fail(new TimeoutException());
+                    }
+                }
+            } catch (Throwable t) {
+                // never let the shared thread die, fail everything it was waiting on instead
+                for (ShmemSelector.Key key : this.selector.keys()) {
+                    key.cancel();
+                    ((Pending<?>)key.getAttachment()).fail(t);
+                }
+            }
+        }
+    }
+
+    private long nextSelectNanos() {
+        final long now = System.nanoTime();
+        long nanos = MAX_SELECT_NANOS;
+        for (ShmemSelector.Key key : this.selector.keys()) {
+            nanos = Math.min(nanos, ((Pending<?>)key.getAttachment()).deadline - now);
+        }
+        return Math.max(0L, nanos);
+    }
+
+    static private class InFlightKey {
+        private final ShmemChannelConnection connection;
+        private final boolean read;
+
+        private InFlightKey(ShmemChannelConnection connection, boolean read) {
+            this.connection = connection;
+            this.read = read;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof InFlightKey)) {
+                return false;
+            }
+            final InFlightKey other = (InFlightKey)o;
+            return this.connection == other.connection && this.read == other.read;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.connection) * 31 + (this.read ? 1 : 0);
+        }
+    }
+
+}
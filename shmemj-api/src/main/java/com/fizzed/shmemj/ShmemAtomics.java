@@ -0,0 +1,149 @@
+package com.fizzed.shmemj;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Volatile and atomic access to int and long values in a region of shared memory, for lock-free counters, sequence
+ * numbers and flags across processes without a ShmemCondition round-trip. All access is in native byte order, since
+ * every process sharing the memory is on the same host.
+ *
+ * Indexes are relative to the start of the region and must be aligned to the size of the value (4 bytes for an int, 8
+ * bytes for a long), otherwise an IllegalStateException is thrown. The shared memory itself is always page aligned, so
+ * a region starting at an 8 byte aligned offset keeps the same alignment for its indexes.
+ */
+public class ShmemAtomics {
+
+    static private final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    static private final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+
+    private ShmemAtomics(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Atomic access to the values of a direct buffer already mapped to shared memory.
+     */
+    static public ShmemAtomics of(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct (e.g. from Shmem.newByteBuffer)");
+        }
+        return new ShmemAtomics(buffer);
+    }
+
+    public ByteBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    public int getCapacity() {
+        return this.buffer.capacity();
+    }
+
+    //
+    // int
+    //
+
+    public int getInt(int index) {
+        return (int)INTS.get(this.buffer, index);
+    }
+
+    public int getIntVolatile(int index) {
+        return (int)INTS.getVolatile(this.buffer, index);
+    }
+
+    public int getIntAcquire(int index) {
+        return (int)INTS.getAcquire(this.buffer, index);
+    }
+
+    public int getIntOpaque(int index) {
+        return (int)INTS.getOpaque(this.buffer, index);
+    }
+
+    public void setInt(int index, int value) {
+        INTS.set(this.buffer, index, value);
+    }
+
+    public void setIntVolatile(int index, int value) {
+        INTS.setVolatile(this.buffer, index, value);
+    }
+
+    public void setIntRelease(int index, int value) {
+        INTS.setRelease(this.buffer, index, value);
+    }
+
+    public boolean compareAndSetInt(int index, int expected, int value) {
+        return INTS.compareAndSet(this.buffer, index, expected, value);
+    }
+
+    public int getAndSetInt(int index, int value) {
+        return (int)INTS.getAndSet(this.buffer, index, value);
+    }
+
+    public int getAndAddInt(int index, int delta) {
+        return (int)INTS.getAndAdd(this.buffer, index, delta);
+    }
+
+    public int incrementAndGetInt(int index) {
+        return this.getAndAddInt(index, 1) + 1;
+    }
+
+    //
+    // long
+    //
+
+    public long getLong(int index) {
+        return (long)LONGS.get(this.buffer, index);
+    }
+
+    public long getLongVolatile(int index) {
+        return (long)LONGS.getVolatile(this.buffer, index);
+    }
+
+    public long getLongAcquire(int index) {
+        return (long)LONGS.getAcquire(this.buffer, index);
+    }
+
+    public long getLongOpaque(int index) {
+        return (long)LONGS.getOpaque(this.buffer, index);
+    }
+
+    public void setLong(int index, long value) {
+        LONGS.set(this.buffer, index, value);
+    }
+
+    public void setLongVolatile(int index, long value) {
+        LONGS.setVolatile(this.buffer, index, value);
+    }
+
+    public void setLongRelease(int index, long value) {
+        LONGS.setRelease(this.buffer, index, value);
+    }
+
+    public boolean compareAndSetLong(int index, long expected, long value) {
+        return LONGS.compareAndSet(this.buffer, index, expected, value);
+    }
+
+    public long getAndSetLong(int index, long value) {
+        return (long)LONGS.getAndSet(this.buffer, index, value);
+    }
+
+    public long getAndAddLong(int index, long delta) {
+        return (long)LONGS.getAndAdd(this.buffer, index, delta);
+    }
+
+    public long incrementAndGetLong(int index) {
+        return this.getAndAddLong(index, 1L) + 1L;
+    }
+
+    @Override
+    public String toString() {
+        return "ShmemAtomics{" +
+            "capacity=" + buffer.capacity() +
+            '}';
+    }
+
+}
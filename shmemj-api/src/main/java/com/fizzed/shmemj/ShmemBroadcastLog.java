@@ -0,0 +1,311 @@
+package com.fizzed.shmemj;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.Consumer;
+
+/**
+ * One-to-many broadcast of variable-length records through a ring in a region of shared memory. A single publisher
+ * appends records and never waits on anyone, while any number of subscribers (in any number of processes) each track
+ * their own read cursor, so fan-out costs one write regardless of the subscriber count.
+ *
+ * A subscriber that falls more than a ring's worth behind is lapped: the records it missed were overwritten. It detects
+ * this (every record is validated after it is copied out), counts it and skips ahead to the latest record.
+ *
+ * Layout (offsets relative to the start of the log, counters on their own cache lines):
+ *
+ *   0: magic, 4: version, 8: capacity, 12: max record size,
+ *   64: tail intent, 128: tail, 192: latest record, 256: ring
+ *
+ * Each record is [int length][int type][bytes] padded to 8 bytes and never wraps around the end of the ring.
+ */
+public class ShmemBroadcastLog {
+
+    static private final int MAGIC = 0x42524F44;
+    static private final int VERSION_1 = 1;
+    static private final int MAGIC_POS = 0;
+    static private final int VERSION_POS = 4;
+    static private final int CAPACITY_POS = 8;
+    static private final int MAX_RECORD_SIZE_POS = 12;
+    static private final int TAIL_INTENT_POS = 64;
+    static private final int TAIL_POS = 128;
+    static private final int LATEST_POS = 192;
+    static private final int HEADER_SIZE = 256;
+    static private final int RECORD_HEADER_SIZE = 8;
+    static private final int RECORD_LENGTH_POS = 0;
+    static private final int RECORD_TYPE_POS = 4;
+    static private final int TYPE_DATA = 1;
+    static private final int TYPE_PADDING = 2;
+
+    private final Shmem shmem;
+    private final ShmemAtomics header;
+    private final ByteBuffer ring;
+    private final int capacity;
+    private final int mask;
+    private final int maxRecordSize;
+
+    private ShmemBroadcastLog(Shmem shmem, ShmemAtomics header, ByteBuffer ring) {
+        this.shmem = shmem;
+        this.header = header;
+        this.ring = ring;
+        this.capacity = header.getIntVolatile(CAPACITY_POS);
+        this.mask = this.capacity - 1;
+        this.maxRecordSize = header.getInt(MAX_RECORD_SIZE_POS);
+    }
+
+    public Shmem getShmem() {
+        return this.shmem;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public int getMaxRecordSize() {
+        return this.maxRecordSize;
+    }
+
+    /**
+     * The total number of bytes (including record headers and padding) ever published.
+     */
+    public long getTail() {
+        return this.header.getLongVolatile(TAIL_POS);
+    }
+
+    /**
+     * Publishes the remaining bytes of the source as a record. There must only be one publisher at a time.
+     *
+     * @param src the record, which is consumed (its position advanced to its limit)
+     */
+    public void publish(ByteBuffer src) {
+        this.checkShmem();
+
+        final int length = src.remaining();
+        if (length > this.maxRecordSize) {
+            throw new IllegalArgumentException("Record length " + length + " exceeds max record size of " + this.maxRecordSize);
+        }
+
+        final int recordLength = align(RECORD_HEADER_SIZE + length);
+        final long tail = this.header.getLong(TAIL_POS);
+        int index = (int)(tail & this.mask);
+        final int toEnd = this.capacity - index;
+        long recordStart = tail;
+        long newTail = tail + recordLength;
+
+        if (recordLength > toEnd) {
+            // records never wrap, so pad out the end of the ring and start at the beginning
+            recordStart = tail + toEnd;
+            newTail = recordStart + recordLength;
+        }
+
+        // subscribers treat everything up to the intent as possibly overwritten
+        this.header.setLongVolatile(TAIL_INTENT_POS, newTail);
+        VarHandle.storeStoreFence();
+
+        if (recordStart != tail) {
+            this.ring.putInt(index + RECORD_LENGTH_POS, toEnd - RECORD_HEADER_SIZE);
+            this.ring.putInt(index + RECORD_TYPE_POS, TYPE_PADDING);
+            index = 0;
+        }
+
+        this.ring.putInt(index + RECORD_LENGTH_POS, length);
+        this.ring.putInt(index + RECORD_TYPE_POS, TYPE_DATA);
+        final ByteBuffer dst = this.ring.duplicate();
+        dst.position(index + RECORD_HEADER_SIZE);
+        dst.put(src);
+
+        this.header.setLongRelease(LATEST_POS, recordStart);
+        this.header.setLongRelease(TAIL_POS, newTail);
+    }
+
+    /**
+     * Creates a subscriber that will receive records published from now on.
+     */
+    public Subscriber subscribe() {
+        return new Subscriber(this, this.getTail());
+    }
+
+    private void checkShmem() {
+        if (this.shmem.isDestroyed()) {
+            throw new ShmemDestroyedException("Shared memory backing this broadcast log is destroyed");
+        }
+    }
+
+    /**
+     * A reader of the log with its own cursor. A subscriber is not thread safe, but any number of subscribers may
+     * read the same log at once.
+     */
+    static public class Subscriber {
+
+        private final ShmemBroadcastLog log;
+        private final ByteBuffer scratch;
+        private long cursor;
+        private long lappedCount;
+
+        private Subscriber(ShmemBroadcastLog log, long cursor) {
+            this.log = log;
+            this.scratch = ByteBuffer.allocateDirect(log.maxRecordSize);
+            this.cursor = cursor;
+        }
+
+        /**
+         * The position of the next record this subscriber will read.
+         */
+        public long getCursor() {
+            return this.cursor;
+        }
+
+        /**
+         * How many bytes the subscriber is behind the publisher (a slow subscriber nearing the capacity will be lapped).
+         */
+        public long getLag() {
+            return this.log.getTail() - this.cursor;
+        }
+
+        /**
+         * How many times this subscriber was lapped by the publisher and lost records.
+         */
+        public long getLappedCount() {
+            return this.lappedCount;
+        }
+
+        /**
+         * Receives the next record, without blocking.
+         *
+         * @param consumer called with a copy of the record, which is only valid until the consumer returns
+         * @return true if a record was received or false if there are no new records
+         */
+        public boolean poll(Consumer<ByteBuffer> consumer) {
+            final ShmemBroadcastLog log = this.log;
+            log.checkShmem();
+
+            for (;;) {
+                final long tail = log.header.getLongVolatile(TAIL_POS);
+                if (this.cursor >= tail) {
+                    return false;
+                }
+
+                if (!this.isValid()) {
+                    this.lapped();
+                    continue;
+                }
+
+                final int index = (int)(this.cursor & log.mask);
+                final int length = log.ring.getInt(index + RECORD_LENGTH_POS);
+                final int type = log.ring.getInt(index + RECORD_TYPE_POS);
+
+                // the record may be overwritten as we read it, so never trust it before it's validated
+                final int toEnd = log.capacity - index - RECORD_HEADER_SIZE;
+                final boolean wellFormed = type == TYPE_PADDING
+                    ? length == toEnd : type == TYPE_DATA && length >= 0 && length <= Math.min(log.maxRecordSize, toEnd);
+                if (wellFormed && type == TYPE_DATA) {
+                    final ByteBuffer src = log.ring.duplicate();
+                    src.position(index + RECORD_HEADER_SIZE);
+                    src.limit(index + RECORD_HEADER_SIZE + length);
+                    this.scratch.clear();
+                    this.scratch.put(src);
+                    this.scratch.flip();
+                }
+
+                VarHandle.loadLoadFence();
+                if (!this.isValid() || !wellFormed) {
+                    this.lapped();
+                    continue;
+                }
+
+                this.cursor += align(RECORD_HEADER_SIZE + length);
+
+                if (type == TYPE_DATA) {
+                    consumer.accept(this.scratch);
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Receives records until there are no new records or the max number of records were received.
+         *
+         * @return the number of records received
+         */
+        public int drain(Consumer<ByteBuffer> consumer, int maxRecords) {
+            int count = 0;
+            while (count < maxRecords && this.poll(consumer)) {
+                count++;
+            }
+            return count;
+        }
+
+        private boolean isValid() {
+            // the record at the cursor is intact as long as the publisher has not begun to write over it
+            return this.log.header.getLongVolatile(TAIL_INTENT_POS) - this.log.capacity <= this.cursor;
+        }
+
+        private void lapped() {
+            this.lappedCount++;
+            this.cursor = this.log.header.getLongVolatile(LATEST_POS);
+        }
+
+    }
+
+    static private int align(int length) {
+        return (length + 7) & ~7;
+    }
+
+    /**
+     * Creates a new broadcast log in a region of shared memory, with a ring as large as will fit (rounded down to a
+     * power of 2).
+     *
+     * @param shmem the shared memory
+     * @param offset the start of the log (8 byte aligned)
+     * @param length the total length of the log
+     * @param maxRecordSize the max length of a record (at most 1/8th of the ring)
+     * @return the new broadcast log
+     */
+    static public ShmemBroadcastLog create(Shmem shmem, long offset, long length, int maxRecordSize) {
+        if (offset % 8 != 0) {
+            throw new IllegalArgumentException("Offset " + offset + " must be 8 byte aligned");
+        }
+        if (length - HEADER_SIZE < 64) {
+            throw new IllegalArgumentException("Length " + length + " is too small for a broadcast log");
+        }
+
+        final int capacity = Integer.highestOneBit((int)Math.min(length - HEADER_SIZE, 1 << 30));
+        if (maxRecordSize <= 0 || align(RECORD_HEADER_SIZE + maxRecordSize) > capacity / 8) {
+            throw new IllegalArgumentException("Max record size " + maxRecordSize + " must be > 0 and at most 1/8th of the ring capacity of " + capacity);
+        }
+
+        final ShmemAtomics header = shmem.newAtomics(offset, HEADER_SIZE);
+        final ByteBuffer ring = shmem.newByteBuffer(offset + HEADER_SIZE, capacity).order(ByteOrder.nativeOrder());
+
+        header.setInt(VERSION_POS, VERSION_1);
+        header.setInt(MAX_RECORD_SIZE_POS, maxRecordSize);
+        header.setLong(TAIL_INTENT_POS, 0L);
+        header.setLong(TAIL_POS, 0L);
+        header.setLong(LATEST_POS, 0L);
+        header.setIntVolatile(CAPACITY_POS, capacity);
+        // magic is last, an existing log is only valid once everything else is written
+        header.setIntVolatile(MAGIC_POS, MAGIC);
+
+        return new ShmemBroadcastLog(shmem, header, ring);
+    }
+
+    /**
+     * Attaches to a broadcast log another process created in a region of shared memory.
+     */
+    static public ShmemBroadcastLog existing(Shmem shmem, long offset) {
+        final ShmemAtomics header = shmem.newAtomics(offset, HEADER_SIZE);
+
+        if (header.getIntVolatile(MAGIC_POS) != MAGIC) {
+            throw new IllegalStateException("Shared memory broadcast log has an unexpected magic value (it is either corrupted or not initialized as a broadcast log yet)");
+        }
+        if (header.getInt(VERSION_POS) != VERSION_1) {
+            throw new IllegalStateException("Shared memory broadcast log has an unexpected version value");
+        }
+
+        final ByteBuffer ring = shmem.newByteBuffer(offset + HEADER_SIZE, header.getIntVolatile(CAPACITY_POS)).order(ByteOrder.nativeOrder());
+
+        return new ShmemBroadcastLog(shmem, header, ring);
+    }
+
+}
@@ -7,16 +7,56 @@ public interface ShmemChannel extends AutoCloseable {
 
     interface Read extends Closeable {
 
+        /**
+         * The buffer of the message, positioned at zero with a limit of exactly the number of bytes written.
+         */
         ByteBuffer getBuffer();
 
     }
 
     interface Write extends Closeable {
 
+        /**
+         * The buffer to write the message into. The length of the message is the buffer's position when closed.
+         */
         ByteBuffer getBuffer();
 
     }
 
+    /**
+     * Many records written as a single message, so the whole batch only costs one wait and one signal.
+     */
+    interface BatchWrite extends Closeable {
+
+        int getCount();
+
+        /**
+         * Starts the next record in the batch. Write the record into the returned buffer at its current position, the
+         * record ends when next() is called again or the batch is closed.
+         */
+        ByteBuffer next();
+
+        /**
+         * Copies the remaining bytes of the record into the batch (the record's position is left unchanged).
+         */
+        void add(ByteBuffer record);
+
+    }
+
+    interface BatchRead extends Closeable {
+
+        int getCount();
+
+        boolean hasNext();
+
+        /**
+         * The next record in the batch, positioned at its start with a limit of its end, or null if there are no more
+         * records. The same buffer instance is reused for every record.
+         */
+        ByteBuffer next();
+
+    }
+
     Shmem getShmem();
 
     String getAddress();
@@ -25,6 +65,22 @@ public interface ShmemChannel extends AutoCloseable {
 
     boolean isSpinLocks();
 
+    ShmemLockType getLockType();
+
+    boolean isRingBuffers();
+
+    /**
+     * The number of connection slots in the channel (how many clients can be connected at once).
+     */
+    int getSlotCount();
+
+    /**
+     * A random id chosen when the server created the channel. A server that restarts and recreates the channel at the
+     * same address has a new generation, so a client can tell it is talking to a new server (with none of the state
+     * of the old one).
+     */
+    long getGeneration();
+
     long getServerPid();
 
     long getClientPid();
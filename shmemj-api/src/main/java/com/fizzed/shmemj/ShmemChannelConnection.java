@@ -1,6 +1,11 @@
 package com.fizzed.shmemj;
 
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -12,6 +17,10 @@ public class ShmemChannelConnection implements AutoCloseable {
         this.channel = channel;
     }
 
+    DefaultShmemChannel getChannel() {
+        return this.channel;
+    }
+
     public long getLocalPid() {
         if (this.channel.isServer()) {
             return this.channel.getServerPid();
@@ -32,10 +41,208 @@ public class ShmemChannelConnection implements AutoCloseable {
         return this.channel.write(timeout, unit);
     }
 
+    /**
+     * Waits until the channel has room for a message of up to length bytes. In ring buffer mode the write only waits
+     * if the ring is full, so claiming just the space you need lets many messages be in flight at once.
+     *
+     * @param length the maximum number of bytes that will be written (the limit of the returned buffer)
+     */
+    public ShmemChannel.Write write(int length, long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
+        return this.channel.write(length, timeout, unit);
+    }
+
     public ShmemChannel.Read read(long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
         return this.channel.read(timeout, unit);
     }
 
+    /**
+     * Gathers the remaining bytes of every buffer, in order, into a single message. Each buffer is bulk copied straight
+     * into the shared buffer (and its position advanced), so a header, metadata and payload that live in separate
+     * buffers never need to be assembled first.
+     *
+     * @return the number of bytes written
+     */
+    public long write(ByteBuffer[] srcs, long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
+        return this.write(srcs, 0, srcs.length, timeout, unit);
+    }
+
+    /**
+     * Gathers the remaining bytes of length buffers starting at offset into a single message.
+     */
+    public long write(ByteBuffer[] srcs, int offset, int length, long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
+        Objects.checkFromIndexSize(offset, length, srcs.length);
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            total += srcs[i].remaining();
+        }
+        if (total > this.channel.getWriteBufferSize()) {
+            throw new IllegalArgumentException("Length " + total + " exceeds write buffer size of " + this.channel.getWriteBufferSize());
+        }
+
+        try (ShmemChannel.Write write = this.channel.write((int)total, timeout, unit)) {
+            final ByteBuffer buffer = write.getBuffer();
+            for (int i = offset; i < offset + length; i++) {
+                buffer.put(srcs[i]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Scatters the next message across the buffers, filling each one's remaining bytes before moving on to the next.
+     * Each part is bulk copied straight out of the shared buffer, which is released before returning.
+     *
+     * @return the number of bytes read (the length of the message)
+     * @throws BufferOverflowException if the message is longer than the buffers have room for (the message is dropped)
+     */
+    public long read(ByteBuffer[] dsts, long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
+        return this.read(dsts, 0, dsts.length, timeout, unit);
+    }
+
+    /**
+     * Scatters the next message across length buffers starting at offset.
+     */
+    public long read(ByteBuffer[] dsts, int offset, int length, long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
+        Objects.checkFromIndexSize(offset, length, dsts.length);
+        long room = 0;
+        for (int i = offset; i < offset + length; i++) {
+            room += dsts[i].remaining();
+        }
+
+        try (ShmemChannel.Read read = this.channel.read(timeout, unit)) {
+            final ByteBuffer buffer = read.getBuffer();
+            final int total = buffer.remaining();
+            if (total > room) {
+                throw new BufferOverflowException();
+            }
+            for (int i = offset; i < offset + length && buffer.hasRemaining(); i++) {
+                final ByteBuffer dst = dsts[i];
+                final int n = Math.min(dst.remaining(), buffer.remaining());
+                final int limit = buffer.limit();
+                buffer.limit(buffer.position() + n);
+                dst.put(buffer);
+                buffer.limit(limit);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Begins a write only if the channel is writable right now, so a single thread can service many connections.
+     *
+     * @return the write or null if the remote side has not consumed the last message yet (or the ring is full)
+     */
+    public ShmemChannel.Write tryWrite() throws IOException {
+        return this.channel.tryWrite(-1);
+    }
+
+    /**
+     * Begins a write of up to length bytes only if the channel has room for it right now.
+     *
+     * @return the write or null if there is not room yet
+     */
+    public ShmemChannel.Write tryWrite(int length) throws IOException {
+        return this.channel.tryWrite(length);
+    }
+
+    /**
+     * Begins a read only if a message is available right now, so a single thread can service many connections.
+     *
+     * @return the read or null if no message is available yet
+     */
+    public ShmemChannel.Read tryRead() throws IOException {
+        return this.channel.tryRead();
+    }
+
+    /**
+     * Whether a message is available to read right now (i.e. tryRead() would not return null).
+     */
+    public boolean isReadable() {
+        return this.channel.isReadable();
+    }
+
+    /**
+     * Whether a message (of the max length) can be written right now (i.e. tryWrite() would not return null).
+     */
+    public boolean isWritable() {
+        return this.channel.isWritable();
+    }
+
+    /**
+     * Reads asynchronously, so no thread is blocked while waiting for a message. If a message is not available right
+     * away, the read is completed by a single thread shared by every connection in this process, so dependent stages
+     * that do any real work should use the *Async variants (e.g. thenApplyAsync). Only one async read may be in flight
+     * on a connection at a time, and as with read() the returned read must be closed before the next one.
+     *
+     * @return the stage completed with the read, or exceptionally with a TimeoutException if the timeout elapsed
+     */
+    public CompletionStage<ShmemChannel.Read> readAsync(long timeout, TimeUnit unit) {
+        return ShmemAsyncWaiter.getDefault().submit(this, ShmemSelector.OP_READ, this::tryRead, timeout, unit);
+    }
+
+    /**
+     * Writes asynchronously, completed the same way as readAsync().
+     */
+    public CompletionStage<ShmemChannel.Write> writeAsync(long timeout, TimeUnit unit) {
+        return ShmemAsyncWaiter.getDefault().submit(this, ShmemSelector.OP_WRITE, this::tryWrite, timeout, unit);
+    }
+
+    /**
+     * Writes up to length bytes asynchronously, completed the same way as readAsync().
+     */
+    public CompletionStage<ShmemChannel.Write> writeAsync(int length, long timeout, TimeUnit unit) {
+        return ShmemAsyncWaiter.getDefault().submit(this, ShmemSelector.OP_WRITE, () -> this.tryWrite(length), timeout, unit);
+    }
+
+    /**
+     * Waits until the channel is writable and begins a batch of records that will be sent as a single message.
+     */
+    public ShmemChannel.BatchWrite writeBatch(long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
+        return new DefaultShmemChannel.BatchWrite(this.channel.write(timeout, unit));
+    }
+
+    /**
+     * Writes all the records as a single message.
+     */
+    public void writeBatch(Collection<ByteBuffer> records, long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
+        try (ShmemChannel.BatchWrite batch = this.writeBatch(timeout, unit)) {
+            for (ByteBuffer record : records) {
+                batch.add(record);
+            }
+        }
+    }
+
+    public ShmemChannel.BatchRead readBatch(long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
+        return new DefaultShmemChannel.BatchRead(this.channel.read(timeout, unit));
+    }
+
+    /**
+     * Opens a stream for writing a payload of any size, which is split into chunks that each fit in a single write.
+     * The stream (also a WritableByteChannel) owns the write side of this connection until it is closed.
+     *
+     * @param timeout how long to wait for room for each chunk
+     */
+    public ShmemOutputStream newOutputStream(long timeout, TimeUnit unit) {
+        return new ShmemOutputStream(this, timeout, unit);
+    }
+
+    /**
+     * Opens a stream for writing a payload of any size in chunks of up to chunkSize bytes. With ring buffers, chunks
+     * smaller than the ring let the reader consume one chunk while the next ones are being written.
+     */
+    public ShmemOutputStream newOutputStream(int chunkSize, long timeout, TimeUnit unit) {
+        return new ShmemOutputStream(this, chunkSize, timeout, unit);
+    }
+
+    /**
+     * Opens a stream (also a ReadableByteChannel) for reading a payload written by newOutputStream() on the other end.
+     *
+     * @param timeout how long to wait for each chunk
+     */
+    public ShmemInputStream newInputStream(long timeout, TimeUnit unit) {
+        return new ShmemInputStream(this, timeout, unit);
+    }
+
     public boolean isClosed() {
         return this.channel.isConnectionClosed();
     }
@@ -2,17 +2,25 @@ package com.fizzed.shmemj;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 public class ShmemChannelFactory {
 
     private final ShmemFactory shmemFactory;
-    private boolean spinLocks;
+    private ShmemLockType lockType;
+    private boolean ringBuffers;
+    private int slots;
+    private ShmemWaitStrategy waitStrategy;
     private ProcessProvider processProvider;
+    private long heartbeatIntervalMillis;
+    private long heartbeatTimeoutMillis;
 
     public ShmemChannelFactory() {
         this.shmemFactory = new ShmemFactory();
         this.setDestroyOnExit(true);
-        this.spinLocks = true;
+        this.lockType = ShmemLockType.SPIN;
+        this.ringBuffers = false;
+        this.slots = 1;
         this.processProvider = ProcessProvider.DEFAULT;
     }
 
@@ -53,11 +61,66 @@ public class ShmemChannelFactory {
     }
 
     public boolean isSpinLocks() {
-        return spinLocks;
+        return this.lockType == ShmemLockType.SPIN;
     }
 
     public ShmemChannelFactory setSpinLocks(boolean spinLocks) {
-        this.spinLocks = spinLocks;
+        this.lockType = ShmemLockType.fromSpinLock(spinLocks);
+        return this;
+    }
+
+    public ShmemLockType getLockType() {
+        return lockType;
+    }
+
+    /**
+     * The type of lock the channel conditions use. FUTEX is only supported on linux (see Shmem.isFutexSupported()).
+     */
+    public ShmemChannelFactory setLockType(ShmemLockType lockType) {
+        this.lockType = lockType;
+        return this;
+    }
+
+    public boolean isRingBuffers() {
+        return ringBuffers;
+    }
+
+    /**
+     * Uses a single-producer/single-consumer ring buffer for each direction rather than a single ping-pong buffer.
+     * Writers only block when the ring is full, so many messages can be in flight at once.
+     */
+    public ShmemChannelFactory setRingBuffers(boolean ringBuffers) {
+        this.ringBuffers = ringBuffers;
+        return this;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * Splits the shared memory into this many connection slots, so a server can be connected to that many clients at
+     * once on the same address. The size is divided evenly across the slots.
+     */
+    public ShmemChannelFactory setSlots(int slots) {
+        if (slots < 1) {
+            throw new IllegalArgumentException("Slots must be >= 1");
+        }
+        this.slots = slots;
+        return this;
+    }
+
+    public ShmemWaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * How threads wait on the channel (e.g. busy-spin for latency-critical paths, or park for background connections),
+     * or null for the default of the lock type. This only applies to the channels created by this factory, so the
+     * server and client may each use their own.
+     */
+    public ShmemChannelFactory setWaitStrategy(ShmemWaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
         return this;
     }
 
@@ -70,16 +133,66 @@ public class ShmemChannelFactory {
         return this;
     }
 
+    public long getHeartbeatIntervalMillis() {
+        return heartbeatIntervalMillis;
+    }
+
+    public long getHeartbeatTimeoutMillis() {
+        return heartbeatTimeoutMillis;
+    }
+
+    /**
+     * While connected, each side publishes a heartbeat in the shared memory every interval, and the other side
+     * declares it dead once it misses heartbeats for the timeout. This detects crashed (and hung) processes faster and
+     * more cheaply than asking the process provider, and is not fooled by a reused pid. Only applies to server channels,
+     * since clients use whatever the server chose.
+     *
+     * @param interval how often each side publishes its heartbeat or zero to disable heartbeats (the default)
+     * @param timeout how long without a heartbeat until the other side is considered dead (must be > interval)
+     */
+    public ShmemChannelFactory setHeartbeat(long interval, long timeout, TimeUnit unit) {
+        final long intervalMillis = unit.toMillis(interval);
+        final long timeoutMillis = unit.toMillis(timeout);
+        if (intervalMillis < 0 || intervalMillis > Integer.MAX_VALUE || timeoutMillis > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Heartbeat interval and timeout must be >= 0 and fit in an int of millis");
+        }
+        if (intervalMillis > 0 && timeoutMillis <= intervalMillis) {
+            throw new IllegalArgumentException("Heartbeat timeout " + timeoutMillis + " ms must be > interval " + intervalMillis + " ms");
+        }
+        this.heartbeatIntervalMillis = intervalMillis;
+        this.heartbeatTimeoutMillis = intervalMillis > 0 ? timeoutMillis : 0L;
+        return this;
+    }
+
     public ShmemServerChannel createServerChannel() {
         final Shmem shmem = this.shmemFactory.create();
 
-        return DefaultShmemChannel.create(this.processProvider, shmem, this.spinLocks);
+        if (this.slots > 1) {
+            final SlottedShmemChannel channel = SlottedShmemChannel.create(this.processProvider, shmem, this.lockType, this.ringBuffers, this.slots);
+            channel.setWaitStrategy(this.waitStrategy);
+            channel.setHeartbeat(this.heartbeatIntervalMillis, this.heartbeatTimeoutMillis);
+            return channel;
+        }
+
+        final DefaultShmemChannel channel = DefaultShmemChannel.create(this.processProvider, shmem, this.lockType, this.ringBuffers);
+        channel.setWaitStrategy(this.waitStrategy);
+        channel.setHeartbeat(this.heartbeatIntervalMillis, this.heartbeatTimeoutMillis);
+        return channel;
     }
 
     public ShmemClientChannel createClientChannel() {
         final Shmem shmem = this.shmemFactory.open();
 
-        return DefaultShmemChannel.existing(this.processProvider, shmem);
+        final DefaultShmemChannel channel = DefaultShmemChannel.existing(this.processProvider, shmem);
+
+        if (channel.getSlotCount() > 1) {
+            final SlottedShmemChannel slottedChannel = SlottedShmemChannel.existing(this.processProvider, shmem, channel);
+            slottedChannel.setWaitStrategy(this.waitStrategy);
+            return slottedChannel;
+        }
+
+        channel.setWaitStrategy(this.waitStrategy);
+        return channel;
     }
 
 }
\ No newline at end of file
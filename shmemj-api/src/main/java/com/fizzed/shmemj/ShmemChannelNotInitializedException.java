@@ -0,0 +1,12 @@
+package com.fizzed.shmemj;
+
+/**
+ * The shared memory exists, but does not hold a channel (yet), e.g. the server is part way through creating it.
+ */
+public class ShmemChannelNotInitializedException extends IllegalStateException {
+
+    public ShmemChannelNotInitializedException(String message) {
+        super(message);
+    }
+
+}
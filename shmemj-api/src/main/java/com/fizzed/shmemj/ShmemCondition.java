@@ -3,19 +3,24 @@ package com.fizzed.shmemj;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 public class ShmemCondition implements Closeable {
     static {
         LibraryLoader.loadLibrary();
     }
 
+    // native libraries built before nativeTryAwait existed fall back to the shortest timed wait
+    static private volatile boolean tryAwaitSupported = true;
+
     /**
      * pointer to the native object
      */
     private long ptr;
     private long size;
     private boolean spinLock;
+    private ShmemLockType lockType;
+    private volatile ShmemWaitStrategy waitStrategy;
     /** If the shmem that this condition is from is closed/destroyed, the native methods here would cause a segfault.
      * Also, if the caller is relying on GC to close it, keeping a reference here will help prevent that until both
      * this condition AND the shmem are ready for GC.
@@ -32,6 +37,30 @@ public class ShmemCondition implements Closeable {
         this.shmem = shmem;
     }
 
+    // package-level access
+    void setLockType(ShmemLockType lockType) {
+        this.lockType = lockType;
+    }
+
+    public ShmemLockType getLockType() {
+        return this.lockType;
+    }
+
+    public ShmemWaitStrategy getWaitStrategy() {
+        if (this.waitStrategy == null) {
+            // fallback to the default of the lock type (spin locks do not know their type if created outside shmem)
+            return this.spinLock ? ShmemWaitStrategy.BACKOFF : ShmemWaitStrategy.BLOCKING;
+        }
+        return this.waitStrategy;
+    }
+
+    /**
+     * Sets how threads wait on this condition, or null for the default of its lock type.
+     */
+    public void setWaitStrategy(ShmemWaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
     public boolean isDestroyed() {
         return this.ptr == 0;
     }
@@ -54,102 +83,46 @@ public class ShmemCondition implements Closeable {
      * @throws InterruptedException
      */
     public boolean await(long time, TimeUnit unit) throws InterruptedException {
-        if (this.spinLock) {
-            return this.awaitSpinLock(time, unit, null);
-        } else {
-            return this.awaitThreadLock(time, unit, null);
-        }
+        return this.await(time, unit, null);
     }
 
-    public boolean await(long time, TimeUnit unit, Consumer<Long> waitingConsumer) throws InterruptedException {
-        if (this.spinLock) {
-            return this.awaitSpinLock(time, unit, waitingConsumer);
-        } else {
-            return this.awaitThreadLock(time, unit, waitingConsumer);
-        }
+    public boolean await(long time, TimeUnit unit, LongConsumer waitingConsumer) throws InterruptedException {
+        this.checkIfShmemDestroyed();
+        return this.getWaitStrategy().await(this, unit.toNanos(time), waitingConsumer);
     }
 
-    private boolean awaitSpinLock(long time, TimeUnit unit, Consumer<Long> waitingConsumer) throws InterruptedException {
+    /**
+     * A single, uninterruptible native wait on the condition that returns as soon as its signaled. This is the building
+     * block of a ShmemWaitStrategy and should rarely be called directly.
+     *
+     * @param timeoutMillis the max time to wait (must be >= 1)
+     * @return true if signaled or false if timed out
+     */
+    public boolean awaitSlice(long timeoutMillis) {
+        if (timeoutMillis < 1) {
+            // a zero timeout would wait forever in native code
+            throw new IllegalArgumentException("Timeout millis must be >= 1");
+        }
         this.checkIfShmemDestroyed();
-
-        // we can only simulate interruptibly via checking with a spinlock technique
-        final long timeoutMillis = unit.toMillis(time);
-        final long startTimeMillis = System.currentTimeMillis();
-        long elapsedMillis = 0;
-        int awaitCount = 0;
-        boolean triggerConsumer = false;
-        long nativeAwaitMillis = 10L;
-        do {
-            // IMPORTANT: the underlying "nativeAwaitMillis" uses a CAS spinlock under-the-hood, which will eat up
-            // cpu if it needs to wait for long periods of time.  We'll use a backoff strategy and put ourselves to
-            // sleep, rather than continuously killing the cpu.
-            // NOTE: anything less than 1 second usually results in almost instantaneous return
-            if (this.nativeAwaitMillis(nativeAwaitMillis)) {
-                return true;
-            }
-
-            if (awaitCount < 10) {          // 10 * 10 mills = 100 millis
-                // we will quickly try to await again
-            } else if (awaitCount < 80) {   // 60 * (10 + 25 millis) = 2100 millis
-//                if (awaitCount == 20) { System.out.println("Spin lock short duration sleep   @ " + System.currentTimeMillis()); }
-                // go to sleep for a very short duration, should be interruptible
-                Thread.sleep(25L);
-                // switch to a very short CAS cycle now
-                nativeAwaitMillis = 1L;
-            } else if (awaitCount < 160) {   // 60 * (10 + 100 millis) = 2100 millis
-//                if (awaitCount == 80) { System.out.println("Spin lock medium duration sleep  @ " + System.currentTimeMillis()); }
-                // go to sleep for a longer duration (this represents main latency)
-                Thread.sleep(50L);
-                triggerConsumer = !triggerConsumer && waitingConsumer != null;
-            } else {
-//                if (awaitCount == 160) { System.out.println("Spin lock long duration sleep   @ " + System.currentTimeMillis()); }
-                // go to sleep for a longer duration (this represents main latency)
-                Thread.sleep(200L);
-            }
-
-            elapsedMillis = System.currentTimeMillis() - startTimeMillis;
-
-            if (triggerConsumer) {
-                waitingConsumer.accept(elapsedMillis);
-            }
-
-            awaitCount++;
-        } while (elapsedMillis < timeoutMillis);
-
-        return false;
+        return this.nativeAwaitMillis(timeoutMillis);
     }
 
-    private boolean awaitThreadLock(long time, TimeUnit unit, Consumer<Long> waitingConsumer) throws InterruptedException {
+    /**
+     * Checks if the condition is signaled without ever waiting (consuming the signal if its auto reset). This is what
+     * the spinning and yielding strategies poll with in between their spins.
+     *
+     * @return true if signaled or false if not
+     */
+    public boolean tryAwait() {
         this.checkIfShmemDestroyed();
-
-        final long timeoutMillis = unit.toMillis(time);
-        final long startTimeMillis = System.currentTimeMillis();
-        long elapsedMillis = 0;
-        boolean triggerConsumer = waitingConsumer != null;
-        int awaitCount = 0;
-        do {
-            // IMPORTANT: anything less than 1 second usually results in almost instantaneous return
-            // since the underlying event is a pthread mutex condition
-            if (this.nativeAwaitMillis(timeoutMillis >= 1000L ? 1000L : 10L)) {
-                return true;
+        if (tryAwaitSupported) {
+            try {
+                return this.nativeTryAwait();
+            } catch (UnsatisfiedLinkError e) {
+                tryAwaitSupported = false;
             }
-
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException();
-            }
-
-//            if (awaitCount == 0) { System.out.println("Standard condition long duration sleep  @ " + System.currentTimeMillis()); }
-
-            elapsedMillis = System.currentTimeMillis() - startTimeMillis;
-
-            if (triggerConsumer) {
-                waitingConsumer.accept(elapsedMillis);
-            }
-
-            awaitCount++;
-        } while (elapsedMillis < timeoutMillis);
-
-        return false;
+        }
+        return this.nativeAwaitMillis(1L);
     }
 
     public void signal() {
@@ -186,6 +159,8 @@ public class ShmemCondition implements Closeable {
 
     protected native boolean nativeAwaitMillis(long timeoutMillis);
 
+    protected native boolean nativeTryAwait();
+
     protected native void nativeSignal();
 
     protected native void nativeClear();
@@ -0,0 +1,17 @@
+package com.fizzed.shmemj;
+
+/**
+ * Service provider of futex conditions implemented outside the JNI library (e.g. the Panama FFM backend in
+ * shmemj-ffm on Java 22+). Providers are discovered with java.util.ServiceLoader and take precedence over the JNI
+ * natives when they report themselves as supported. The shared memory layout must match the JNI futex condition, so
+ * either implementation can be on either end of a channel.
+ */
+public interface ShmemConditionProvider {
+
+    boolean isFutexSupported();
+
+    ShmemCondition newFutexCondition(Shmem shmem, long offset, boolean autoReset);
+
+    ShmemCondition existingFutexCondition(Shmem shmem, long offset);
+
+}
@@ -0,0 +1,74 @@
+package com.fizzed.shmemj;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A single condition shared by every connection slot in a shared memory segment, which is rung whenever any of them
+ * are written to or read from, so one thread can wait on all of them at once (see ShmemSelector). It is only actually
+ * signaled while someone is waiting on it, so connections nobody is selecting on pay nothing but a volatile read.
+ *
+ * Layout: [int waiters] padded to its own cache line, followed by the condition.
+ */
+class ShmemDoorbell implements AutoCloseable {
+
+    static final long RESERVED_SIZE = 512L;
+    static private final int WAITERS_POS = 0;
+    static private final long CONDITION_OFFSET = 64L;
+
+    private final ShmemAtomics atomics;
+    private final ShmemCondition condition;
+
+    private ShmemDoorbell(ShmemAtomics atomics, ShmemCondition condition) {
+        this.atomics = atomics;
+        this.condition = condition;
+    }
+
+    public void ring() {
+        // the store that made a connection ready must be visible before we check for waiters (and vice versa in await)
+        VarHandle.fullFence();
+        if (this.atomics.getIntVolatile(WAITERS_POS) > 0) {
+            this.condition.signal();
+        }
+    }
+
+    /**
+     * Waits for the doorbell to ring, unless the ready check passes after registering as a waiter.
+     *
+     * @return true if rung or already ready, false if timed out
+     */
+    public boolean await(long timeoutNanos, BooleanSupplier ready) throws InterruptedException {
+        this.atomics.getAndAddInt(WAITERS_POS, 1);
+        try {
+            if (ready.getAsBoolean()) {
+                return true;
+            }
+            return this.condition.await(timeoutNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            this.atomics.getAndAddInt(WAITERS_POS, -1);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.condition.close();
+    }
+
+    static ShmemDoorbell create(Shmem shmem, long offset, ShmemLockType lockType) {
+        final ShmemAtomics atomics = shmem.newAtomics(offset, CONDITION_OFFSET);
+        atomics.setIntVolatile(WAITERS_POS, 0);
+        final ShmemCondition condition = shmem.newCondition(offset + CONDITION_OFFSET, lockType, true);
+        if (CONDITION_OFFSET + condition.getSize() > RESERVED_SIZE) {
+            throw new IllegalStateException("Doorbell condition of " + condition.getSize() + " bytes does not fit in its reserved space");
+        }
+        return new ShmemDoorbell(atomics, condition);
+    }
+
+    static ShmemDoorbell existing(Shmem shmem, long offset, ShmemLockType lockType) {
+        final ShmemAtomics atomics = shmem.newAtomics(offset, CONDITION_OFFSET);
+        final ShmemCondition condition = shmem.existingCondition(offset + CONDITION_OFFSET, lockType);
+        return new ShmemDoorbell(atomics, condition);
+    }
+
+}
@@ -64,13 +64,34 @@ public class ShmemFactory {
     }
 
     public Shmem open() {
-        final Shmem shmem = this.nativeOpen(this.flink, this.osId);
+        final Shmem shmem;
+        try {
+            shmem = this.nativeOpen(this.flink, this.osId);
+        } catch (RuntimeException e) {
+            if (isNotFound(e)) {
+                throw new ShmemNotFoundException(e.getMessage(), e);
+            }
+            throw e;
+        }
         if (this.destroyOnExit) {
             this.addShutdownHook(shmem);
         }
         return shmem;
     }
 
+    // the native open fails with a plain runtime exception, whose message starts with the shared memory error
+    static private boolean isNotFound(RuntimeException e) {
+        if (e.getClass() != RuntimeException.class || e.getMessage() == null) {
+            return false;
+        }
+        final String message = e.getMessage();
+        return message.startsWith("MapOpenFailed(2)")                                      // no such os id
+            || message.startsWith("LinkDoesNotExist")                                       // no such flink
+            || (message.startsWith("LinkOpenFailed") && message.contains("NotFound"))
+            || message.startsWith("FlinkInvalidOsId")                                       // flink not written yet
+            || message.startsWith("MapSizeZero");                                           // not sized yet
+    }
+
     private void addShutdownHook(Shmem shmem) {
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
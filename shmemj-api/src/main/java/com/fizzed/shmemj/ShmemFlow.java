@@ -0,0 +1,82 @@
+package com.fizzed.shmemj;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Framing shared by ShmemFlowPublisher and ShmemFlowSubscriber. Every message is a 1 byte type followed by its
+ * payload: DATA (the item), CREDIT (a long of how many more items the consumer wants), COMPLETE (nothing) and ERROR
+ * (a UTF-8 message, also sent by the consumer to cancel).
+ */
+final class ShmemFlow {
+
+    static final byte DATA = 1;
+    static final byte CREDIT = 2;
+    static final byte COMPLETE = 3;
+    static final byte ERROR = 4;
+
+    // how long the adapters wait on a single read before simply waiting again
+    static final long IDLE_READ_MILLIS = 1000L;
+    static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 30000L;
+
+    // items are written with blocking writes, so the default executor must tolerate blocking (unlike the common pool,
+    // which on small machines may only have a single thread), while still being bounded. each flow only ever blocks one
+    // thread at a time, so apps with many more flows than this should supply their own executor
+    static final int DEFAULT_EXECUTOR_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    static private volatile Executor DEFAULT_EXECUTOR;
+
+    private ShmemFlow() {
+    }
+
+    static Executor defaultExecutor() {
+        Executor executor = DEFAULT_EXECUTOR;
+        if (executor == null) {
+            synchronized (ShmemFlow.class) {
+                executor = DEFAULT_EXECUTOR;
+                if (executor == null) {
+                    final AtomicInteger threadIds = new AtomicInteger();
+                    final ThreadPoolExecutor pool = new ThreadPoolExecutor(DEFAULT_EXECUTOR_THREADS, DEFAULT_EXECUTOR_THREADS,
+                        60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                            final Thread thread = new Thread(r, "shmemj-flow-" + threadIds.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+                    // idle threads still go away
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = DEFAULT_EXECUTOR = pool;
+                }
+            }
+        }
+        return executor;
+    }
+
+    static void putError(ByteBuffer buffer, String message) {
+        buffer.put(ERROR);
+        final byte[] bytes = (message != null ? message : "").getBytes(StandardCharsets.UTF_8);
+        // truncate rather than fail to report the error
+        buffer.put(bytes, 0, Math.min(bytes.length, buffer.remaining()));
+    }
+
+    static String getError(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    static void writeError(ShmemChannelConnection connection, String message) {
+        try (ShmemChannel.Write write = connection.write(DEFAULT_WRITE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            putError(write.getBuffer(), message);
+        } catch (Exception e) {
+            // best effort, the connection is likely gone anyway
+        }
+    }
+
+    static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+}
@@ -0,0 +1,254 @@
+package com.fizzed.shmemj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the items a remote ShmemFlowSubscriber sends over a connection to a local subscriber. Demand from
+ * request(n) is sent to the remote side as credit, so the remote producer never sends more than was requested and
+ * backpressure propagates across the process boundary.
+ *
+ * Items are copied out of shared memory, so the subscriber is free to keep them. Only a single subscriber is allowed.
+ * Reads are completed by the shared async waiter (see ShmemChannelConnection.readAsync()), while the subscriber is
+ * signaled on the executor (by default a shared, bounded pool of daemon threads). Every signal to the subscriber goes
+ * through a single queue that is drained by one task at a time, so signals are never concurrent (rule 1.3), even when
+ * a failure to send credit happens while an item is being delivered.
+ */
+public class ShmemFlowPublisher implements Flow.Publisher<ByteBuffer> {
+
+    private final ShmemChannelConnection connection;
+    private final Executor executor;
+    private final AtomicBoolean subscribed;
+
+    public ShmemFlowPublisher(ShmemChannelConnection connection) {
+        this(connection, ShmemFlow.defaultExecutor());
+    }
+
+    public ShmemFlowPublisher(ShmemChannelConnection connection, Executor executor) {
+        this.connection = connection;
+        this.executor = executor;
+        this.subscribed = new AtomicBoolean(false);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        if (!this.subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {}
+                @Override
+                public void cancel() {}
+            });
+            subscriber.onError(new IllegalStateException("Publisher only supports a single subscriber"));
+            return;
+        }
+
+        final ShmemSubscription subscription = new ShmemSubscription(subscriber);
+        subscription.signal(() -> subscriber.onSubscribe(subscription));
+        subscription.readNext();
+    }
+
+    private class ShmemSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong pendingCredit;
+        private final AtomicBoolean sending;
+        private final ConcurrentLinkedQueue<Runnable> signals;
+        private final AtomicInteger signalsPending;
+        private final AtomicBoolean done;
+        private volatile boolean cancelled;
+
+        private ShmemSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+            this.pendingCredit = new AtomicLong();
+            this.sending = new AtomicBoolean(false);
+            this.signals = new ConcurrentLinkedQueue<>();
+            this.signalsPending = new AtomicInteger();
+            this.done = new AtomicBoolean(false);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // rule 3.9, and the remote producer is cancelled the same as on cancel()
+                if (this.fail(new IllegalArgumentException("Requested items must be > 0 (was " + n + ")"))) {
+                    this.cancelRemote();
+                }
+                return;
+            }
+            if (this.done.get()) {
+                return;
+            }
+            // saturate rather than overflow (Long.MAX_VALUE is effectively unbounded)
+            this.pendingCredit.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            this.send();
+        }
+
+        @Override
+        public void cancel() {
+            if (this.done.compareAndSet(false, true)) {
+                this.cancelRemote();
+            }
+        }
+
+        private void cancelRemote() {
+            this.cancelled = true;
+            this.send();
+        }
+
+        // only one message is ever being written at a time, any credit requested meanwhile goes in the next one, while
+        // a cancel tells the remote producer to cancel its upstream
+        private void send() {
+            if (!this.cancelled && (this.pendingCredit.get() <= 0 || this.done.get())) {
+                return;
+            }
+            if (!this.sending.compareAndSet(false, true)) {
+                return;
+            }
+            connection.writeAsync(ShmemFlow.DEFAULT_WRITE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .whenComplete((write, e) -> {
+                    if (e != null) {
+                        this.sending.set(false);
+                        this.fail(ShmemFlow.unwrap(e));
+                        return;
+                    }
+                    final boolean cancelling = this.cancelled;
+                    try (ShmemChannel.Write w = write) {
+                        if (cancelling) {
+                            ShmemFlow.putError(w.getBuffer(), "Cancelled");
+                        } else {
+                            w.getBuffer().put(ShmemFlow.CREDIT);
+                            w.getBuffer().putLong(this.pendingCredit.getAndSet(0L));
+                        }
+                    } catch (Exception ex) {
+                        this.fail(ex);
+                    } finally {
+                        this.sending.set(false);
+                    }
+                    if (!cancelling) {
+                        this.send();
+                    }
+                });
+        }
+
+        private void readNext() {
+            if (this.done.get()) {
+                return;
+            }
+            final CompletionStage<ShmemChannel.Read> stage;
+            try {
+                stage = connection.readAsync(ShmemFlow.IDLE_READ_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                this.fail(e);
+                return;
+            }
+            stage.whenCompleteAsync((read, e) -> {
+                if (e != null) {
+                    final Throwable t = ShmemFlow.unwrap(e);
+                    if (t instanceof TimeoutException) {
+                        this.readNext();
+                    } else {
+                        this.fail(t);
+                    }
+                    return;
+                }
+                try {
+                    this.onMessage(read.getBuffer());
+                } catch (Throwable t) {
+                    this.fail(t);
+                } finally {
+                    try {
+                        read.close();
+                    } catch (IOException ex) {
+                        this.fail(ex);
+                    }
+                }
+                this.readNext();
+            }, executor);
+        }
+
+        private void onMessage(ByteBuffer buffer) {
+            if (this.done.get() || !buffer.hasRemaining()) {
+                return;
+            }
+            final byte type = buffer.get();
+            switch (type) {
+                case ShmemFlow.DATA:
+                    final ByteBuffer item = ByteBuffer.allocate(buffer.remaining());
+                    item.put(buffer).flip();
+                    this.signal(() -> {
+                        // items still queued once cancelled are dropped
+                        if (!this.cancelled) {
+                            this.subscriber.onNext(item);
+                        }
+                    });
+                    break;
+                case ShmemFlow.COMPLETE:
+                    if (this.done.compareAndSet(false, true)) {
+                        this.signal(this.subscriber::onComplete);
+                    }
+                    break;
+                case ShmemFlow.ERROR:
+                    this.fail(new IOException("Remote publisher failed: " + ShmemFlow.getError(buffer)));
+                    break;
+                default:
+                    this.fail(new IOException("Unexpected flow message type " + type));
+            }
+        }
+
+        /**
+         * Signals the subscriber with onError, unless it was already terminated (or cancelled).
+         *
+         * @return true if this terminated the subscription
+         */
+        private boolean fail(Throwable t) {
+            if (this.done.compareAndSet(false, true)) {
+                this.signal(() -> this.subscriber.onError(t));
+                return true;
+            }
+            return false;
+        }
+
+        // queues the signal, and only one drain runs at a time, which also runs any signals queued while it ran
+        private void signal(Runnable signal) {
+            this.signals.add(signal);
+            if (this.signalsPending.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // rather than lose the signals (and never drain again)
+                    this.drain();
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                Runnable signal;
+                while ((signal = this.signals.poll()) != null) {
+                    try {
+                        signal.run();
+                    } catch (Throwable t) {
+                        // subscriber broke rule 2.13, so treat it as cancelled, but still tell it why
+                        if (this.fail(t)) {
+                            this.cancelRemote();
+                        }
+                    }
+                }
+                missed = this.signalsPending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+
+}
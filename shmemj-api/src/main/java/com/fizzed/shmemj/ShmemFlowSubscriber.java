@@ -0,0 +1,141 @@
+package com.fizzed.shmemj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Subscribes to a local publisher and sends its items over a connection to a remote ShmemFlowPublisher. Items are only
+ * requested from upstream as the remote side grants credit, so a slow remote subscriber slows down the local
+ * publisher rather than filling an unbounded buffer. A remote cancel cancels the upstream subscription.
+ *
+ * Each item is written with a blocking write (bounded by the write timeout), which with credit only ever waits for
+ * the remote side to consume the previous item.
+ */
+public class ShmemFlowSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+    private final ShmemChannelConnection connection;
+    private final Executor executor;
+    private final long writeTimeoutMillis;
+    private volatile Flow.Subscription subscription;
+    private volatile boolean done;
+
+    public ShmemFlowSubscriber(ShmemChannelConnection connection) {
+        this(connection, ShmemFlow.defaultExecutor(), ShmemFlow.DEFAULT_WRITE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public ShmemFlowSubscriber(ShmemChannelConnection connection, Executor executor, long writeTimeout, TimeUnit unit) {
+        this.connection = connection;
+        this.executor = executor;
+        this.writeTimeoutMillis = unit.toMillis(writeTimeout);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        this.readNext();
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        if (this.done) {
+            return;
+        }
+        try (ShmemChannel.Write write = this.connection.write(this.writeTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            final ByteBuffer buffer = write.getBuffer();
+            if (item.remaining() > buffer.remaining() - 1) {
+                throw new IllegalArgumentException("Item of " + item.remaining() + " bytes exceeds max of " + (buffer.remaining() - 1));
+            }
+            buffer.put(ShmemFlow.DATA);
+            buffer.put(item.duplicate());
+        } catch (Exception e) {
+            // the item cannot be delivered, so stop the stream on both ends
+            this.done = true;
+            this.subscription.cancel();
+            ShmemFlow.writeError(this.connection, e.toString());
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (!this.done) {
+            this.done = true;
+            ShmemFlow.writeError(this.connection, throwable.toString());
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (!this.done) {
+            this.done = true;
+            try (ShmemChannel.Write write = this.connection.write(this.writeTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                write.getBuffer().put(ShmemFlow.COMPLETE);
+            } catch (Exception e) {
+                // nothing left to notify locally, the remote side will see the connection close
+            }
+        }
+    }
+
+    private void readNext() {
+        if (this.done) {
+            return;
+        }
+        final CompletionStage<ShmemChannel.Read> stage;
+        try {
+            stage = this.connection.readAsync(ShmemFlow.IDLE_READ_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            this.cancelUpstream();
+            return;
+        }
+        stage.whenCompleteAsync((read, e) -> {
+            if (e != null) {
+                if (ShmemFlow.unwrap(e) instanceof TimeoutException) {
+                    this.readNext();
+                } else {
+                    // remote side is gone, nobody left to send to
+                    this.cancelUpstream();
+                }
+                return;
+            }
+            byte type = 0;
+            long credit = 0L;
+            try (ShmemChannel.Read r = read) {
+                final ByteBuffer buffer = r.getBuffer();
+                if (buffer.hasRemaining()) {
+                    type = buffer.get();
+                    if (type == ShmemFlow.CREDIT) {
+                        credit = buffer.getLong();
+                    }
+                }
+            } catch (IOException ex) {
+                this.cancelUpstream();
+                return;
+            }
+            // the read is released before requesting, since upstream may synchronously write items from request()
+            if (type == ShmemFlow.CREDIT) {
+                this.subscription.request(credit);
+            } else if (type == ShmemFlow.ERROR) {
+                // remote subscriber cancelled (or failed)
+                this.cancelUpstream();
+                return;
+            }
+            this.readNext();
+        }, this.executor);
+    }
+
+    private void cancelUpstream() {
+        if (!this.done) {
+            this.done = true;
+            this.subscription.cancel();
+        }
+    }
+
+}
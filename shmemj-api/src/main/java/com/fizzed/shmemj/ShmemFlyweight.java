@@ -0,0 +1,184 @@
+package com.fizzed.shmemj;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base of a fixed-layout message codec that reads and writes its fields in place, straight from the buffer of a read
+ * or write (or any other buffer), rather than decoding them into objects. A subclass defines the layout as the offset
+ * of each field and exposes accessors that call the protected get/put methods. One instance is re-wrapped at each
+ * message, so decoding or encoding on the hot path allocates nothing.
+ *
+ * <pre>
+ * class Quote extends ShmemFlyweight {
+ *     static final int ID = 0, PRICE = 8, SIZE = 16;
+ *     public int getEncodedLength() { return 20; }
+ *     public long getId() { return this.getLong(ID); }
+ *     public Quote setId(long id) { this.putLong(ID, id); return this; }
+ *     ...
+ * }
+ * </pre>
+ *
+ * Fields are accessed with the byte order of the wrapped buffer (big endian unless it was changed) and their offsets
+ * are relative to where the flyweight was wrapped.
+ */
+abstract public class ShmemFlyweight {
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * The fixed length of the message (the offset just past its last field).
+     */
+    abstract public int getEncodedLength();
+
+    /**
+     * Wraps the message at the position of the buffer.
+     */
+    public ShmemFlyweight wrap(ByteBuffer buffer) {
+        return this.wrap(buffer, buffer.position());
+    }
+
+    /**
+     * Wraps the message at the offset of the buffer, which must have room for the whole message.
+     */
+    public ShmemFlyweight wrap(ByteBuffer buffer, int offset) {
+        final int length = this.getEncodedLength();
+        if (offset < 0 || offset > buffer.limit() - length) {
+            throw new IndexOutOfBoundsException("Message of " + length + " bytes at offset " + offset + " exceeds buffer limit of " + buffer.limit());
+        }
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public ByteBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    public int getOffset() {
+        return this.offset;
+    }
+
+    /**
+     * Moves the position of the buffer just past this message, e.g. so the length of a write includes it, or to wrap
+     * the next message that follows it.
+     *
+     * @return the new position of the buffer
+     */
+    public int advance() {
+        final int position = this.offset + this.getEncodedLength();
+        this.buffer.position(position);
+        return position;
+    }
+
+    //
+    // field access (relative to the offset of the message)
+    //
+
+    protected byte getByte(int field) {
+        return this.buffer.get(this.offset + field);
+    }
+
+    protected void putByte(int field, byte value) {
+        this.buffer.put(this.offset + field, value);
+    }
+
+    protected short getShort(int field) {
+        return this.buffer.getShort(this.offset + field);
+    }
+
+    protected void putShort(int field, short value) {
+        this.buffer.putShort(this.offset + field, value);
+    }
+
+    protected char getChar(int field) {
+        return this.buffer.getChar(this.offset + field);
+    }
+
+    protected void putChar(int field, char value) {
+        this.buffer.putChar(this.offset + field, value);
+    }
+
+    protected int getInt(int field) {
+        return this.buffer.getInt(this.offset + field);
+    }
+
+    protected void putInt(int field, int value) {
+        this.buffer.putInt(this.offset + field, value);
+    }
+
+    protected long getLong(int field) {
+        return this.buffer.getLong(this.offset + field);
+    }
+
+    protected void putLong(int field, long value) {
+        this.buffer.putLong(this.offset + field, value);
+    }
+
+    protected float getFloat(int field) {
+        return this.buffer.getFloat(this.offset + field);
+    }
+
+    protected void putFloat(int field, float value) {
+        this.buffer.putFloat(this.offset + field, value);
+    }
+
+    protected double getDouble(int field) {
+        return this.buffer.getDouble(this.offset + field);
+    }
+
+    protected void putDouble(int field, double value) {
+        this.buffer.putDouble(this.offset + field, value);
+    }
+
+    /**
+     * Copies length bytes of a fixed-length field into dst.
+     */
+    protected void getBytes(int field, byte[] dst, int dstOffset, int length) {
+        final int index = this.offset + field;
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = this.buffer.get(index + i);
+        }
+    }
+
+    /**
+     * Copies length bytes of src into a fixed-length field.
+     */
+    protected void putBytes(int field, byte[] src, int srcOffset, int length) {
+        final int index = this.offset + field;
+        for (int i = 0; i < length; i++) {
+            this.buffer.put(index + i, src[srcOffset + i]);
+        }
+    }
+
+    /**
+     * Appends the ascii chars of a fixed-length field to dst, stopping at the first zero byte (so shorter values are
+     * zero padded).
+     */
+    protected void getAscii(int field, int length, StringBuilder dst) {
+        final int index = this.offset + field;
+        for (int i = 0; i < length; i++) {
+            final byte b = this.buffer.get(index + i);
+            if (b == 0) {
+                break;
+            }
+            dst.append((char)b);
+        }
+    }
+
+    /**
+     * Puts the ascii chars of value into a fixed-length field, zero padded if it is shorter.
+     *
+     * @throws IllegalArgumentException if the value is longer than the field
+     */
+    protected void putAscii(int field, int length, CharSequence value) {
+        if (value.length() > length) {
+            throw new IllegalArgumentException("Value of " + value.length() + " chars exceeds field length of " + length);
+        }
+        final int index = this.offset + field;
+        for (int i = 0; i < length; i++) {
+            this.buffer.put(index + i, i < value.length() ? (byte)value.charAt(i) : (byte)0);
+        }
+    }
+
+}
@@ -0,0 +1,399 @@
+package com.fizzed.shmemj;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Open-addressing hash map of primitive long keys to variable-length byte values living in a region of shared memory,
+ * so one process can populate a lookup table that many processes read concurrently without copying it onto their heap.
+ *
+ * Each bucket is guarded by its own seqlock, so readers never block and never write to shared memory -- they retry if
+ * a writer changed the bucket while they read it. Values are appended to a value heap and never modified in place
+ * (replacing a value appends a new copy), so the read-only slices returned by get() remain valid even if the key is
+ * later replaced or removed. Writers are serialized by a lock in the header, so space in the value heap is never
+ * reclaimed and the map is best suited to tables that are populated once and mostly read.
+ *
+ * The writer lock records the pid of its owner. If a writer process dies while holding it (possibly part way through
+ * modifying a bucket), writers waiting on the lock and readers waiting on that bucket fail with a
+ * ShmemProcessDiedException instead of waiting forever.
+ *
+ * Layout (offsets relative to the start of the map):
+ *
+ *   0: magic, 4: version, 8: bucket count, 16: heap offset, 24: heap capacity,
+ *   64: heap position, 72: size, 128: writer lock (owner pid), 256: buckets, then the value heap
+ *
+ * Each bucket is [long seq][long key][long value offset][int value length][int state].
+ */
+public class ShmemHashMap {
+
+    static private final int MAGIC = 0x48415348;
+    static private final int VERSION_1 = 1;
+    static private final int MAGIC_POS = 0;
+    static private final int VERSION_POS = 4;
+    static private final int BUCKET_COUNT_POS = 8;
+    static private final int HEAP_OFFSET_POS = 16;
+    static private final int HEAP_CAPACITY_POS = 24;
+    static private final int HEAP_POSITION_POS = 64;
+    static private final int SIZE_POS = 72;
+    static private final int WRITER_LOCK_POS = 128;
+    static private final int HEADER_SIZE = 256;
+    static private final int BUCKET_SIZE = 32;
+    // buckets are a single byte buffer with int offsets, so they're at most 1GB (the largest power of 2 that fits)
+    static private final int MAX_BUCKET_COUNT = 1 << 25;
+    static private final int BUCKET_SEQ_POS = 0;
+    static private final int BUCKET_KEY_POS = 8;
+    static private final int BUCKET_VALUE_OFFSET_POS = 16;
+    static private final int BUCKET_VALUE_LENGTH_POS = 24;
+    static private final int BUCKET_STATE_POS = 28;
+    static private final int STATE_EMPTY = 0;
+    static private final int STATE_FULL = 1;
+    static private final int STATE_REMOVED = 2;
+    // how many spins waiting on a writer before checking if it died
+    static private final int WRITER_CHECK_SPINS = 1024;
+
+    private final Shmem shmem;
+    private final ProcessProvider processProvider;
+    private final long pid;
+    private final ShmemAtomics header;
+    private final ByteBuffer buckets;
+    private final ShmemAtomics bucketAtomics;
+    private final ByteBuffer heap;
+    private final int bucketCount;
+    private final int mask;
+
+    private ShmemHashMap(ProcessProvider processProvider, Shmem shmem, ShmemAtomics header, ByteBuffer buckets, ByteBuffer heap) {
+        this.shmem = shmem;
+        this.processProvider = processProvider;
+        this.pid = processProvider.getCurrentPid();
+        this.header = header;
+        this.buckets = buckets;
+        this.bucketAtomics = ShmemAtomics.of(buckets);
+        this.heap = heap;
+        this.bucketCount = header.getIntVolatile(BUCKET_COUNT_POS);
+        this.mask = this.bucketCount - 1;
+    }
+
+    public Shmem getShmem() {
+        return this.shmem;
+    }
+
+    public int getBucketCount() {
+        return this.bucketCount;
+    }
+
+    public long getHeapCapacity() {
+        return this.heap.capacity();
+    }
+
+    public long getHeapUsed() {
+        return this.header.getLongVolatile(HEAP_POSITION_POS);
+    }
+
+    public int size() {
+        return this.header.getIntVolatile(SIZE_POS);
+    }
+
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Gets the value of the key, without copying it.
+     *
+     * @param key the key
+     * @return a read-only view of the value in shared memory or null if the key does not exist
+     * @throws ShmemProcessDiedException if a writer died part way through modifying the bucket of the key
+     */
+    public ByteBuffer get(long key) {
+        this.checkShmem();
+
+        int index = hash(key) & this.mask;
+        for (int probes = 0; probes < this.bucketCount; probes++) {
+            final int bucket = index * BUCKET_SIZE;
+            int spins = 0;
+            for (;;) {
+                final long seq = this.bucketAtomics.getLongAcquire(bucket + BUCKET_SEQ_POS);
+                if ((seq & 1L) != 0) {
+                    // writer is modifying this bucket (unless it died doing so)
+                    if (++spins % WRITER_CHECK_SPINS == 0) {
+                        this.checkWriterAlive();
+                    }
+                    Thread.onSpinWait();
+                    continue;
+                }
+
+                final int state = this.buckets.getInt(bucket + BUCKET_STATE_POS);
+                final long bucketKey = this.buckets.getLong(bucket + BUCKET_KEY_POS);
+                final long valueOffset = this.buckets.getLong(bucket + BUCKET_VALUE_OFFSET_POS);
+                final int valueLength = this.buckets.getInt(bucket + BUCKET_VALUE_LENGTH_POS);
+
+                VarHandle.loadLoadFence();
+                if (this.bucketAtomics.getLongOpaque(bucket + BUCKET_SEQ_POS) != seq) {
+                    // torn read, try this bucket again
+                    continue;
+                }
+
+                if (state == STATE_EMPTY) {
+                    return null;
+                }
+                if (state == STATE_FULL && bucketKey == key) {
+                    return this.value(valueOffset, valueLength);
+                }
+                break;
+            }
+            index = (index + 1) & this.mask;
+        }
+        return null;
+    }
+
+    /**
+     * Puts the value of the key, replacing any existing value.
+     *
+     * @param key the key
+     * @param value the remaining bytes are the value, which is consumed (its position advanced to its limit)
+     * @return true if the key is new or false if an existing value was replaced
+     * @throws IllegalStateException if the buckets or value heap are full
+     * @throws ShmemProcessDiedException if a writer died while holding the writer lock
+     */
+    public boolean put(long key, ByteBuffer value) {
+        this.checkShmem();
+        this.lockWriter();
+        try {
+            int index = hash(key) & this.mask;
+            int target = -1;
+            boolean exists = false;
+            for (int probes = 0; probes < this.bucketCount; probes++) {
+                final int bucket = index * BUCKET_SIZE;
+                final int state = this.buckets.getInt(bucket + BUCKET_STATE_POS);
+                if (state == STATE_FULL && this.buckets.getLong(bucket + BUCKET_KEY_POS) == key) {
+                    target = bucket;
+                    exists = true;
+                    break;
+                }
+                if (state != STATE_FULL && target < 0) {
+                    // first reusable bucket, but keep probing in case the key exists further along
+                    target = bucket;
+                }
+                if (state == STATE_EMPTY) {
+                    break;
+                }
+                index = (index + 1) & this.mask;
+            }
+
+            if (target < 0) {
+                throw new IllegalStateException("Shared memory hash map is full (all " + this.bucketCount + " buckets used)");
+            }
+
+            final int valueLength = value.remaining();
+            final long valueOffset = this.append(value);
+
+            this.beginWrite(target);
+            this.buckets.putLong(target + BUCKET_KEY_POS, key);
+            this.buckets.putLong(target + BUCKET_VALUE_OFFSET_POS, valueOffset);
+            this.buckets.putInt(target + BUCKET_VALUE_LENGTH_POS, valueLength);
+            this.buckets.putInt(target + BUCKET_STATE_POS, STATE_FULL);
+            this.endWrite(target);
+
+            if (!exists) {
+                this.header.getAndAddInt(SIZE_POS, 1);
+            }
+            return !exists;
+        } finally {
+            this.unlockWriter();
+        }
+    }
+
+    /**
+     * Removes the key. Its value stays in the value heap, so views already returned by get() remain valid.
+     *
+     * @return true if the key existed
+     * @throws ShmemProcessDiedException if a writer died while holding the writer lock
+     */
+    public boolean remove(long key) {
+        this.checkShmem();
+        this.lockWriter();
+        try {
+            int index = hash(key) & this.mask;
+            for (int probes = 0; probes < this.bucketCount; probes++) {
+                final int bucket = index * BUCKET_SIZE;
+                final int state = this.buckets.getInt(bucket + BUCKET_STATE_POS);
+                if (state == STATE_EMPTY) {
+                    return false;
+                }
+                if (state == STATE_FULL && this.buckets.getLong(bucket + BUCKET_KEY_POS) == key) {
+                    // leave a tombstone so probes for keys further along still find them
+                    this.beginWrite(bucket);
+                    this.buckets.putInt(bucket + BUCKET_STATE_POS, STATE_REMOVED);
+                    this.endWrite(bucket);
+                    this.header.getAndAddInt(SIZE_POS, -1);
+                    return true;
+                }
+                index = (index + 1) & this.mask;
+            }
+            return false;
+        } finally {
+            this.unlockWriter();
+        }
+    }
+
+    private long append(ByteBuffer value) {
+        final long position = this.header.getLongVolatile(HEAP_POSITION_POS);
+        final int length = value.remaining();
+        if (position + length > this.heap.capacity()) {
+            throw new IllegalStateException("Shared memory hash map value heap is full (" + position + " of "
+                + this.heap.capacity() + " bytes used, value needs " + length + " bytes)");
+        }
+
+        final ByteBuffer dst = this.heap.duplicate();
+        dst.position((int)position);
+        dst.put(value);
+
+        // keep the next value 8 byte aligned
+        this.header.setLongRelease(HEAP_POSITION_POS, Math.min((position + length + 7) & ~7L, this.heap.capacity()));
+        return position;
+    }
+
+    private ByteBuffer value(long offset, int length) {
+        final ByteBuffer dup = this.heap.duplicate();
+        dup.position((int)offset);
+        dup.limit((int)offset + length);
+        return dup.slice().asReadOnlyBuffer();
+    }
+
+    private void beginWrite(int bucket) {
+        // odd sequence tells readers the bucket is being modified
+        this.bucketAtomics.setLongVolatile(bucket + BUCKET_SEQ_POS, this.bucketAtomics.getLong(bucket + BUCKET_SEQ_POS) + 1L);
+        VarHandle.storeStoreFence();
+    }
+
+    private void endWrite(int bucket) {
+        this.bucketAtomics.setLongRelease(bucket + BUCKET_SEQ_POS, this.bucketAtomics.getLong(bucket + BUCKET_SEQ_POS) + 1L);
+    }
+
+    private void lockWriter() {
+        int spins = 0;
+        while (!this.header.compareAndSetLong(WRITER_LOCK_POS, 0L, this.pid)) {
+            if (++spins % WRITER_CHECK_SPINS == 0) {
+                this.checkWriterAlive();
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void unlockWriter() {
+        this.header.setLongRelease(WRITER_LOCK_POS, 0L);
+    }
+
+    private void checkWriterAlive() {
+        final long owner = this.header.getLongVolatile(WRITER_LOCK_POS);
+        // the lock is never released if its owner dies, while our own process is obviously alive
+        if (owner != 0L && owner != this.pid && !this.processProvider.isAlive(owner)) {
+            throw new ShmemProcessDiedException("Writer process " + owner + " died while holding the lock of the shared memory hash map");
+        }
+    }
+
+    private void checkShmem() {
+        if (this.shmem.isDestroyed()) {
+            throw new ShmemDestroyedException("Shared memory backing this hash map is destroyed");
+        }
+    }
+
+    static int hash(long key) {
+        // murmur3 finalizer, so sequential keys spread across the buckets
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int)key;
+    }
+
+    /**
+     * Creates a new hash map in a region of shared memory. Whatever is left after the buckets is the value heap.
+     *
+     * @param shmem the shared memory
+     * @param offset the start of the map (8 byte aligned)
+     * @param length the total length of the map (the value heap it leaves must be at most 2GB)
+     * @param bucketCount the number of buckets (a power of 2 up to 2^25, and should be well above the number of keys)
+     * @return the new hash map
+     */
+    static public ShmemHashMap create(Shmem shmem, long offset, long length, int bucketCount) {
+        return create(ProcessProvider.DEFAULT, shmem, offset, length, bucketCount);
+    }
+
+    static public ShmemHashMap create(ProcessProvider processProvider, Shmem shmem, long offset, long length, int bucketCount) {
+        if (offset % 8 != 0) {
+            throw new IllegalArgumentException("Offset " + offset + " must be 8 byte aligned");
+        }
+        if (bucketCount <= 0 || Integer.bitCount(bucketCount) != 1) {
+            throw new IllegalArgumentException("Bucket count " + bucketCount + " must be a power of 2");
+        }
+        if (bucketCount > MAX_BUCKET_COUNT) {
+            throw new IllegalArgumentException("Bucket count " + bucketCount + " must be <= " + MAX_BUCKET_COUNT);
+        }
+
+        final long heapOffset = HEADER_SIZE + (long)bucketCount * BUCKET_SIZE;
+        final long heapCapacity = length - heapOffset;
+        if (heapCapacity <= 0) {
+            throw new IllegalArgumentException("Length " + length + " is too small for " + bucketCount + " buckets");
+        }
+        if (heapCapacity > Integer.MAX_VALUE) {
+            // values are sliced out of a single byte buffer
+            throw new IllegalArgumentException("Length " + length + " leaves a value heap of " + heapCapacity
+                + " bytes, but it can be at most " + Integer.MAX_VALUE + " bytes");
+        }
+
+        final ShmemAtomics header = shmem.newAtomics(offset, HEADER_SIZE);
+        final ByteBuffer buckets = shmem.newByteBuffer(offset + HEADER_SIZE, (long)bucketCount * BUCKET_SIZE).order(ByteOrder.nativeOrder());
+        final ByteBuffer heap = shmem.newByteBuffer(offset + heapOffset, heapCapacity);
+
+        for (int i = 0; i < buckets.capacity(); i += 8) {
+            buckets.putLong(i, 0L);
+        }
+
+        header.setInt(VERSION_POS, VERSION_1);
+        header.setLong(HEAP_OFFSET_POS, heapOffset);
+        header.setLong(HEAP_CAPACITY_POS, heapCapacity);
+        header.setLong(HEAP_POSITION_POS, 0L);
+        header.setInt(SIZE_POS, 0);
+        header.setLong(WRITER_LOCK_POS, 0L);
+        header.setIntVolatile(BUCKET_COUNT_POS, bucketCount);
+        // magic is last, an existing map is only valid once everything else is written
+        header.setIntVolatile(MAGIC_POS, MAGIC);
+
+        return new ShmemHashMap(processProvider, shmem, header, buckets, heap);
+    }
+
+    /**
+     * Attaches to a hash map another process created in a region of shared memory.
+     */
+    static public ShmemHashMap existing(Shmem shmem, long offset) {
+        return existing(ProcessProvider.DEFAULT, shmem, offset);
+    }
+
+    static public ShmemHashMap existing(ProcessProvider processProvider, Shmem shmem, long offset) {
+        final ShmemAtomics header = shmem.newAtomics(offset, HEADER_SIZE);
+
+        if (header.getIntVolatile(MAGIC_POS) != MAGIC) {
+            throw new IllegalStateException("Shared memory hash map has an unexpected magic value (it is either corrupted or not initialized as a hash map yet)");
+        }
+        if (header.getInt(VERSION_POS) != VERSION_1) {
+            throw new IllegalStateException("Shared memory hash map has an unexpected version value");
+        }
+
+        final int bucketCount = header.getIntVolatile(BUCKET_COUNT_POS);
+        if (bucketCount <= 0 || bucketCount > MAX_BUCKET_COUNT || Integer.bitCount(bucketCount) != 1) {
+            throw new IllegalStateException("Shared memory hash map has an unexpected bucket count of " + bucketCount);
+        }
+        final ByteBuffer buckets = shmem.newByteBuffer(offset + HEADER_SIZE, (long)bucketCount * BUCKET_SIZE).order(ByteOrder.nativeOrder());
+        final ByteBuffer heap = shmem.newByteBuffer(offset + header.getLong(HEAP_OFFSET_POS), header.getLong(HEAP_CAPACITY_POS));
+
+        return new ShmemHashMap(processProvider, shmem, header, buckets, heap);
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.fizzed.shmemj;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single daemon thread shared by every connection in the process that publishes their heartbeats. A tick is only a
+ * counter increment in shared memory, so one thread easily keeps up with many connections.
+ */
+class ShmemHeartbeat {
+
+    static private volatile ScheduledThreadPoolExecutor EXECUTOR;
+
+    static ScheduledFuture<?> schedule(Runnable tick, long intervalMillis) {
+        return executor().scheduleAtFixedRate(tick, 0L, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    static private ScheduledThreadPoolExecutor executor() {
+        ScheduledThreadPoolExecutor executor = EXECUTOR;
+        if (executor == null) {
+            synchronized (ShmemHeartbeat.class) {
+                executor = EXECUTOR;
+                if (executor == null) {
+                    executor = new ScheduledThreadPoolExecutor(1, r -> {
+                        final Thread thread = new Thread(r, "shmemj-heartbeat");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    // connections come and go, don't keep their cancelled ticks around
+                    executor.setRemoveOnCancelPolicy(true);
+                    EXECUTOR = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.fizzed.shmemj;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reads a payload streamed by a ShmemOutputStream on the other end of a connection, one chunk at a time. Bytes are
+ * copied straight out of the shared buffer and each chunk is released back to the writer as soon as it is consumed.
+ * The stream ends after the last chunk, while closing it early leaves any remaining chunks unread in the connection.
+ */
+public class ShmemInputStream extends InputStream implements ReadableByteChannel {
+
+    private final ShmemChannelConnection connection;
+    private final long timeoutNanos;
+    private ShmemChannel.Read read;
+    private ByteBuffer buffer;
+    private boolean last;
+    private boolean closed;
+
+    /**
+     * @param connection the connection to read from
+     * @param timeout how long to wait for each chunk
+     */
+    public ShmemInputStream(ShmemChannelConnection connection, long timeout, TimeUnit unit) {
+        this.connection = connection;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final ByteBuffer chunk = this.nextChunk();
+        return chunk != null ? (chunk.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        final ByteBuffer chunk = this.nextChunk();
+        if (chunk == null) {
+            return -1;
+        }
+        final int n = Math.min(len, chunk.remaining());
+        chunk.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        final ByteBuffer chunk = this.nextChunk();
+        if (chunk == null) {
+            return -1;
+        }
+        final int n = Math.min(dst.remaining(), chunk.remaining());
+        final ByteBuffer part = chunk.duplicate();
+        part.limit(part.position() + n);
+        dst.put(part);
+        chunk.position(chunk.position() + n);
+        return n;
+    }
+
+    /**
+     * The bytes left in the current chunk, which can be read without waiting.
+     */
+    @Override
+    public int available() throws IOException {
+        if (this.closed) {
+            throw new ClosedChannelException();
+        }
+        return this.buffer != null ? this.buffer.remaining() : 0;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !this.closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.releaseChunk();
+    }
+
+    // the chunk with at least one more byte or null at the end of the stream
+    private ByteBuffer nextChunk() throws IOException {
+        if (this.closed) {
+            throw new ClosedChannelException();
+        }
+        for (;;) {
+            if (this.buffer != null) {
+                if (this.buffer.hasRemaining()) {
+                    return this.buffer;
+                }
+                this.releaseChunk();
+            }
+            if (this.last) {
+                return null;
+            }
+            this.readChunk();
+        }
+    }
+
+    private void readChunk() throws IOException {
+        try {
+            this.read = this.connection.read(this.timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new InterruptedIOException("Timed out waiting for chunk");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for chunk");
+        }
+        this.buffer = this.read.getBuffer();
+        if (!this.buffer.hasRemaining()) {
+            this.releaseChunk();
+            throw new IOException("Chunk is missing its header (is the other end a ShmemOutputStream?)");
+        }
+        final byte type = this.buffer.get();
+        if (type == ShmemOutputStream.LAST_CHUNK) {
+            this.last = true;
+        } else if (type != ShmemOutputStream.CHUNK) {
+            this.releaseChunk();
+            throw new IOException("Unexpected chunk header " + type + " (is the other end a ShmemOutputStream?)");
+        }
+    }
+
+    private void releaseChunk() throws IOException {
+        final ShmemChannel.Read r = this.read;
+        this.read = null;
+        this.buffer = null;
+        if (r != null) {
+            r.close();
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.fizzed.shmemj;
+
+/**
+ * The synchronization primitive backing a condition.
+ */
+public enum ShmemLockType {
+
+    /** OS mutex + condition variable (waiters block in the OS) */
+    THREAD((byte)0),
+    /** atomic variable with a CAS spinlock (waiters spin, then back off) */
+    SPIN((byte)1),
+    /** a futex word in the shared memory (linux only, waiters sleep in the kernel and are woken immediately) */
+    FUTEX((byte)2);
+
+    private final byte value;
+
+    ShmemLockType(byte value) {
+        this.value = value;
+    }
+
+    public byte getValue() {
+        return value;
+    }
+
+    static public ShmemLockType fromValue(byte value) {
+        for (ShmemLockType lockType : values()) {
+            if (lockType.value == value) {
+                return lockType;
+            }
+        }
+        throw new IllegalArgumentException("Unknown lock type value " + value);
+    }
+
+    static public ShmemLockType fromSpinLock(boolean spinLock) {
+        return spinLock ? SPIN : THREAD;
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.fizzed.shmemj;
+
+/**
+ * There is no shared memory at the address (yet), e.g. the server has not created it.
+ */
+public class ShmemNotFoundException extends RuntimeException {
+
+    public ShmemNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
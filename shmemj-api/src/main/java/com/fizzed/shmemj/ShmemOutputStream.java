@@ -0,0 +1,152 @@
+package com.fizzed.shmemj;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Streams a payload of any size over a connection by splitting it into chunks that each fit in a single write. Bytes
+ * are written straight into the shared buffer, and a chunk is handed off to the reader as soon as it fills up, so with
+ * ring buffers (and a chunk size smaller than the ring) several chunks are in flight while the writer keeps going.
+ *
+ * Every chunk starts with a one byte header that tells the reader whether more chunks follow, and close() marks the
+ * last one, which is what a ShmemInputStream on the other end sees as the end of the stream. Until then the stream
+ * owns the write side of the connection.
+ */
+public class ShmemOutputStream extends OutputStream implements WritableByteChannel {
+
+    static final byte CHUNK = 1;
+    static final byte LAST_CHUNK = 2;
+    static final int CHUNK_HEADER_SIZE = 1;
+
+    private final ShmemChannelConnection connection;
+    private final int chunkSize;
+    private final long timeoutNanos;
+    private ShmemChannel.Write write;
+    private ByteBuffer buffer;
+    private boolean closed;
+
+    /**
+     * @param connection the connection to write to
+     * @param chunkSize the max bytes of each chunk (including its header) or -1 to use as much as a write allows
+     * @param timeout how long to wait for room for each chunk
+     */
+    public ShmemOutputStream(ShmemChannelConnection connection, int chunkSize, long timeout, TimeUnit unit) {
+        if (chunkSize != -1 && chunkSize <= CHUNK_HEADER_SIZE) {
+            throw new IllegalArgumentException("Chunk size " + chunkSize + " must be > " + CHUNK_HEADER_SIZE + " (or -1 for the max)");
+        }
+        this.connection = connection;
+        this.chunkSize = chunkSize;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    public ShmemOutputStream(ShmemChannelConnection connection, long timeout, TimeUnit unit) {
+        this(connection, -1, timeout, unit);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.nextChunk().put((byte)b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        while (len > 0) {
+            final ByteBuffer chunk = this.nextChunk();
+            final int n = Math.min(len, chunk.remaining());
+            chunk.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        final int length = src.remaining();
+        while (src.hasRemaining()) {
+            final ByteBuffer chunk = this.nextChunk();
+            final int n = Math.min(src.remaining(), chunk.remaining());
+            final ByteBuffer part = src.duplicate();
+            part.limit(part.position() + n);
+            chunk.put(part);
+            src.position(src.position() + n);
+        }
+        return length;
+    }
+
+    /**
+     * Hands off what has been written so far to the reader (even if the current chunk is not full yet).
+     */
+    @Override
+    public void flush() throws IOException {
+        if (this.buffer != null && this.buffer.position() > CHUNK_HEADER_SIZE) {
+            this.endChunk(CHUNK);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !this.closed;
+    }
+
+    /**
+     * Hands off the last chunk, which ends the stream for the reader.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        if (this.buffer == null) {
+            this.beginChunk();
+        }
+        this.endChunk(LAST_CHUNK);
+    }
+
+    // the chunk with room for at least one more byte
+    private ByteBuffer nextChunk() throws IOException {
+        if (this.closed) {
+            throw new ClosedChannelException();
+        }
+        if (this.buffer != null && !this.buffer.hasRemaining()) {
+            this.endChunk(CHUNK);
+        }
+        if (this.buffer == null) {
+            this.beginChunk();
+        }
+        return this.buffer;
+    }
+
+    private void beginChunk() throws IOException {
+        try {
+            this.write = this.chunkSize > 0
+                ? this.connection.write(this.chunkSize, this.timeoutNanos, TimeUnit.NANOSECONDS)
+                : this.connection.write(this.timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new InterruptedIOException("Timed out waiting for room to write chunk");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for room to write chunk");
+        }
+        this.buffer = this.write.getBuffer();
+        // header is filled in once we know if this is the last chunk
+        this.buffer.position(CHUNK_HEADER_SIZE);
+    }
+
+    private void endChunk(byte type) throws IOException {
+        final ShmemChannel.Write w = this.write;
+        this.buffer.put(0, type);
+        this.write = null;
+        this.buffer = null;
+        w.close();
+    }
+
+}
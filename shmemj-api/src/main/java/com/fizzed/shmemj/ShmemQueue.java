@@ -0,0 +1,406 @@
+package com.fizzed.shmemj;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bounded multi-producer/multi-consumer queue of variable-length entries living in a region of shared memory, so many
+ * producer processes can feed many consumer processes without a channel per pair. Based on Dmitry Vyukov's bounded
+ * MPMC queue: every slot is stamped with a sequence number that tells producers and consumers whose turn it is, so a
+ * slot is claimed with a single CAS on the enqueue or dequeue position and no locks are ever held.
+ *
+ * Optionally, the queue includes a "not empty" and "not full" condition so consumers and producers can block rather
+ * than poll. Conditions are only signaled when a process is actually waiting on them.
+ *
+ * Layout (offsets relative to the start of the queue, counters on their own cache lines):
+ *
+ *   0: magic, 4: version, 8: capacity, 12: max entry size, 16: slot stride, 20: lock type, 21: blocking,
+ *   24: slots offset, 32: not empty condition offset, 40: not full condition offset,
+ *   64: enqueue position, 128: dequeue position, 192: waiting consumers, 196: waiting producers,
+ *   256: conditions (if blocking), then the slots
+ *
+ * Each slot is [long sequence][int length][int reserved][entry bytes].
+ */
+public class ShmemQueue implements AutoCloseable {
+
+    static private final int MAGIC = 0x51554555;
+    static private final int VERSION_1 = 1;
+    static private final int MAGIC_POS = 0;
+    static private final int VERSION_POS = 4;
+    static private final int CAPACITY_POS = 8;
+    static private final int MAX_ENTRY_SIZE_POS = 12;
+    static private final int SLOT_STRIDE_POS = 16;
+    static private final int LOCK_TYPE_POS = 20;
+    static private final int BLOCKING_POS = 21;
+    static private final int SLOTS_OFFSET_POS = 24;
+    static private final int NOT_EMPTY_OFFSET_POS = 32;
+    static private final int NOT_FULL_OFFSET_POS = 40;
+    static private final int ENQUEUE_POS = 64;
+    static private final int DEQUEUE_POS = 128;
+    static private final int WAITING_CONSUMERS_POS = 192;
+    static private final int WAITING_PRODUCERS_POS = 196;
+    static private final int HEADER_SIZE = 256;
+    static private final int SLOT_HEADER_SIZE = 16;
+    static private final int SLOT_SEQUENCE_POS = 0;
+    static private final int SLOT_LENGTH_POS = 8;
+    // waiters re-check the queue at least this often, since a signal may be consumed by another waiter
+    static private final long MAX_AWAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+
+    private final Shmem shmem;
+    private final ShmemAtomics header;
+    private final ByteBuffer slots;
+    private final ShmemAtomics slotAtomics;
+    private final int capacity;
+    private final int mask;
+    private final int maxEntrySize;
+    private final int slotStride;
+    private final ShmemCondition notEmpty;
+    private final ShmemCondition notFull;
+
+    private ShmemQueue(Shmem shmem, ShmemAtomics header, ByteBuffer slots, ShmemCondition notEmpty, ShmemCondition notFull) {
+        this.shmem = shmem;
+        this.header = header;
+        this.slots = slots;
+        this.slotAtomics = ShmemAtomics.of(slots);
+        this.capacity = header.getIntVolatile(CAPACITY_POS);
+        this.mask = this.capacity - 1;
+        this.maxEntrySize = header.getInt(MAX_ENTRY_SIZE_POS);
+        this.slotStride = header.getInt(SLOT_STRIDE_POS);
+        this.notEmpty = notEmpty;
+        this.notFull = notFull;
+    }
+
+    public Shmem getShmem() {
+        return this.shmem;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public int getMaxEntrySize() {
+        return this.maxEntrySize;
+    }
+
+    public boolean isBlocking() {
+        return this.notEmpty != null;
+    }
+
+    /**
+     * The approximate number of entries in the queue (exact only if no other process is using it).
+     */
+    public int size() {
+        final long dequeuePos = this.header.getLongVolatile(DEQUEUE_POS);
+        final long enqueuePos = this.header.getLongVolatile(ENQUEUE_POS);
+        return (int)Math.max(0L, Math.min(this.capacity, enqueuePos - dequeuePos));
+    }
+
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * Offers the remaining bytes of the source as an entry, without blocking.
+     *
+     * @param src the entry, which is consumed (its position advanced to its limit) if offered
+     * @return true if offered or false if the queue is full
+     */
+    public boolean offer(ByteBuffer src) {
+        this.checkShmem();
+
+        final int length = src.remaining();
+        if (length > this.maxEntrySize) {
+            throw new IllegalArgumentException("Entry length " + length + " exceeds max entry size of " + this.maxEntrySize);
+        }
+
+        long pos = this.header.getLongVolatile(ENQUEUE_POS);
+        for (;;) {
+            final int slot = this.slotIndex(pos);
+            final long seq = this.slotAtomics.getLongVolatile(slot + SLOT_SEQUENCE_POS);
+            final long dif = seq - pos;
+            if (dif == 0) {
+                if (this.header.compareAndSetLong(ENQUEUE_POS, pos, pos + 1)) {
+                    // slot is ours until we publish its sequence
+                    this.slots.putInt(slot + SLOT_LENGTH_POS, length);
+                    final ByteBuffer dst = this.slots.duplicate();
+                    dst.position(slot + SLOT_HEADER_SIZE);
+                    dst.put(src);
+                    this.slotAtomics.setLongRelease(slot + SLOT_SEQUENCE_POS, pos + 1);
+                    this.wakeup(WAITING_CONSUMERS_POS, this.notEmpty);
+                    return true;
+                }
+                pos = this.header.getLongVolatile(ENQUEUE_POS);
+            } else if (dif < 0) {
+                // consumers have not freed this slot yet, queue is full
+                return false;
+            } else {
+                // another producer claimed it first
+                pos = this.header.getLongVolatile(ENQUEUE_POS);
+            }
+        }
+    }
+
+    /**
+     * Offers the remaining bytes of the source as an entry, waiting up to the timeout for space if the queue is full.
+     *
+     * @return true if offered or false if the timeout elapsed
+     */
+    public boolean offer(ByteBuffer src, long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (;;) {
+            if (this.offer(src)) {
+                return true;
+            }
+            if (!this.await(WAITING_PRODUCERS_POS, this.notFull, deadline, () -> this.size() < this.capacity)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Polls for the next entry, without blocking.
+     *
+     * @param consumer called with a read-only view of the entry, which is only valid until the consumer returns
+     * @return true if an entry was consumed or false if the queue is empty
+     */
+    public boolean poll(Consumer<ByteBuffer> consumer) {
+        this.checkShmem();
+
+        long pos = this.header.getLongVolatile(DEQUEUE_POS);
+        for (;;) {
+            final int slot = this.slotIndex(pos);
+            final long seq = this.slotAtomics.getLongVolatile(slot + SLOT_SEQUENCE_POS);
+            final long dif = seq - (pos + 1);
+            if (dif == 0) {
+                if (this.header.compareAndSetLong(DEQUEUE_POS, pos, pos + 1)) {
+                    try {
+                        final int length = this.slots.getInt(slot + SLOT_LENGTH_POS);
+                        consumer.accept(this.entry(slot, length));
+                    } finally {
+                        // hand the slot back to producers for the next lap
+                        this.slotAtomics.setLongRelease(slot + SLOT_SEQUENCE_POS, pos + this.capacity);
+                        this.wakeup(WAITING_PRODUCERS_POS, this.notFull);
+                    }
+                    return true;
+                }
+                pos = this.header.getLongVolatile(DEQUEUE_POS);
+            } else if (dif < 0) {
+                // producer has not published this slot yet, queue is empty
+                return false;
+            } else {
+                // another consumer claimed it first
+                pos = this.header.getLongVolatile(DEQUEUE_POS);
+            }
+        }
+    }
+
+    /**
+     * Polls for the next entry, waiting up to the timeout for one if the queue is empty.
+     *
+     * @return true if an entry was consumed or false if the timeout elapsed
+     */
+    public boolean poll(Consumer<ByteBuffer> consumer, long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (;;) {
+            if (this.poll(consumer)) {
+                return true;
+            }
+            if (!this.await(WAITING_CONSUMERS_POS, this.notEmpty, deadline, () -> this.size() > 0)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Polls the next entry into the destination (at its position), without blocking.
+     *
+     * @return the length of the entry or -1 if the queue is empty
+     */
+    public int poll(ByteBuffer dst) {
+        final int[] length = { -1 };
+        this.poll(entry -> {
+            length[0] = entry.remaining();
+            dst.put(entry);
+        });
+        return length[0];
+    }
+
+    /**
+     * Polls entries until the queue is empty or the max number of entries were consumed.
+     *
+     * @return the number of entries consumed
+     */
+    public int drain(Consumer<ByteBuffer> consumer, int maxEntries) {
+        int count = 0;
+        while (count < maxEntries && this.poll(consumer)) {
+            count++;
+        }
+        return count;
+    }
+
+    private int slotIndex(long pos) {
+        // capacity * slot stride is capped at Integer.MAX_VALUE on create, so this never overflows
+        return (int)(pos & this.mask) * this.slotStride;
+    }
+
+    private ByteBuffer entry(int slot, int length) {
+        final ByteBuffer dup = this.slots.duplicate();
+        dup.position(slot + SLOT_HEADER_SIZE);
+        dup.limit(slot + SLOT_HEADER_SIZE + length);
+        return dup.slice().asReadOnlyBuffer();
+    }
+
+    private void wakeup(int waitersPos, ShmemCondition condition) {
+        if (condition != null) {
+            // the store that published the slot must be visible before we check for waiters (and vice versa in await)
+            VarHandle.fullFence();
+            if (this.header.getIntVolatile(waitersPos) > 0) {
+                condition.signal();
+            }
+        }
+    }
+
+    private boolean await(int waitersPos, ShmemCondition condition, long deadline, Ready ready) throws InterruptedException {
+        if (condition == null) {
+            throw new IllegalStateException("Queue was not created as blocking (it has no conditions to wait on)");
+        }
+
+        final long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+            return false;
+        }
+
+        this.header.getAndAddInt(waitersPos, 1);
+        try {
+            // re-check after registering as a waiter, the other side may have missed us
+            if (!ready.isReady()) {
+                condition.await(Math.min(remainingNanos, MAX_AWAIT_NANOS), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            this.header.getAndAddInt(waitersPos, -1);
+        }
+        return true;
+    }
+
+    private interface Ready {
+        boolean isReady();
+    }
+
+    private void checkShmem() {
+        if (this.shmem.isDestroyed()) {
+            throw new ShmemDestroyedException("Shared memory backing this queue is destroyed");
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (this.notEmpty != null) {
+            this.notEmpty.close();
+            this.notFull.close();
+        }
+    }
+
+    /**
+     * Creates a new queue in a region of shared memory, with as many slots as will fit (rounded down to a power of 2).
+     * The slots are a single byte buffer with int offsets, so they use at most 2GB of the region.
+     *
+     * @param shmem the shared memory
+     * @param offset the start of the queue (8 byte aligned)
+     * @param length the total length of the queue
+     * @param maxEntrySize the max length of an entry
+     * @param lockType the lock type of the conditions to block on, or null for a non-blocking queue
+     * @return the new queue
+     */
+    static public ShmemQueue create(Shmem shmem, long offset, long length, int maxEntrySize, ShmemLockType lockType) {
+        if (offset % 8 != 0) {
+            throw new IllegalArgumentException("Offset " + offset + " must be 8 byte aligned");
+        }
+        if (maxEntrySize <= 0) {
+            throw new IllegalArgumentException("Max entry size must be > 0");
+        }
+        if ((long)maxEntrySize + SLOT_HEADER_SIZE + 7 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Max entry size " + maxEntrySize + " must be <= " + (Integer.MAX_VALUE - SLOT_HEADER_SIZE - 7));
+        }
+
+        final ShmemAtomics header = shmem.newAtomics(offset, HEADER_SIZE);
+        long slotsOffset = HEADER_SIZE;
+        ShmemCondition notEmpty = null;
+        ShmemCondition notFull = null;
+
+        if (lockType != null) {
+            notEmpty = shmem.newCondition(offset + slotsOffset, lockType, true);
+            header.setLong(NOT_EMPTY_OFFSET_POS, slotsOffset);
+            slotsOffset += notEmpty.getSize();
+            notFull = shmem.newCondition(offset + slotsOffset, lockType, true);
+            header.setLong(NOT_FULL_OFFSET_POS, slotsOffset);
+            slotsOffset += notFull.getSize();
+            // keep the slots cache line aligned
+            slotsOffset = (slotsOffset + 63) & ~63L;
+        }
+
+        final int slotStride = (SLOT_HEADER_SIZE + maxEntrySize + 7) & ~7;
+        final long slotCount = (length - slotsOffset) / slotStride;
+        if (slotCount < 1) {
+            throw new IllegalArgumentException("Length " + length + " is too small for even a single entry of " + maxEntrySize + " bytes");
+        }
+        // slots are addressed with int offsets, so all of them must fit in 2GB
+        final int capacity = Integer.highestOneBit((int)Math.min(slotCount, Integer.MAX_VALUE / slotStride));
+
+        final ByteBuffer slots = shmem.newByteBuffer(offset + slotsOffset, (long)capacity * slotStride).order(ByteOrder.nativeOrder());
+        final ShmemAtomics slotAtomics = ShmemAtomics.of(slots);
+        for (int i = 0; i < capacity; i++) {
+            slotAtomics.setLong(i * slotStride + SLOT_SEQUENCE_POS, i);
+        }
+
+        header.setInt(VERSION_POS, VERSION_1);
+        header.setInt(MAX_ENTRY_SIZE_POS, maxEntrySize);
+        header.setInt(SLOT_STRIDE_POS, slotStride);
+        header.getBuffer().put(LOCK_TYPE_POS, lockType != null ? lockType.getValue() : 0);
+        header.getBuffer().put(BLOCKING_POS, lockType != null ? (byte)1 : (byte)0);
+        header.setLong(SLOTS_OFFSET_POS, slotsOffset);
+        header.setLong(ENQUEUE_POS, 0L);
+        header.setLong(DEQUEUE_POS, 0L);
+        header.setInt(WAITING_CONSUMERS_POS, 0);
+        header.setInt(WAITING_PRODUCERS_POS, 0);
+        header.setIntVolatile(CAPACITY_POS, capacity);
+        // magic is last, an existing queue is only valid once everything else is written
+        header.setIntVolatile(MAGIC_POS, MAGIC);
+
+        return new ShmemQueue(shmem, header, slots, notEmpty, notFull);
+    }
+
+    /**
+     * Attaches to a queue another process created in a region of shared memory.
+     */
+    static public ShmemQueue existing(Shmem shmem, long offset) {
+        final ShmemAtomics header = shmem.newAtomics(offset, HEADER_SIZE);
+
+        if (header.getIntVolatile(MAGIC_POS) != MAGIC) {
+            throw new IllegalStateException("Shared memory queue has an unexpected magic value (it is either corrupted or not initialized as a queue yet)");
+        }
+        if (header.getInt(VERSION_POS) != VERSION_1) {
+            throw new IllegalStateException("Shared memory queue has an unexpected version value");
+        }
+
+        ShmemCondition notEmpty = null;
+        ShmemCondition notFull = null;
+        if (header.getBuffer().get(BLOCKING_POS) != 0) {
+            final ShmemLockType lockType = ShmemLockType.fromValue(header.getBuffer().get(LOCK_TYPE_POS));
+            notEmpty = shmem.existingCondition(offset + header.getLong(NOT_EMPTY_OFFSET_POS), lockType);
+            notFull = shmem.existingCondition(offset + header.getLong(NOT_FULL_OFFSET_POS), lockType);
+        }
+
+        final long slotsOffset = header.getLong(SLOTS_OFFSET_POS);
+        final long slotsLength = (long)header.getIntVolatile(CAPACITY_POS) * header.getInt(SLOT_STRIDE_POS);
+        if (slotsLength <= 0 || slotsLength > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Shared memory queue has an unexpected slots length of " + slotsLength);
+        }
+        final ByteBuffer slots = shmem.newByteBuffer(offset + slotsOffset, slotsLength).order(ByteOrder.nativeOrder());
+
+        return new ShmemQueue(shmem, header, slots, notEmpty, notFull);
+    }
+
+}
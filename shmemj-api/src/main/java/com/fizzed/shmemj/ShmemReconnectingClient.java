@@ -0,0 +1,246 @@
+package com.fizzed.shmemj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * A client that survives its server going away, e.g. a server that restarts and recreates its channel at the same
+ * address. Once the connection is lost, the client unmaps the old shared memory, maps whatever is at the address now
+ * and connects again, retrying with exponential backoff until the server is back or the timeout runs out. The
+ * generation of the channel tells a reconnect to the same server apart from one to a restarted server.
+ *
+ * <pre>
+ * try (ShmemReconnectingClient client = new ShmemReconnectingClient(new ShmemChannelFactory().setAddress(address))) {
+ *     int answer = client.request(request, response -&gt; response.getInt(), 5, TimeUnit.SECONDS);
+ * }
+ * </pre>
+ *
+ * A request that never reached the server is always sent again on the new connection. A request the server may have
+ * seen but never answered is only sent again if replay is enabled (since the server could have acted on it before it
+ * went away), otherwise it fails and the next request reconnects. Only failures of a server that is not (fully) back
+ * yet are retried, anything else (e.g. a misconfigured factory) fails right away. Like a connection, a client is meant
+ * to be used by one thread at a time.
+ */
+public class ShmemReconnectingClient implements AutoCloseable {
+
+    private final ShmemChannelFactory factory;
+    private long initialBackoffNanos;
+    private long maxBackoffNanos;
+    private boolean replay;
+    private ShmemClientChannel channel;
+    private ShmemChannelConnection connection;
+    private long generation;
+    private int reconnectCount;
+    private int restartCount;
+    private volatile boolean closed;
+
+    public ShmemReconnectingClient(ShmemChannelFactory factory) {
+        this.factory = factory;
+        this.initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(1L);
+        this.maxBackoffNanos = TimeUnit.SECONDS.toNanos(1L);
+        this.replay = false;
+    }
+
+    public long getInitialBackoffNanos() {
+        return this.initialBackoffNanos;
+    }
+
+    public long getMaxBackoffNanos() {
+        return this.maxBackoffNanos;
+    }
+
+    /**
+     * @param initial how long to wait after the first failed attempt to reconnect, doubled after each failure
+     * @param max the longest wait between attempts, which is also how long each attempt waits for the server to accept
+     */
+    public ShmemReconnectingClient setBackoff(long initial, long max, TimeUnit unit) {
+        if (initial <= 0 || max < initial) {
+            throw new IllegalArgumentException("Backoff must be > 0 and max >= initial");
+        }
+        this.initialBackoffNanos = unit.toNanos(initial);
+        this.maxBackoffNanos = unit.toNanos(max);
+        return this;
+    }
+
+    public boolean isReplay() {
+        return this.replay;
+    }
+
+    /**
+     * @param replay whether a request that was sent but never answered is sent again once reconnected (only enable if
+     *               the server handles the same request twice safely)
+     */
+    public ShmemReconnectingClient setReplay(boolean replay) {
+        this.replay = replay;
+        return this;
+    }
+
+    /**
+     * The generation of the channel last connected to or zero if never connected.
+     */
+    public long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * How many times the client connected again after losing a connection.
+     */
+    public int getReconnectCount() {
+        return this.reconnectCount;
+    }
+
+    /**
+     * How many of the reconnects were to a restarted server (a new generation of the channel).
+     */
+    public int getRestartCount() {
+        return this.restartCount;
+    }
+
+    public boolean isConnected() {
+        return this.connection != null && !this.connection.isClosed();
+    }
+
+    /**
+     * The current connection, first reconnecting if it was lost. Connections handed out earlier must not be used once
+     * they fail, since the client unmaps their shared memory when it reconnects.
+     */
+    public ShmemChannelConnection getConnection(long timeout, TimeUnit unit) throws IOException, InterruptedException, TimeoutException {
+        return this.connection(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Sends the remaining bytes of the request (its position is left unchanged) and waits for the response, which is
+     * handed to the handler while it is still in the shared buffer.
+     *
+     * @param timeout how long the whole request may take, including any reconnects
+     */
+    public <T> T request(ByteBuffer request, Function<ByteBuffer,T> responseHandler, long timeout, TimeUnit unit)
+            throws IOException, InterruptedException, TimeoutException {
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (;;) {
+            final ShmemChannelConnection conn = this.connection(deadline);
+            boolean sent = false;
+            try {
+                final ShmemChannel.Write write = conn.write(request.remaining(), remainingNanos(deadline), TimeUnit.NANOSECONDS);
+                write.getBuffer().put(request.duplicate());
+                // from here on the server may see it
+                sent = true;
+                write.close();
+
+                try (ShmemChannel.Read read = conn.read(remainingNanos(deadline), TimeUnit.NANOSECONDS)) {
+                    return responseHandler.apply(read.getBuffer());
+                }
+            } catch (TimeoutException e) {
+                if (sent) {
+                    // its response could still arrive and be taken as the response to the next request
+                    this.disconnect();
+                }
+                throw e;
+            } catch (ShmemClosedConnectionException | ShmemProcessDiedException | ShmemDestroyedException e) {
+                this.disconnect();
+                if (this.closed || (sent && !this.replay)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.disconnect();
+    }
+
+    static private long remainingNanos(long deadline) {
+        return Math.max(0L, deadline - System.nanoTime());
+    }
+
+    private ShmemChannelConnection connection(long deadline) throws IOException, InterruptedException, TimeoutException {
+        if (this.closed) {
+            throw new ShmemClosedConnectionException("Client is closed");
+        }
+        if (this.isConnected()) {
+            return this.connection;
+        }
+
+        this.disconnect();
+
+        long backoffNanos = this.initialBackoffNanos;
+        for (;;) {
+            Exception failure;
+            try {
+                return this.connect(deadline);
+            } catch (InterruptedException e) {
+                this.disconnect();
+                throw e;
+            } catch (Exception e) {
+                this.disconnect();
+                if (!isNotYetAvailable(e)) {
+                    throw e;
+                }
+                failure = e;
+            }
+
+            final long remainingNanos = remainingNanos(deadline);
+            if (remainingNanos <= 0 || this.closed) {
+                final TimeoutException e = new TimeoutException("Unable to connect to the server before the timeout");
+                e.initCause(failure);
+                throw e;
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.min(backoffNanos, remainingNanos));
+            backoffNanos = Math.min(backoffNanos * 2, this.maxBackoffNanos);
+        }
+    }
+
+    /**
+     * Whether connecting failed because the server is not back yet (or is part way through creating its channel), so
+     * trying again later may succeed.
+     */
+    static boolean isNotYetAvailable(Exception e) {
+        return e instanceof TimeoutException                        // not accepting yet
+            || e instanceof ShmemClosedConnectionException          // went away again while we connected
+            || e instanceof ShmemProcessDiedException
+            || e instanceof ShmemChannelNotInitializedException     // segment exists, but its channel is not yet
+            || e instanceof ShmemNotFoundException;                 // no segment at the address
+    }
+
+    private ShmemChannelConnection connect(long deadline) throws IOException, InterruptedException, TimeoutException {
+        // always map the address again, a restarted server is in new shared memory, while ours is the old one
+        this.channel = this.factory.createClientChannel();
+
+        // a channel whose server is gone for good never accepts, so only wait so long before mapping it again
+        this.connection = this.channel.connect(Math.min(remainingNanos(deadline), this.maxBackoffNanos), TimeUnit.NANOSECONDS);
+
+        final long generation = this.channel.getGeneration();
+        if (this.generation != 0L) {
+            this.reconnectCount++;
+            if (generation != this.generation) {
+                this.restartCount++;
+            }
+        }
+        this.generation = generation;
+
+        return this.connection;
+    }
+
+    private void disconnect() {
+        final ShmemClientChannel channel = this.channel;
+        this.channel = null;
+        this.connection = null;
+        if (channel != null) {
+            final Shmem shmem = channel.getShmem();
+            try {
+                channel.close();
+            } catch (Exception e) {
+                // nothing more we can do, it's being unmapped anyway
+            }
+            // only unmaps our view of it (the server owns the shared memory)
+            shmem.close();
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.fizzed.shmemj;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Single-producer/single-consumer ring of variable-length records living in shared memory. The head (next read) and
+ * tail (next write) sequences are monotonically increasing byte counters stored in the channel control block, so
+ * each side only ever writes its own counter and reads the other with volatile semantics.
+ *
+ * Each record is an 8 byte header (the payload length as an int, followed by 4 reserved bytes) and the payload,
+ * padded so the next record always starts 8 byte aligned. A record never wraps around the end of the ring, instead
+ * the producer writes a padding record that tells the consumer to skip to the start of the ring.
+ */
+class ShmemRingBuffer {
+
+    static final int RECORD_HEADER_SIZE = 8;
+    static private final int PADDING_LENGTH = -1;
+
+    private final ByteBuffer buffer;
+    private final ShmemAtomics control;
+    private final int headPos;
+    private final int tailPos;
+    private final int capacity;
+    // producer state (only valid between a claim and commit)
+    private long claimIndex;
+    private long claimTail;
+    // consumer state (only valid between a poll and release)
+    private long pollHead;
+    private int pollLength;
+
+    public ShmemRingBuffer(ByteBuffer buffer, ShmemAtomics control, int headPos, int tailPos) {
+        this.buffer = buffer;
+        this.control = control;
+        this.headPos = headPos;
+        this.tailPos = tailPos;
+        // records are always 8 byte aligned, so the usable capacity is as well
+        this.capacity = (buffer.capacity() / 8) * 8;
+        this.claimIndex = -1;
+        this.pollHead = -1;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public int getMaxRecordLength() {
+        // limiting a record to half the ring guarantees an empty ring can always fit it, no matter where the tail is
+        return ((this.capacity / 2) & ~7) - RECORD_HEADER_SIZE;
+    }
+
+    public long getHead() {
+        return this.control.getLongVolatile(this.headPos);
+    }
+
+    public long getTail() {
+        return this.control.getLongVolatile(this.tailPos);
+    }
+
+    public boolean isEmpty() {
+        return this.getHead() == this.getTail();
+    }
+
+    public void reset() {
+        this.control.setLongVolatile(this.headPos, 0L);
+        this.control.setLongVolatile(this.tailPos, 0L);
+        this.claimIndex = -1;
+        this.pollHead = -1;
+    }
+
+    /**
+     * Whether a record of up to maxLength bytes could be claimed right now (without claiming it).
+     */
+    public boolean canClaim(int maxLength) {
+        final long head = this.getHead();
+        final long tail = this.control.getLongOpaque(this.tailPos);
+        final int required = align(RECORD_HEADER_SIZE + maxLength);
+        final int toEnd = this.capacity - (int)(tail % this.capacity);
+        final long free = this.capacity - (tail - head);
+
+        return required <= toEnd ? required <= free : toEnd + required <= free;
+    }
+
+    /**
+     * Claims space for a record of up to maxLength bytes.
+     *
+     * @param maxLength the maximum payload length the producer will write
+     * @return a buffer positioned at zero with a limit of maxLength, or null if the ring does not have enough free space
+     */
+    public ByteBuffer claim(int maxLength) {
+        if (maxLength < 0 || maxLength > this.getMaxRecordLength()) {
+            throw new IllegalArgumentException("Length " + maxLength + " must be >= 0 and <= max record length of " + this.getMaxRecordLength());
+        }
+
+        final long head = this.getHead();
+        final long tail = this.control.getLongOpaque(this.tailPos);     // only we ever write it
+        final int required = align(RECORD_HEADER_SIZE + maxLength);
+        final int index = (int)(tail % this.capacity);
+        final int toEnd = this.capacity - index;
+        final long free = this.capacity - (tail - head);
+
+        if (required <= toEnd) {
+            if (required > free) {
+                return null;
+            }
+            this.claimIndex = index;
+            this.claimTail = tail;
+        } else {
+            // record will not fit before the end of the ring, we'll need to pad it out and start from the beginning
+            if (toEnd + required > free) {
+                return null;
+            }
+            this.buffer.putInt(index, PADDING_LENGTH);
+            this.claimIndex = 0;
+            this.claimTail = tail + toEnd;
+        }
+
+        return this.slice((int)this.claimIndex + RECORD_HEADER_SIZE, maxLength);
+    }
+
+    /**
+     * Publishes the claimed record to the consumer, where the length of the record is the claimed buffer's position.
+     */
+    public void commit(ByteBuffer claimed) {
+        if (this.claimIndex < 0) {
+            throw new IllegalStateException("Nothing was claimed in ring buffer");
+        }
+
+        final int length = claimed.position();
+        this.buffer.putInt((int)this.claimIndex, length);
+        this.claimIndex = -1;
+
+        // release semantics guarantees the consumer sees the record before it sees the new tail
+        this.control.setLongRelease(this.tailPos, this.claimTail + align(RECORD_HEADER_SIZE + length));
+    }
+
+    /**
+     * Abandons the claimed record without publishing it, so the consumer never sees it.
+     */
+    public void abort() {
+        // a padding record written by the claim sits past the tail, so the consumer does not see that either
+        this.claimIndex = -1;
+    }
+
+    /**
+     * Polls for the next record.
+     *
+     * @return a buffer positioned at zero with a limit of the record length, or null if the ring is empty
+     */
+    public ByteBuffer poll() {
+        long head = this.control.getLongOpaque(this.headPos);      // only we ever write it
+        final long tail = this.getTail();
+
+        while (head != tail) {
+            final int index = (int)(head % this.capacity);
+            final int length = this.buffer.getInt(index);
+
+            if (length == PADDING_LENGTH) {
+                // skip to the start of the ring, the real record is waiting for us there
+                head += this.capacity - index;
+                continue;
+            }
+
+            this.pollHead = head;
+            this.pollLength = length;
+
+            return this.slice(index + RECORD_HEADER_SIZE, length);
+        }
+
+        return null;
+    }
+
+    /**
+     * Releases the space of the record last returned from poll() back to the producer.
+     */
+    public void release() {
+        if (this.pollHead < 0) {
+            throw new IllegalStateException("Nothing was polled from ring buffer");
+        }
+
+        final long head = this.pollHead + align(RECORD_HEADER_SIZE + this.pollLength);
+        this.pollHead = -1;
+
+        this.control.setLongRelease(this.headPos, head);
+    }
+
+    /**
+     * Leaves the record last returned from poll() where it is, so the next poll() returns it again.
+     */
+    public void unpoll() {
+        this.pollHead = -1;
+    }
+
+    private ByteBuffer slice(int index, int length) {
+        final ByteBuffer dup = this.buffer.duplicate();
+        dup.position(index);
+        dup.limit(index + length);
+        return dup.slice();
+    }
+
+    static private int align(int length) {
+        return (length + 7) & ~7;
+    }
+
+}
@@ -0,0 +1,280 @@
+package com.fizzed.shmemj;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Waits on many connections at once and returns the ones ready to read or write, similar to a
+ * java.nio.channels.Selector, so a small fixed pool of threads can service many connections (with tryRead() and
+ * tryWrite() on the selected ones).
+ *
+ * Readiness is checked by polling the message sequences of every registered connection, which is only a few volatile
+ * reads each. Every channel has a doorbell in its shared memory that is rung on every read, write and close (the slots
+ * of a SlottedShmemChannel share one). When none are ready and all registered connections ring the same doorbell, the
+ * selector blocks on it. A doorbell can only be rung by the other process from within the segment it lives in, so
+ * connections spread over several segments cannot be waited on as one: the selector then falls back to parking for
+ * exponentially longer periods (up to 1ms) between polls, which adds up to 1ms of latency once it has been idle.
+ *
+ * A selector is meant to be used by a single thread, although keys can be registered and cancelled from any thread.
+ */
+public class ShmemSelector implements AutoCloseable {
+
+    static public final int OP_READ = 1;
+    static public final int OP_WRITE = 4;
+
+    static private final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1L);
+    static private final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+    // doorbell waiters re-check at least this often, since a ring may be consumed by another waiter
+    static private final long MAX_AWAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+
+    static public class Key {
+
+        private final ShmemSelector selector;
+        private final ShmemChannelConnection connection;
+        private volatile int interestOps;
+        private volatile Object attachment;
+        private int readyOps;
+        private volatile boolean cancelled;
+
+        private Key(ShmemSelector selector, ShmemChannelConnection connection, int interestOps, Object attachment) {
+            this.selector = selector;
+            this.connection = connection;
+            this.interestOps = interestOps;
+            this.attachment = attachment;
+        }
+
+        public ShmemChannelConnection getConnection() {
+            return this.connection;
+        }
+
+        public int getInterestOps() {
+            return this.interestOps;
+        }
+
+        public Key setInterestOps(int interestOps) {
+            checkOps(interestOps);
+            this.interestOps = interestOps;
+            return this;
+        }
+
+        public Object getAttachment() {
+            return this.attachment;
+        }
+
+        public Key setAttachment(Object attachment) {
+            this.attachment = attachment;
+            return this;
+        }
+
+        /**
+         * The operations that were ready as of the last select.
+         */
+        public int getReadyOps() {
+            return this.readyOps;
+        }
+
+        public boolean isReadable() {
+            return (this.readyOps & OP_READ) != 0;
+        }
+
+        public boolean isWritable() {
+            return (this.readyOps & OP_WRITE) != 0;
+        }
+
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        public void cancel() {
+            this.cancelled = true;
+            this.selector.keys.remove(this);
+        }
+
+        private int computeReadyOps() {
+            final int interestOps = this.interestOps;
+            final DefaultShmemChannel channel = this.connection.getChannel();
+            try {
+                if (channel.isConnectionClosed()) {
+                    // report closed connections as ready, so the next tryRead() or tryWrite() lets the caller know
+                    return interestOps;
+                }
+                int ops = 0;
+                if ((interestOps & OP_READ) != 0 && channel.isReadable()) {
+                    ops |= OP_READ;
+                }
+                if ((interestOps & OP_WRITE) != 0 && channel.isWritable()) {
+                    ops |= OP_WRITE;
+                }
+                return ops;
+            } catch (ShmemDestroyedException e) {
+                return interestOps;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                "interestOps=" + interestOps +
+                ", readyOps=" + readyOps +
+                ", cancelled=" + cancelled +
+                '}';
+        }
+    }
+
+    private final CopyOnWriteArrayList<Key> keys;
+    private final List<Key> selectedKeys;
+    private volatile boolean wakeup;
+    private volatile boolean closed;
+
+    public ShmemSelector() {
+        this.keys = new CopyOnWriteArrayList<>();
+        this.selectedKeys = new ArrayList<>();
+    }
+
+    public Key register(ShmemChannelConnection connection, int interestOps) {
+        return this.register(connection, interestOps, null);
+    }
+
+    /**
+     * Registers the connection to be selected when it is ready for any of the interest operations.
+     *
+     * @param connection the connection
+     * @param interestOps OP_READ and/or OP_WRITE
+     * @param attachment optional object to attach to the key
+     * @return the key of the registration
+     */
+    public Key register(ShmemChannelConnection connection, int interestOps, Object attachment) {
+        if (this.closed) {
+            throw new IllegalStateException("Selector is closed");
+        }
+        checkOps(interestOps);
+        final Key key = new Key(this, connection, interestOps, attachment);
+        this.keys.add(key);
+        return key;
+    }
+
+    public List<Key> keys() {
+        return Collections.unmodifiableList(this.keys);
+    }
+
+    /**
+     * The keys that were ready as of the last select (replaced by every select).
+     */
+    public List<Key> selectedKeys() {
+        return this.selectedKeys;
+    }
+
+    /**
+     * Selects the keys that are ready, without waiting.
+     *
+     * @return the number of keys selected
+     */
+    public int selectNow() {
+        this.selectedKeys.clear();
+        for (Key key : this.keys) {
+            final int readyOps = key.computeReadyOps();
+            key.readyOps = readyOps;
+            if (readyOps != 0) {
+                this.selectedKeys.add(key);
+            }
+        }
+        return this.selectedKeys.size();
+    }
+
+    /**
+     * Selects the keys that are ready, waiting up to the timeout for at least one (or a wakeup).
+     *
+     * @return the number of keys selected (zero if timed out or woken up)
+     */
+    public int select(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long parkNanos = MIN_PARK_NANOS;
+
+        for (;;) {
+            final int selected = this.selectNow();
+            if (selected > 0) {
+                return selected;
+            }
+            if (this.wakeup) {
+                this.wakeup = false;
+                return 0;
+            }
+            if (this.closed) {
+                throw new IllegalStateException("Selector is closed");
+            }
+
+            final long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return 0;
+            }
+
+            final ShmemDoorbell doorbell = this.sharedDoorbell();
+            if (doorbell != null) {
+                doorbell.await(Math.min(remainingNanos, MAX_AWAIT_NANOS), this::isAnyReady);
+            } else {
+                LockSupport.parkNanos(this, Math.min(remainingNanos, parkNanos));
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Causes the current (or next) select to return immediately.
+     */
+    public void wakeup() {
+        this.wakeup = true;
+        final ShmemDoorbell doorbell = this.sharedDoorbell();
+        if (doorbell != null) {
+            doorbell.ring();
+        }
+    }
+
+    private boolean isAnyReady() {
+        if (this.wakeup) {
+            return true;
+        }
+        for (Key key : this.keys) {
+            if (key.computeReadyOps() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the doorbell every registered connection rings, or null if they don't all share one
+    private ShmemDoorbell sharedDoorbell() {
+        ShmemDoorbell doorbell = null;
+        for (Key key : this.keys) {
+            final ShmemDoorbell d = key.connection.getChannel().getDoorbell();
+            if (d == null || (doorbell != null && d != doorbell)) {
+                return null;
+            }
+            doorbell = d;
+        }
+        return doorbell;
+    }
+
+    static private void checkOps(int ops) {
+        if (ops == 0 || (ops & ~(OP_READ | OP_WRITE)) != 0) {
+            throw new IllegalArgumentException("Interest ops must be OP_READ and/or OP_WRITE");
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.closed = true;
+        for (Key key : this.keys) {
+            key.cancelled = true;
+        }
+        this.keys.clear();
+        this.wakeup();
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.fizzed.shmemj;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * How a thread waits on a condition to be signaled. Latency-critical paths can busy-spin (ideally on a pinned core),
+ * while background connections can park cheaply, even within the same JVM.
+ *
+ * A strategy is built on top of ShmemCondition.tryAwait(), which checks the condition without ever waiting, and
+ * ShmemCondition.awaitSlice(), a single native wait of at least 1 milli that returns as soon as the condition is
+ * signaled, so a strategy only decides how it polls and sleeps in between.
+ */
+public interface ShmemWaitStrategy {
+
+    /**
+     * Continuously re-checks the condition with Thread.onSpinWait() hints in between. Lowest latency, but burns a
+     * cpu core the entire time its waiting.
+     */
+    static public final ShmemWaitStrategy BUSY_SPIN = new BusySpinWaitStrategy();
+
+    /**
+     * Continuously re-checks the condition, yielding the thread in between so other threads may run.
+     */
+    static public final ShmemWaitStrategy YIELDING = new YieldingWaitStrategy();
+
+    /**
+     * Waits in the native condition in long slices, only waking up to check for interrupts. Best for thread and futex
+     * locks, since the thread sleeps in the operating system until signaled. The default for those lock types.
+     */
+    static public final ShmemWaitStrategy BLOCKING = new BlockingWaitStrategy();
+
+    /**
+     * Spins for a short while, then falls back to sleeping for increasingly longer durations. The default for spin
+     * locks.
+     */
+    static public final ShmemWaitStrategy BACKOFF = new BackoffWaitStrategy();
+
+    /**
+     * Hands the checking of the condition off to a small shared pool of platform threads, while the calling thread only
+     * parks. Best for virtual threads, which would otherwise pin their carrier thread while waiting inside native code.
+     */
+    static public final ShmemWaitStrategy OFFLOADED = new OffloadedWaitStrategy(2);
+
+    /**
+     * Hands the checking of the condition off to its own pool of platform threads, while the calling thread only parks.
+     *
+     * @param threads the number of platform threads polling the conditions (started on first use)
+     */
+    static ShmemWaitStrategy offloaded(int threads) {
+        return new OffloadedWaitStrategy(threads);
+    }
+
+    /**
+     * Spins on the condition for up to the spin duration, then parks the thread with an exponential backoff up to the
+     * max park duration in between checks. Parks of a milli or longer wait in the native condition instead, so a signal
+     * still wakes the thread right away.
+     *
+     * @param spinTime how long to spin before parking
+     * @param maxParkTime the maximum time to park in between checks
+     * @param unit the unit of the times
+     */
+    static ShmemWaitStrategy spinThenPark(long spinTime, long maxParkTime, TimeUnit unit) {
+        return new SpinThenParkWaitStrategy(unit.toNanos(spinTime), unit.toNanos(maxParkTime));
+    }
+
+    /**
+     * The default strategy for a lock type.
+     */
+    static ShmemWaitStrategy defaultFor(ShmemLockType lockType) {
+        return lockType == ShmemLockType.SPIN ? BACKOFF : BLOCKING;
+    }
+
+    /**
+     * Causes the current thread to wait until the condition is signaled or interrupted, or the timeout elapses.
+     *
+     * @param condition the condition to wait on
+     * @param timeoutNanos the max time to wait
+     * @param waitingConsumer an optional consumer periodically called with the millis waited so far
+     * @return true if signaled or false if the timeout elapsed
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    boolean await(ShmemCondition condition, long timeoutNanos, LongConsumer waitingConsumer) throws InterruptedException;
+
+}
@@ -0,0 +1,31 @@
+package com.fizzed.shmemj;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * A waiting consumer that has to be called at least every so often to do its job (e.g. detect missed heartbeats), so
+ * a wait strategy never waits longer than that in between calls.
+ */
+interface ShmemWaitingMonitor extends LongConsumer {
+
+    /**
+     * @return the longest a strategy may wait in between calls (must be >= 1)
+     */
+    long getIntervalMillis();
+
+    static long capMillis(LongConsumer waitingConsumer, long millis) {
+        if (waitingConsumer instanceof ShmemWaitingMonitor) {
+            return Math.min(millis, ((ShmemWaitingMonitor)waitingConsumer).getIntervalMillis());
+        }
+        return millis;
+    }
+
+    static long capNanos(LongConsumer waitingConsumer, long nanos) {
+        if (waitingConsumer instanceof ShmemWaitingMonitor) {
+            return Math.min(nanos, TimeUnit.MILLISECONDS.toNanos(((ShmemWaitingMonitor)waitingConsumer).getIntervalMillis()));
+        }
+        return nanos;
+    }
+
+}
@@ -0,0 +1,246 @@
+package com.fizzed.shmemj;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A channel of many connection slots in a single shared memory segment, so one server can be connected to many
+ * clients at once with a single address. Each slot is a complete channel (its own pids, conditions and buffers) laid
+ * out back to back. A server accept() hands out the next free slot, while a client connect() claims whichever slot the
+ * server is currently accepting on.
+ *
+ * The end of the segment holds a doorbell shared by every slot, so a ShmemSelector can wait on all of them at once.
+ */
+public class SlottedShmemChannel implements ShmemServerChannel, ShmemClientChannel {
+
+    // keep every slot on its own cache lines
+    static private final long SLOT_ALIGNMENT = 64L;
+    static private final long FREE_SLOT_POLL_MILLIS = 10L;
+
+    private final Shmem shmem;
+    private final boolean server;
+    private final ProcessProvider processProvider;
+    private final DefaultShmemChannel[] slots;
+    private final ShmemDoorbell doorbell;
+    private final AtomicBoolean[] accepting;
+    private volatile DefaultShmemChannel connectedSlot;
+
+    private SlottedShmemChannel(Shmem shmem, ProcessProvider processProvider, DefaultShmemChannel[] slots, ShmemDoorbell doorbell) {
+        this.shmem = shmem;
+        this.server = shmem.isOwner();
+        this.processProvider = processProvider;
+        this.slots = slots;
+        this.doorbell = doorbell;
+        this.accepting = new AtomicBoolean[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            this.accepting[i] = new AtomicBoolean(false);
+        }
+    }
+
+    public DefaultShmemChannel getSlot(int index) {
+        return this.slots[index];
+    }
+
+    @Override
+    public int getSlotCount() {
+        return this.slots.length;
+    }
+
+    // the slot that represents this channel for pids (the connected slot for a client, otherwise the first one)
+    private DefaultShmemChannel currentSlot() {
+        final DefaultShmemChannel slot = this.connectedSlot;
+        return slot != null ? slot : this.slots[0];
+    }
+
+    @Override
+    public Shmem getShmem() {
+        return this.shmem;
+    }
+
+    @Override
+    public String getAddress() {
+        return this.slots[0].getAddress();
+    }
+
+    @Override
+    public boolean isServer() {
+        return this.server;
+    }
+
+    @Override
+    public boolean isSpinLocks() {
+        return this.slots[0].isSpinLocks();
+    }
+
+    @Override
+    public ShmemLockType getLockType() {
+        return this.slots[0].getLockType();
+    }
+
+    public ShmemWaitStrategy getWaitStrategy() {
+        return this.slots[0].getWaitStrategy();
+    }
+
+    // package-level access
+    void setWaitStrategy(ShmemWaitStrategy waitStrategy) {
+        for (DefaultShmemChannel slot : this.slots) {
+            slot.setWaitStrategy(waitStrategy);
+        }
+    }
+
+    // package-level access
+    void setHeartbeat(long intervalMillis, long timeoutMillis) {
+        for (DefaultShmemChannel slot : this.slots) {
+            slot.setHeartbeat(intervalMillis, timeoutMillis);
+        }
+    }
+
+    @Override
+    public boolean isRingBuffers() {
+        return this.slots[0].isRingBuffers();
+    }
+
+    @Override
+    public long getServerPid() {
+        return this.currentSlot().getServerPid();
+    }
+
+    @Override
+    public long getClientPid() {
+        return this.currentSlot().getClientPid();
+    }
+
+    @Override
+    public long getGeneration() {
+        return this.slots[0].getGeneration();
+    }
+
+    @Override
+    public long getWriteBufferSize() {
+        return this.slots[0].getWriteBufferSize();
+    }
+
+    @Override
+    public long getReadBufferSize() {
+        return this.slots[0].getReadBufferSize();
+    }
+
+    @Override
+    public ShmemChannelConnection accept(long timeout, TimeUnit unit) throws IOException, InterruptedException, TimeoutException {
+        // only servers can accept
+        if (!this.server) {
+            throw new IllegalStateException("Only channel owners are allowed to accept (did you mean to use connect?)");
+        }
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (;;) {
+            for (int i = 0; i < this.slots.length; i++) {
+                final DefaultShmemChannel slot = this.slots[i];
+                // a slot is free once its previous connection was closed on our side
+                if (slot.isServerConnectionClosed() && this.accepting[i].compareAndSet(false, true)) {
+                    try {
+                        if (slot.isServerConnectionClosed()) {
+                            return slot.accept(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                        }
+                    } finally {
+                        this.accepting[i].set(false);
+                    }
+                }
+            }
+
+            // every slot is in use, wait for one to free up
+            if (System.nanoTime() >= deadline) {
+                throw new TimeoutException();
+            }
+            Thread.sleep(FREE_SLOT_POLL_MILLIS);
+        }
+    }
+
+    @Override
+    public ShmemChannelConnection connect(long timeout, TimeUnit unit) throws IOException, InterruptedException, TimeoutException {
+        // only clients can connect
+        if (this.server) {
+            throw new IllegalStateException("Only channel clients are allowed to connect (did you mean to use accept?)");
+        }
+
+        final long pid = this.processProvider.getCurrentPid();
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long pauseNanos = DefaultShmemChannel.CONNECT_POLL_MIN_NANOS;
+        for (;;) {
+            // claim whichever slot the server is accepting on
+            for (DefaultShmemChannel slot : this.slots) {
+                final ShmemChannelConnection conn = slot.tryConnect(pid);
+                if (conn != null) {
+                    this.connectedSlot = slot;
+                    return conn;
+                }
+            }
+
+            final long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                throw new TimeoutException();
+            }
+            pauseNanos = DefaultShmemChannel.connectPause(pauseNanos, remainingNanos);
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.slots[0].isClosed();
+    }
+
+    @Override
+    public void close() throws Exception {
+        final DefaultShmemChannel connectedSlot = this.connectedSlot;
+        for (DefaultShmemChannel slot : this.slots) {
+            if (this.server || slot == connectedSlot) {
+                slot.close();
+            } else {
+                // the other slots are the connections of other clients, which are not ours to close
+                slot.detach();
+            }
+        }
+        if (this.doorbell != null) {
+            this.doorbell.close();
+        }
+    }
+
+    static SlottedShmemChannel create(ProcessProvider processProvider, Shmem shmem, ShmemLockType lockType, boolean ringBuffers, int slotCount) {
+        if (slotCount < 1) {
+            throw new IllegalArgumentException("Slot count must be >= 1");
+        }
+
+        // the doorbell goes after the last slot
+        final long slotSize = ((shmem.getSize() - ShmemDoorbell.RESERVED_SIZE) / slotCount / SLOT_ALIGNMENT) * SLOT_ALIGNMENT;
+        final long doorbellOffset = slotCount * slotSize;
+        final ShmemDoorbell doorbell = ShmemDoorbell.create(shmem, doorbellOffset, lockType);
+        final DefaultShmemChannel[] slots = new DefaultShmemChannel[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = DefaultShmemChannel.create(processProvider, shmem, lockType, ringBuffers, i * slotSize, slotSize, slotCount);
+            slots[i].setDoorbell(doorbell, doorbellOffset);
+        }
+
+        return new SlottedShmemChannel(shmem, processProvider, slots, doorbell);
+    }
+
+    static SlottedShmemChannel existing(ProcessProvider processProvider, Shmem shmem, DefaultShmemChannel firstSlot) {
+        // the first slot tells us how many slots there are and where they are
+        final int slotCount = firstSlot.getSlotCount();
+        final long slotSize = firstSlot.getSlotSize();
+        final long doorbellOffset = firstSlot.getDoorbellOffset();
+        final ShmemDoorbell doorbell = doorbellOffset > 0 ? ShmemDoorbell.existing(shmem, doorbellOffset, firstSlot.getLockType()) : null;
+        final DefaultShmemChannel[] slots = new DefaultShmemChannel[slotCount];
+        slots[0] = firstSlot;
+        for (int i = 1; i < slotCount; i++) {
+            slots[i] = DefaultShmemChannel.existing(processProvider, shmem, i * slotSize);
+        }
+        for (DefaultShmemChannel slot : slots) {
+            slot.setDoorbell(doorbell, doorbellOffset);
+        }
+
+        return new SlottedShmemChannel(shmem, processProvider, slots, doorbell);
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.fizzed.shmemj;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+class SpinThenParkWaitStrategy implements ShmemWaitStrategy {
+
+    static private final long MIN_PARK_NANOS = 1000L;
+
+    private final long spinNanos;
+    private final long maxParkNanos;
+
+    public SpinThenParkWaitStrategy(long spinNanos, long maxParkNanos) {
+        if (spinNanos < 0) {
+            throw new IllegalArgumentException("Spin time must be >= 0");
+        }
+        if (maxParkNanos < MIN_PARK_NANOS) {
+            throw new IllegalArgumentException("Max park time must be >= " + MIN_PARK_NANOS + " nanos");
+        }
+        this.spinNanos = spinNanos;
+        this.maxParkNanos = maxParkNanos;
+    }
+
+    public long getSpinNanos() {
+        return spinNanos;
+    }
+
+    public long getMaxParkNanos() {
+        return maxParkNanos;
+    }
+
+    @Override
+    public boolean await(ShmemCondition condition, long timeoutNanos, LongConsumer waitingConsumer) throws InterruptedException {
+        final long startTime = System.nanoTime();
+        long elapsedNanos = 0;
+        long parkNanos = MIN_PARK_NANOS;
+        final long maxParkNanos = Math.max(MIN_PARK_NANOS, ShmemWaitingMonitor.capNanos(waitingConsumer, this.maxParkNanos));
+        do {
+            if (elapsedNanos < this.spinNanos) {
+                if (condition.tryAwait()) {
+                    return true;
+                }
+                Thread.onSpinWait();
+            } else {
+                // never park past the timeout
+                final long sliceNanos = Math.min(parkNanos, Math.max(0L, timeoutNanos - elapsedNanos));
+                if (sliceNanos >= 1000000L) {
+                    // once parks are long enough, a timed native wait instead, which wakes up as soon as its signaled
+                    if (condition.awaitSlice(sliceNanos / 1000000L)) {
+                        return true;
+                    }
+                } else {
+                    if (condition.tryAwait()) {
+                        return true;
+                    }
+                    LockSupport.parkNanos(sliceNanos);
+                }
+                parkNanos = Math.min(parkNanos * 2, maxParkNanos);
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            elapsedNanos = System.nanoTime() - startTime;
+
+            if (waitingConsumer != null) {
+                waitingConsumer.accept(elapsedNanos / 1000000L);
+            }
+        } while (elapsedNanos < timeoutNanos);
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "SpinThenPark{spinNanos=" + spinNanos + ", maxParkNanos=" + maxParkNanos + '}';
+    }
+
+}
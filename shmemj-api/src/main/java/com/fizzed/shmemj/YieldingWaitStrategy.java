@@ -0,0 +1,38 @@
+package com.fizzed.shmemj;
+
+import java.util.function.LongConsumer;
+
+class YieldingWaitStrategy implements ShmemWaitStrategy {
+
+    @Override
+    public boolean await(ShmemCondition condition, long timeoutNanos, LongConsumer waitingConsumer) throws InterruptedException {
+        final long startTime = System.nanoTime();
+        long elapsedNanos = 0;
+        do {
+            // never sleeps, so a signal is seen as soon as it lands
+            if (condition.tryAwait()) {
+                return true;
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            Thread.yield();
+
+            elapsedNanos = System.nanoTime() - startTime;
+
+            if (waitingConsumer != null) {
+                waitingConsumer.accept(elapsedNanos / 1000000L);
+            }
+        } while (elapsedNanos < timeoutNanos);
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "Yielding";
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.fizzed.shmemj.benchmarks;
+
+import com.fizzed.shmemj.*;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The other end of a channel benchmark. Connects as a client and then echoes, sinks or sources messages until the
+ * benchmark closes the connection. It runs either on a thread in the benchmark JVM or forked as its own process, which
+ * is what real usage of a channel looks like.
+ */
+public class ChannelPeer {
+
+    public enum Mode {
+        /** reads a message and writes it straight back */
+        ECHO,
+        /** reads and discards messages */
+        SINK,
+        /** writes messages of the payload size as fast as possible */
+        SOURCE
+    }
+
+    public enum Location {
+        THREAD,
+        PROCESS
+    }
+
+    static private final long TIMEOUT_SECONDS = 60L;
+
+    static public void main(String[] args) throws Exception {
+        final Path address = Paths.get(args[0]);
+        final Mode mode = Mode.valueOf(args[1]);
+        final int payloadSize = Integer.parseInt(args[2]);
+
+        try (final ShmemClientChannel channel = new ShmemChannelFactory().setAddress(address).createClientChannel()) {
+            run(channel, mode, payloadSize);
+        }
+    }
+
+    static public void run(ShmemClientChannel channel, Mode mode, int payloadSize) throws Exception {
+        try (final ShmemChannelConnection conn = channel.connect(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            final byte[] payload = new byte[payloadSize];
+            for (;;) {
+                switch (mode) {
+                    case ECHO:
+                        try (ShmemChannel.Read read = conn.read(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                            final ByteBuffer readBuffer = read.getBuffer();
+                            readBuffer.get(payload, 0, readBuffer.remaining());
+                        }
+                        try (ShmemChannel.Write write = conn.write(payloadSize, TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                            write.getBuffer().put(payload);
+                        }
+                        break;
+                    case SINK:
+                        try (ShmemChannel.Read read = conn.read(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                            final ByteBuffer readBuffer = read.getBuffer();
+                            readBuffer.get(payload, 0, readBuffer.remaining());
+                        }
+                        break;
+                    case SOURCE:
+                        try (ShmemChannel.Write write = conn.write(payloadSize, TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                            write.getBuffer().put(payload);
+                        }
+                        break;
+                }
+            }
+        } catch (ShmemClosedConnectionException | ShmemDestroyedException e) {
+            // benchmark is done with us
+        }
+    }
+
+    /**
+     * Starts a peer connecting to the address, either on a daemon thread or as a forked java process using the same
+     * classpath as this JVM.
+     */
+    static public PeerHandle start(Location location, Path address, Mode mode, int payloadSize) throws Exception {
+        if (location == Location.PROCESS) {
+            return PeerHandle.startProcess(ChannelPeer.class, address.toString(), mode.name(), Integer.toString(payloadSize));
+        }
+
+        final ShmemClientChannel channel = new ShmemChannelFactory().setAddress(address).createClientChannel();
+        return PeerHandle.startThread("shmemj-benchmark-peer", () -> {
+            try (ShmemClientChannel c = channel) {
+                run(c, mode, payloadSize);
+            }
+        });
+    }
+
+    static public Path temporaryAddress(String prefix) throws Exception {
+        final File file = File.createTempFile(prefix, ".shm");
+        file.delete();
+        return file.toPath();
+    }
+
+}
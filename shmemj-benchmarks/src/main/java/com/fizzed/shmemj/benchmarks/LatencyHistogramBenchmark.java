@@ -0,0 +1,181 @@
+package com.fizzed.shmemj.benchmarks;
+
+import com.fizzed.shmemj.Shmem;
+import com.fizzed.shmemj.ShmemLockType;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records every round-trip of a shmem channel, TCP and unix domain socket into a histogram and prints their percentile
+ * distributions side by side, since the average alone hides the tail latency (e.g. the wake-ups after a spin lock
+ * backs off).
+ *
+ * Each scenario runs either closed-loop (rate of 0, the next message is sent as soon as the response arrives) or
+ * open-loop at a fixed rate of messages/sec. Open-loop latency is measured from when a message was supposed to be
+ * sent, which corrects for coordinated omission (a stalled round-trip delays every message queued up behind it).
+ * Closed-loop results are corrected after the fact using the median as the expected interval between messages.
+ *
+ * Usage (all optional, shown with their defaults):
+ *
+ *   java -cp benchmarks.jar com.fizzed.shmemj.benchmarks.LatencyHistogramBenchmark
+ *     --transports=shmem,tcp,unix --lock-types=THREAD,SPIN,FUTEX --ring-buffers=false --payloads=8,256,4096
+ *     --rates=0 --messages=100000 --warmup=20000 --peer=PROCESS --hgrm-dir=
+ */
+public class LatencyHistogramBenchmark {
+
+    static private final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+    static private final int SIGNIFICANT_DIGITS = 3;
+    static private final double[] PERCENTILES = { 50.0, 90.0, 99.0, 99.9, 99.99 };
+
+    static public void main(String[] args) throws Exception {
+        final Map<String,String> options = parseOptions(args);
+        final List<String> transports = splitOption(options, "transports", "shmem,tcp,unix");
+        final List<String> lockTypes = splitOption(options, "lock-types", Shmem.isFutexSupported() ? "THREAD,SPIN,FUTEX" : "THREAD,SPIN");
+        final boolean ringBuffers = Boolean.parseBoolean(options.getOrDefault("ring-buffers", "false"));
+        final List<String> payloads = splitOption(options, "payloads", "8,256,4096");
+        final List<String> rates = splitOption(options, "rates", "0");
+        final int messages = Integer.parseInt(options.getOrDefault("messages", "100000"));
+        final int warmup = Integer.parseInt(options.getOrDefault("warmup", "20000"));
+        final ChannelPeer.Location peer = ChannelPeer.Location.valueOf(options.getOrDefault("peer", "PROCESS"));
+        final String hgrmDir = options.get("hgrm-dir");
+
+        final PrintStream out = System.out;
+
+        for (String payload : payloads) {
+            final int payloadSize = Integer.parseInt(payload);
+            for (String rate : rates) {
+                final long messagesPerSec = Long.parseLong(rate);
+
+                out.println();
+                out.printf("payload=%d bytes, %s, peer=%s, messages=%d (latencies in micros)%n", payloadSize,
+                    messagesPerSec > 0 ? "open-loop @ " + messagesPerSec + " msgs/sec" : "closed-loop", peer, messages);
+                out.printf("%-22s %10s %10s %10s %10s %10s %10s | %12s %12s %12s%n", "transport", "p50", "p90", "p99",
+                    "p99.9", "p99.99", "max", "co-p99", "co-p99.9", "co-max");
+
+                for (String transport : transports) {
+                    final List<RoundTripClient> clients = new ArrayList<>();
+                    if ("shmem".equals(transport)) {
+                        for (String lockType : lockTypes) {
+                            clients.add(ShmemRoundTripClient.open(ShmemLockType.valueOf(lockType), ringBuffers, peer, payloadSize));
+                        }
+                    } else if ("tcp".equals(transport)) {
+                        clients.add(SocketRoundTripClient.open(SocketPeer.Kind.TCP, peer, payloadSize));
+                    } else if ("unix".equals(transport)) {
+                        clients.add(SocketRoundTripClient.open(SocketPeer.Kind.UNIX, peer, payloadSize));
+                    } else {
+                        throw new IllegalArgumentException("Unknown transport " + transport + " (must be shmem, tcp or unix)");
+                    }
+
+                    for (RoundTripClient client : clients) {
+                        try {
+                            final Histogram[] histograms = run(client, payloadSize, messagesPerSec, warmup, messages);
+                            printRow(out, client.getName(), histograms[0], histograms[1]);
+
+                            if (hgrmDir != null) {
+                                final Path file = Paths.get(hgrmDir, client.getName() + "-" + payloadSize + "b-"
+                                    + (messagesPerSec > 0 ? messagesPerSec + "mps" : "closed") + ".hgrm");
+                                Files.createDirectories(file.getParent());
+                                try (PrintStream hgrm = new PrintStream(Files.newOutputStream(file))) {
+                                    histograms[1].outputPercentileDistribution(hgrm, 1000.0);
+                                }
+                            }
+                        } finally {
+                            client.close();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the scenario and returns the raw and coordinated-omission corrected histograms (in nanos).
+     */
+    static public Histogram[] run(RoundTripClient client, int payloadSize, long messagesPerSec, int warmup, int messages) throws Exception {
+        final byte[] payload = new byte[payloadSize];
+
+        for (int i = 0; i < warmup; i++) {
+            client.roundTrip(payload);
+        }
+
+        final Histogram raw = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+        if (messagesPerSec <= 0) {
+            // closed-loop
+            for (int i = 0; i < messages; i++) {
+                final long start = System.nanoTime();
+                client.roundTrip(payload);
+                raw.recordValue(System.nanoTime() - start);
+            }
+
+            final Histogram corrected = raw.copyCorrectedForCoordinatedOmission(raw.getValueAtPercentile(50.0));
+            return new Histogram[] { raw, corrected };
+        }
+
+        // open-loop: every message has an intended send time, regardless of how long the previous one took
+        final Histogram corrected = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / messagesPerSec;
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            final long intendedTime = startTime + i * intervalNanos;
+            long now;
+            while ((now = System.nanoTime()) < intendedTime) {
+                if (intendedTime - now > 100_000L) {
+                    LockSupport.parkNanos(intendedTime - now - 50_000L);
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+
+            client.roundTrip(payload);
+            final long end = System.nanoTime();
+            raw.recordValue(end - now);
+            corrected.recordValue(end - intendedTime);
+        }
+
+        return new Histogram[] { raw, corrected };
+    }
+
+    static private void printRow(PrintStream out, String name, Histogram raw, Histogram corrected) {
+        out.printf("%-22s", name);
+        for (double percentile : PERCENTILES) {
+            out.printf(" %10.1f", raw.getValueAtPercentile(percentile) / 1000.0);
+        }
+        out.printf(" %10.1f | %12.1f %12.1f %12.1f%n", raw.getMaxValue() / 1000.0,
+            corrected.getValueAtPercentile(99.0) / 1000.0, corrected.getValueAtPercentile(99.9) / 1000.0,
+            corrected.getMaxValue() / 1000.0);
+    }
+
+    static private Map<String,String> parseOptions(String[] args) {
+        final Map<String,String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid argument " + arg + " (expected --name=value)");
+            }
+            final int pos = arg.indexOf('=');
+            options.put(arg.substring(2, pos), arg.substring(pos + 1));
+        }
+        return options;
+    }
+
+    static private List<String> splitOption(Map<String,String> options, String name, String defaultValue) {
+        final List<String> values = new ArrayList<>();
+        for (String value : options.getOrDefault(name, defaultValue).split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.fizzed.shmemj.benchmarks;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A running peer of a benchmark, either on a daemon thread in this JVM or a forked java process. If the peer dies, the
+ * resources the benchmark side registered are closed, so whatever it is blocked on (an accept, a read) fails right away
+ * instead of waiting on a peer that is gone, and the failure of the peer is what gets reported.
+ */
+public class PeerHandle implements AutoCloseable {
+
+    public interface Body {
+        void run() throws Exception;
+    }
+
+    private final Thread thread;
+    private final Process process;
+    private final AtomicReference<Throwable> failure;
+    private final List<AutoCloseable> abortables;
+    private volatile boolean closing;
+
+    private PeerHandle(Thread thread, Process process) {
+        this.thread = thread;
+        this.process = process;
+        this.failure = new AtomicReference<>();
+        this.abortables = new CopyOnWriteArrayList<>();
+    }
+
+    static public PeerHandle startThread(String name, Body body) {
+        final PeerHandle[] handle = new PeerHandle[1];
+        final Thread thread = new Thread(() -> {
+            try {
+                body.run();
+            } catch (Throwable t) {
+                handle[0].fail(t);
+            }
+        }, name);
+        thread.setDaemon(true);
+        handle[0] = new PeerHandle(thread, null);
+        thread.start();
+        return handle[0];
+    }
+
+    /**
+     * Forks a java process running the main class, using the same classpath as this JVM.
+     */
+    static public PeerHandle startProcess(Class<?> mainClass, String... args) throws Exception {
+        final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        final String[] command = new String[args.length + 4];
+        command[0] = java;
+        command[1] = "-cp";
+        command[2] = System.getProperty("java.class.path");
+        command[3] = mainClass.getName();
+        System.arraycopy(args, 0, command, 4, args.length);
+
+        final Process process = new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+
+        final PeerHandle handle = new PeerHandle(null, process);
+        process.onExit().thenAccept(p -> handle.checkExitValue());
+        return handle;
+    }
+
+    /**
+     * Closes the resource if the peer dies (immediately if it already has), so the benchmark side blocked on it fails.
+     */
+    public PeerHandle abortOnFailure(AutoCloseable resource) {
+        this.abortables.add(resource);
+        if (this.failure.get() != null) {
+            this.abort();
+        }
+        return this;
+    }
+
+    public Throwable getFailure() {
+        return this.failure.get();
+    }
+
+    /**
+     * The exception to throw for a failure on the benchmark side, which is the failure of the peer if it died (the
+     * likely cause) or otherwise the exception itself.
+     */
+    public Exception failure(Exception e) {
+        final Throwable peerFailure = this.failure.get();
+        if (peerFailure == null) {
+            return e;
+        }
+        final IllegalStateException failure = new IllegalStateException("Benchmark peer failed", peerFailure);
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    /**
+     * Waits for the peer to exit (the benchmark side should have hung up first) and rethrows its failure if it died.
+     */
+    @Override
+    public void close() throws Exception {
+        this.closing = true;
+        if (this.thread != null) {
+            this.thread.join(10000L);
+            if (this.thread.isAlive()) {
+                this.thread.interrupt();
+                this.fail(new IllegalStateException("Benchmark peer thread did not exit"));
+            }
+        } else {
+            if (this.process.waitFor(10, TimeUnit.SECONDS)) {
+                this.checkExitValue();
+            } else {
+                this.process.destroyForcibly();
+                this.fail(new IllegalStateException("Benchmark peer process did not exit"));
+            }
+        }
+
+        final Throwable peerFailure = this.failure.get();
+        if (peerFailure != null) {
+            throw new IllegalStateException("Benchmark peer failed", peerFailure);
+        }
+    }
+
+    private void checkExitValue() {
+        final int exitValue = this.process.exitValue();
+        if (exitValue != 0) {
+            this.fail(new IllegalStateException("Benchmark peer process exited with " + exitValue));
+        }
+    }
+
+    private void fail(Throwable t) {
+        if (this.failure.compareAndSet(null, t) && !this.closing) {
+            this.abort();
+        }
+    }
+
+    private void abort() {
+        for (AutoCloseable resource : this.abortables) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                // the benchmark side fails either way
+            }
+        }
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.fizzed.shmemj.benchmarks;
+
+/**
+ * The benchmark side of a transport whose peer echoes every message straight back.
+ */
+public interface RoundTripClient extends AutoCloseable {
+
+    String getName();
+
+    /**
+     * Sends the payload and waits for the echoed response.
+     */
+    void roundTrip(byte[] payload) throws Exception;
+
+}
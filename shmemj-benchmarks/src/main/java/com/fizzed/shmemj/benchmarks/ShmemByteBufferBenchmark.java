@@ -0,0 +1,50 @@
+package com.fizzed.shmemj.benchmarks;
+
+import com.fizzed.shmemj.Shmem;
+import com.fizzed.shmemj.ShmemFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of creating a ByteBuffer view of the shared memory (a JNI call to create a direct buffer).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShmemByteBufferBenchmark {
+
+    @Param({ "64", "4096", "65536" })
+    public int length;
+
+    private Shmem shmem;
+
+    @Setup
+    public void setup() {
+        this.shmem = new ShmemFactory()
+            .setSize(1024L * 1024L)
+            .create();
+    }
+
+    @TearDown
+    public void teardown() throws Exception {
+        this.shmem.close();
+    }
+
+    @Benchmark
+    public ByteBuffer newByteBuffer() {
+        return this.shmem.newByteBuffer(0L, this.length);
+    }
+
+    @Benchmark
+    public long newByteBufferAndAccess() {
+        final ByteBuffer buffer = this.shmem.newByteBuffer(0L, this.length);
+        buffer.putLong(0, 42L);
+        return buffer.getLong(0);
+    }
+
+}
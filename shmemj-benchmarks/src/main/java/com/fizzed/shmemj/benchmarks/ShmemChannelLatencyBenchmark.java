@@ -0,0 +1,81 @@
+package com.fizzed.shmemj.benchmarks;
+
+import com.fizzed.shmemj.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ping-pong latency of a channel: write a request of the payload size and read the echoed response, with the echoing
+ * peer either on a thread in this JVM or in a forked process.
+ */
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShmemChannelLatencyBenchmark {
+
+    @Param({ "8", "256", "4096", "65536" })
+    public int payloadSize;
+
+    @Param({ "true", "false" })
+    public boolean spinLocks;
+
+    @Param({ "false", "true" })
+    public boolean ringBuffers;
+
+    @Param({ "THREAD", "PROCESS" })
+    public ChannelPeer.Location peer;
+
+    private ShmemServerChannel channel;
+    private ShmemChannelConnection conn;
+    private PeerHandle peerHandle;
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws Exception {
+        final Path address = ChannelPeer.temporaryAddress("shmemj-latency-benchmark");
+
+        // enough room for the payload in either direction, even when limited to half a ring buffer
+        this.channel = new ShmemChannelFactory()
+            .setSize(8L * this.payloadSize + 65536L)
+            .setAddress(address)
+            .setSpinLocks(this.spinLocks)
+            .setRingBuffers(this.ringBuffers)
+            .createServerChannel();
+
+        // a peer that dies closes the channel, so nothing waits on it until a timeout
+        this.peerHandle = ChannelPeer.start(this.peer, address, ChannelPeer.Mode.ECHO, this.payloadSize).abortOnFailure(this.channel);
+        try {
+            this.conn = this.channel.accept(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw this.peerHandle.failure(e);
+        }
+        this.payload = new byte[this.payloadSize];
+    }
+
+    @TearDown
+    public void teardown() throws Exception {
+        this.conn.close();
+        this.peerHandle.close();
+        this.channel.close();
+    }
+
+    @Benchmark
+    public int pingPong() throws Exception {
+        try (ShmemChannel.Write write = this.conn.write(this.payloadSize, 5, TimeUnit.SECONDS)) {
+            write.getBuffer().put(this.payload);
+        }
+        try (ShmemChannel.Read read = this.conn.read(5, TimeUnit.SECONDS)) {
+            final ByteBuffer readBuffer = read.getBuffer();
+            final int length = readBuffer.remaining();
+            readBuffer.get(this.payload, 0, length);
+            return length;
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.fizzed.shmemj.benchmarks;
+
+import com.fizzed.shmemj.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-way throughput of a channel in both directions: WRITE streams messages to a peer that reads and discards them,
+ * while READ consumes messages from a peer writing as fast as it can. Throughput in bytes is the ops/sec times the
+ * payload size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShmemChannelThroughputBenchmark {
+
+    public enum Direction {
+        WRITE,
+        READ
+    }
+
+    @Param({ "WRITE", "READ" })
+    public Direction direction;
+
+    @Param({ "64", "4096" })
+    public int payloadSize;
+
+    @Param({ "false", "true" })
+    public boolean ringBuffers;
+
+    @Param({ "THREAD", "PROCESS" })
+    public ChannelPeer.Location peer;
+
+    private ShmemServerChannel channel;
+    private ShmemChannelConnection conn;
+    private PeerHandle peerHandle;
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws Exception {
+        final Path address = ChannelPeer.temporaryAddress("shmemj-throughput-benchmark");
+
+        this.channel = new ShmemChannelFactory()
+            .setSize(1024L * 1024L)
+            .setAddress(address)
+            .setSpinLocks(true)
+            .setRingBuffers(this.ringBuffers)
+            .createServerChannel();
+
+        final ChannelPeer.Mode mode = this.direction == Direction.WRITE ? ChannelPeer.Mode.SINK : ChannelPeer.Mode.SOURCE;
+        // a peer that dies closes the channel, so nothing waits on it until a timeout
+        this.peerHandle = ChannelPeer.start(this.peer, address, mode, this.payloadSize).abortOnFailure(this.channel);
+        try {
+            this.conn = this.channel.accept(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw this.peerHandle.failure(e);
+        }
+        this.payload = new byte[this.payloadSize];
+    }
+
+    @TearDown
+    public void teardown() throws Exception {
+        this.conn.close();
+        this.peerHandle.close();
+        this.channel.close();
+    }
+
+    @Benchmark
+    public int transfer() throws Exception {
+        if (this.direction == Direction.WRITE) {
+            try (ShmemChannel.Write write = this.conn.write(this.payloadSize, 5, TimeUnit.SECONDS)) {
+                write.getBuffer().put(this.payload);
+                return this.payloadSize;
+            }
+        } else {
+            try (ShmemChannel.Read read = this.conn.read(5, TimeUnit.SECONDS)) {
+                final ByteBuffer readBuffer = read.getBuffer();
+                final int length = readBuffer.remaining();
+                readBuffer.get(this.payload, 0, length);
+                return length;
+            }
+        }
+    }
+
+}
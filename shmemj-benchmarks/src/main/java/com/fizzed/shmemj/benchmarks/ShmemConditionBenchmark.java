@@ -0,0 +1,74 @@
+package com.fizzed.shmemj.benchmarks;
+
+import com.fizzed.shmemj.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Round-trip latency of signaling a condition and awaiting the reply on another condition, where a background thread
+ * awaits the first condition and signals the second.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShmemConditionBenchmark {
+
+    @Param({ "THREAD", "SPIN" })
+    public ShmemLockType lockType;
+
+    @Param({ "DEFAULT", "BUSY_SPIN" })
+    public String waitStrategy;
+
+    private Shmem shmem;
+    private ShmemCondition ping;
+    private ShmemCondition pong;
+    private AtomicBoolean running;
+    private Thread ponger;
+
+    @Setup
+    public void setup() {
+        this.shmem = new ShmemFactory()
+            .setSize(4096L)
+            .create();
+
+        final ShmemWaitStrategy _waitStrategy = "BUSY_SPIN".equals(this.waitStrategy) ? ShmemWaitStrategy.BUSY_SPIN : null;
+        this.ping = this.shmem.newCondition(0L, this.lockType, true, _waitStrategy);
+        this.pong = this.shmem.newCondition(2048L, this.lockType, true, _waitStrategy);
+        this.running = new AtomicBoolean(true);
+
+        this.ponger = new Thread(() -> {
+            try {
+                while (this.running.get()) {
+                    if (this.ping.await(100, TimeUnit.MILLISECONDS)) {
+                        this.pong.signal();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // done
+            }
+        }, "shmemj-benchmark-ponger");
+        this.ponger.setDaemon(true);
+        this.ponger.start();
+    }
+
+    @TearDown
+    public void teardown() throws Exception {
+        this.running.set(false);
+        this.ponger.join(5000L);
+        this.ping.close();
+        this.pong.close();
+        this.shmem.close();
+    }
+
+    @Benchmark
+    public boolean roundTrip() throws InterruptedException {
+        this.ping.signal();
+        return this.pong.await(5, TimeUnit.SECONDS);
+    }
+
+}
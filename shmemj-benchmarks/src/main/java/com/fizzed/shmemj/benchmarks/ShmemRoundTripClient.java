@@ -0,0 +1,73 @@
+package com.fizzed.shmemj.benchmarks;
+
+import com.fizzed.shmemj.*;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+public class ShmemRoundTripClient implements RoundTripClient {
+
+    private final String name;
+    private final ShmemServerChannel channel;
+    private final ShmemChannelConnection conn;
+    private final PeerHandle peerHandle;
+
+    private ShmemRoundTripClient(String name, ShmemServerChannel channel, ShmemChannelConnection conn, PeerHandle peerHandle) {
+        this.name = name;
+        this.channel = channel;
+        this.conn = conn;
+        this.peerHandle = peerHandle;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public void roundTrip(byte[] payload) throws Exception {
+        try {
+            try (ShmemChannel.Write write = this.conn.write(payload.length, 30, TimeUnit.SECONDS)) {
+                write.getBuffer().put(payload);
+            }
+            try (ShmemChannel.Read read = this.conn.read(30, TimeUnit.SECONDS)) {
+                final ByteBuffer readBuffer = read.getBuffer();
+                readBuffer.get(payload, 0, readBuffer.remaining());
+            }
+        } catch (Exception e) {
+            throw this.peerHandle.failure(e);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.conn.close();
+        this.peerHandle.close();
+        this.channel.close();
+    }
+
+    static public ShmemRoundTripClient open(ShmemLockType lockType, boolean ringBuffers, ChannelPeer.Location peer, int payloadSize) throws Exception {
+        final Path address = ChannelPeer.temporaryAddress("shmemj-latency");
+
+        final ShmemServerChannel channel = new ShmemChannelFactory()
+            .setSize(8L * payloadSize + 65536L)
+            .setAddress(address)
+            .setLockType(lockType)
+            .setRingBuffers(ringBuffers)
+            .createServerChannel();
+
+        // a peer that dies closes the channel, so nothing waits on it until a timeout
+        final PeerHandle peerHandle = ChannelPeer.start(peer, address, ChannelPeer.Mode.ECHO, payloadSize).abortOnFailure(channel);
+        final ShmemChannelConnection conn;
+        try {
+            conn = channel.accept(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw peerHandle.failure(e);
+        }
+
+        final String name = "shmem-" + lockType.name().toLowerCase() + (ringBuffers ? "-ring" : "");
+        return new ShmemRoundTripClient(name, channel, conn, peerHandle);
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.fizzed.shmemj.benchmarks;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * The echoing end of a TCP or unix domain socket benchmark, so sockets can be compared with a shmem channel under the
+ * exact same conditions (same payloads, peer on a thread or in a forked process).
+ */
+public class SocketPeer {
+
+    public enum Kind {
+        TCP,
+        UNIX
+    }
+
+    static public void main(String[] args) throws Exception {
+        final Kind kind = Kind.valueOf(args[0]);
+        final String address = args[1];
+        final int payloadSize = Integer.parseInt(args[2]);
+
+        run(kind, address, payloadSize);
+    }
+
+    static public void run(Kind kind, String address, int payloadSize) throws IOException {
+        try (SocketChannel socket = connect(kind, address)) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(payloadSize);
+            for (;;) {
+                buffer.clear();
+                readFully(socket, buffer);
+                buffer.flip();
+                writeFully(socket, buffer);
+            }
+        } catch (EOFException e) {
+            // benchmark is done with us
+        }
+    }
+
+    static public SocketChannel connect(Kind kind, String address) throws IOException {
+        if (kind == Kind.UNIX) {
+            final SocketChannel socket = SocketChannel.open(StandardProtocolFamily.UNIX);
+            socket.connect(UnixDomainSocketAddress.of(address));
+            return socket;
+        }
+
+        final SocketChannel socket = SocketChannel.open();
+        socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        socket.connect(new InetSocketAddress("127.0.0.1", Integer.parseInt(address)));
+        return socket;
+    }
+
+    static public void readFully(SocketChannel socket, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (socket.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    static public void writeFully(SocketChannel socket, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            socket.write(buffer);
+        }
+    }
+
+    /**
+     * Starts a peer connecting to the address, either on a daemon thread or as a forked java process using the same
+     * classpath as this JVM.
+     */
+    static public PeerHandle start(ChannelPeer.Location location, Kind kind, String address, int payloadSize) throws Exception {
+        if (location == ChannelPeer.Location.PROCESS) {
+            return PeerHandle.startProcess(SocketPeer.class, kind.name(), address, Integer.toString(payloadSize));
+        }
+
+        return PeerHandle.startThread("shmemj-benchmark-socket-peer", () -> run(kind, address, payloadSize));
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.fizzed.shmemj.benchmarks;
+
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SocketRoundTripClient implements RoundTripClient {
+
+    private final SocketPeer.Kind kind;
+    private final ServerSocketChannel serverSocket;
+    private final SocketChannel socket;
+    private final PeerHandle peerHandle;
+    private final ByteBuffer buffer;
+    private final Path unixPath;
+
+    private SocketRoundTripClient(SocketPeer.Kind kind, ServerSocketChannel serverSocket, SocketChannel socket,
+                                  PeerHandle peerHandle, int payloadSize, Path unixPath) {
+        this.kind = kind;
+        this.serverSocket = serverSocket;
+        this.socket = socket;
+        this.peerHandle = peerHandle;
+        this.buffer = ByteBuffer.allocateDirect(payloadSize);
+        this.unixPath = unixPath;
+    }
+
+    @Override
+    public String getName() {
+        return this.kind == SocketPeer.Kind.TCP ? "tcp" : "unix-socket";
+    }
+
+    @Override
+    public void roundTrip(byte[] payload) throws Exception {
+        try {
+            this.buffer.clear();
+            this.buffer.put(payload);
+            this.buffer.flip();
+            SocketPeer.writeFully(this.socket, this.buffer);
+
+            this.buffer.clear();
+            SocketPeer.readFully(this.socket, this.buffer);
+            this.buffer.flip();
+            this.buffer.get(payload);
+        } catch (Exception e) {
+            throw this.peerHandle.failure(e);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        // peer sees EOF and exits
+        this.socket.close();
+        this.peerHandle.close();
+        this.serverSocket.close();
+        if (this.unixPath != null) {
+            Files.deleteIfExists(this.unixPath);
+        }
+    }
+
+    static public SocketRoundTripClient open(SocketPeer.Kind kind, ChannelPeer.Location peer, int payloadSize) throws Exception {
+        final ServerSocketChannel serverSocket;
+        final String address;
+        Path unixPath = null;
+
+        if (kind == SocketPeer.Kind.UNIX) {
+            unixPath = ChannelPeer.temporaryAddress("shmemj-latency-uds");
+            serverSocket = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            serverSocket.bind(UnixDomainSocketAddress.of(unixPath));
+            address = unixPath.toString();
+        } else {
+            serverSocket = ServerSocketChannel.open();
+            serverSocket.bind(new InetSocketAddress("127.0.0.1", 0));
+            address = Integer.toString(((InetSocketAddress)serverSocket.getLocalAddress()).getPort());
+        }
+
+        // a peer that dies closes the sockets, so nothing blocks on it forever
+        final PeerHandle peerHandle = SocketPeer.start(peer, kind, address, payloadSize).abortOnFailure(serverSocket);
+        final SocketChannel socket;
+        try {
+            socket = serverSocket.accept();
+        } catch (Exception e) {
+            throw peerHandle.failure(e);
+        }
+        peerHandle.abortOnFailure(socket);
+        if (kind == SocketPeer.Kind.TCP) {
+            socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+
+        return new SocketRoundTripClient(kind, serverSocket, socket, peerHandle, payloadSize, unixPath);
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.fizzed.shmemj;
+
+/**
+ * Provides futex conditions via Panama downcalls on linux, registered as a java.util.ServiceLoader provider so Shmem
+ * picks it up automatically when this module is on the classpath.
+ */
+public class FfmConditionProvider implements ShmemConditionProvider {
+
+    @Override
+    public boolean isFutexSupported() {
+        return Futex.isSupported();
+    }
+
+    @Override
+    public ShmemCondition newFutexCondition(Shmem shmem, long offset, boolean autoReset) {
+        return FfmFutexCondition.create(shmem, offset, autoReset);
+    }
+
+    @Override
+    public ShmemCondition existingFutexCondition(Shmem shmem, long offset) {
+        return FfmFutexCondition.existing(shmem, offset);
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.fizzed.shmemj;
+
+/**
+ * A futex condition implemented with Panama downcalls instead of JNI. The layout in shared memory is identical to the
+ * JNI futex condition (a 32-bit state word followed by a 32-bit auto-reset flag), so either can be on either end.
+ */
+class FfmFutexCondition extends ShmemCondition {
+
+    static final long SIZE = 8L;
+    static private final int STATE_OFFSET = 0;
+    static private final int AUTO_RESET_OFFSET = 4;
+    static private final int CLEAR = 0;
+    static private final int SIGNALED = 1;
+
+    private final ShmemSegment segment;
+    private final long address;
+    private final boolean autoReset;
+
+    private FfmFutexCondition(ShmemSegment segment) {
+        this.segment = segment;
+        this.address = segment.getAddress() + STATE_OFFSET;
+        this.autoReset = segment.getIntVolatile(AUTO_RESET_OFFSET) != 0;
+    }
+
+    static FfmFutexCondition create(Shmem shmem, long offset, boolean autoReset) {
+        final ShmemSegment segment = ShmemSegment.of(shmem, offset, SIZE);
+        segment.setIntVolatile(AUTO_RESET_OFFSET, autoReset ? 1 : 0);
+        segment.setIntVolatile(STATE_OFFSET, CLEAR);
+        return new FfmFutexCondition(segment);
+    }
+
+    static FfmFutexCondition existing(Shmem shmem, long offset) {
+        return new FfmFutexCondition(ShmemSegment.of(shmem, offset, SIZE));
+    }
+
+    @Override
+    public long getSize() {
+        return SIZE;
+    }
+
+    @Override
+    public boolean isDestroyed() {
+        return this.segment.isClosed();
+    }
+
+    private boolean tryConsume() {
+        if (this.autoReset) {
+            return this.segment.compareAndSetInt(STATE_OFFSET, SIGNALED, CLEAR);
+        }
+        return this.segment.getIntVolatile(STATE_OFFSET) == SIGNALED;
+    }
+
+    @Override
+    protected boolean nativeAwaitMillis(long timeoutMillis) {
+        // zero means wait forever (same as the jni natives)
+        final long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        for (;;) {
+            if (this.tryConsume()) {
+                return true;
+            }
+            if (timeoutMillis == 0) {
+                Futex.await(this.address, CLEAR, -1L);
+                continue;
+            }
+            final long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return false;
+            }
+            Futex.await(this.address, CLEAR, remainingNanos);
+        }
+    }
+
+    @Override
+    protected boolean nativeTryAwait() {
+        return this.tryConsume();
+    }
+
+    @Override
+    protected void nativeSignal() {
+        this.segment.setIntVolatile(STATE_OFFSET, SIGNALED);
+        Futex.wake(this.address, this.autoReset ? 1 : Integer.MAX_VALUE);
+    }
+
+    @Override
+    protected void nativeClear() {
+        this.segment.setIntVolatile(STATE_OFFSET, CLEAR);
+    }
+
+    @Override
+    protected void nativeDestroy() {
+        this.segment.close();
+    }
+
+    @Override
+    public String toString() {
+        return "FfmFutexCondition{" +
+            "segment=" + segment +
+            ", autoReset=" + autoReset +
+            '}';
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.fizzed.shmemj;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Downcalls to the linux futex syscall via libc's syscall(), so waiting and waking never cross JNI.
+ */
+final class Futex {
+
+    static private final long FUTEX_WAIT = 0L;      // shared (not FUTEX_PRIVATE_FLAG), since waiters are in other processes
+    static private final long FUTEX_WAKE = 1L;
+    static private final long SYS_FUTEX = sysFutex();
+    static private final MethodHandle SYSCALL = syscall();
+    // one timespec per thread, allocated on its first timed wait rather than on every wait
+    static private final ThreadLocal<MemorySegment> TIMESPEC = ThreadLocal.withInitial(() -> Arena.ofAuto().allocate(16L, 8L));
+
+    private Futex() {
+    }
+
+    static boolean isSupported() {
+        return SYSCALL != null;
+    }
+
+    /**
+     * Waits while the 32-bit word at the address equals the expected value, until woken, interrupted by a signal, or
+     * the timeout elapses (a negative timeout waits forever). Spurious returns are possible, so callers must re-check
+     * their condition.
+     */
+    static void await(long address, int expected, long timeoutNanos) {
+        try {
+            long timespecAddress = 0L;      // null timespec means no timeout
+            if (timeoutNanos >= 0) {
+                final MemorySegment timespec = TIMESPEC.get();
+                timespec.setAtIndex(ValueLayout.JAVA_LONG, 0, timeoutNanos / 1_000_000_000L);
+                timespec.setAtIndex(ValueLayout.JAVA_LONG, 1, timeoutNanos % 1_000_000_000L);
+                timespecAddress = timespec.address();
+            }
+            // result is ignored: timeout, EAGAIN (word changed) and EINTR all mean the caller should re-check
+            final long result = (long)SYSCALL.invokeExact(SYS_FUTEX, address, FUTEX_WAIT, (long)expected, timespecAddress);
+        } catch (Throwable t) {
+            throw new IllegalStateException("Futex wait failed", t);
+        }
+    }
+
+    /**
+     * Wakes up to count waiters on the address.
+     */
+    static void wake(long address, int count) {
+        try {
+            final long result = (long)SYSCALL.invokeExact(SYS_FUTEX, address, FUTEX_WAKE, (long)count, 0L);
+        } catch (Throwable t) {
+            throw new IllegalStateException("Futex wake failed", t);
+        }
+    }
+
+    static private long sysFutex() {
+        final String arch = System.getProperty("os.arch", "");
+        switch (arch) {
+            case "amd64":
+            case "x86_64":
+                return 202L;
+            case "aarch64":
+            case "riscv64":
+                return 98L;
+            default:
+                return -1L;
+        }
+    }
+
+    static private MethodHandle syscall() {
+        if (!System.getProperty("os.name", "").toLowerCase().contains("linux") || SYS_FUTEX < 0) {
+            return null;
+        }
+        try {
+            final Linker linker = Linker.nativeLinker();
+            // long syscall(long number, ...) -- every variadic argument is passed as a full long
+            return linker.downcallHandle(
+                linker.defaultLookup().find("syscall").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG,
+                    ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG),
+                Linker.Option.firstVariadicArg(1));
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+}
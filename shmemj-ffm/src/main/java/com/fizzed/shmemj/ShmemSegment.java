@@ -0,0 +1,152 @@
+package com.fizzed.shmemj;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A Panama MemorySegment over a region of shared memory, which unlike a ByteBuffer is not capped at 2GB, is indexed by
+ * long offsets and whose bounds checks are inlined by the JIT. Atomic and volatile access is via VarHandles, so no JNI
+ * calls are made once the segment exists.
+ *
+ * The segment is bound to its own shared arena which is closed when either this segment or the underlying shmem is
+ * closed, so any access afterwards throws an IllegalStateException rather than touching unmapped memory.
+ *
+ * NOTE: reinterpreting a raw address is a restricted method, run with --enable-native-access=ALL-UNNAMED to avoid the
+ * warning the JVM otherwise prints.
+ */
+public class ShmemSegment implements AutoCloseable {
+
+    static private final VarHandle INT = ValueLayout.JAVA_INT.varHandle();
+    static private final VarHandle LONG = ValueLayout.JAVA_LONG.varHandle();
+
+    private final Shmem shmem;
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final long offset;
+
+    private ShmemSegment(Shmem shmem, Arena arena, MemorySegment segment, long offset) {
+        this.shmem = shmem;
+        this.arena = arena;
+        this.segment = segment;
+        this.offset = offset;
+    }
+
+    /**
+     * Maps the entire shared memory as a segment.
+     */
+    static public ShmemSegment of(Shmem shmem) {
+        return of(shmem, 0L, shmem.getSize());
+    }
+
+    /**
+     * Maps a region of the shared memory as a segment.
+     */
+    static public ShmemSegment of(Shmem shmem, long offset, long length) {
+        final long size = shmem.getSize();
+        if (offset < 0 || length <= 0 || offset + length > size) {
+            throw new IllegalArgumentException("Offset " + offset + " + length " + length + " exceeds shared memory size of " + size);
+        }
+
+        // a single byte view of the region is all we need to learn its native address (no matter how large it is)
+        final long address = MemorySegment.ofBuffer(shmem.newByteBuffer(offset, 1L)).address();
+        final Arena arena = Arena.ofShared();
+        final MemorySegment segment = MemorySegment.ofAddress(address).reinterpret(length, arena, null);
+
+        final ShmemSegment shmemSegment = new ShmemSegment(shmem, arena, segment, offset);
+        shmem.registerResource(shmemSegment);
+        return shmemSegment;
+    }
+
+    public Shmem getShmem() {
+        return this.shmem;
+    }
+
+    public MemorySegment getSegment() {
+        return this.segment;
+    }
+
+    /**
+     * The offset of this segment within the shared memory.
+     */
+    public long getOffset() {
+        return this.offset;
+    }
+
+    public long getSize() {
+        return this.segment.byteSize();
+    }
+
+    /**
+     * The native address of the start of this segment.
+     */
+    public long getAddress() {
+        return this.segment.address();
+    }
+
+    public boolean isClosed() {
+        return !this.arena.scope().isAlive();
+    }
+
+    public MemorySegment asSlice(long offset, long length) {
+        return this.segment.asSlice(offset, length);
+    }
+
+    public int getIntVolatile(long offset) {
+        return (int)INT.getVolatile(this.segment, offset);
+    }
+
+    public void setIntVolatile(long offset, int value) {
+        INT.setVolatile(this.segment, offset, value);
+    }
+
+    public void setIntRelease(long offset, int value) {
+        INT.setRelease(this.segment, offset, value);
+    }
+
+    public boolean compareAndSetInt(long offset, int expected, int value) {
+        return INT.compareAndSet(this.segment, offset, expected, value);
+    }
+
+    public int getAndAddInt(long offset, int delta) {
+        return (int)INT.getAndAdd(this.segment, offset, delta);
+    }
+
+    public long getLongVolatile(long offset) {
+        return (long)LONG.getVolatile(this.segment, offset);
+    }
+
+    public void setLongVolatile(long offset, long value) {
+        LONG.setVolatile(this.segment, offset, value);
+    }
+
+    public void setLongRelease(long offset, long value) {
+        LONG.setRelease(this.segment, offset, value);
+    }
+
+    public boolean compareAndSetLong(long offset, long expected, long value) {
+        return LONG.compareAndSet(this.segment, offset, expected, value);
+    }
+
+    public long getAndAddLong(long offset, long delta) {
+        return (long)LONG.getAndAdd(this.segment, offset, delta);
+    }
+
+    @Override
+    public void close() {
+        if (!this.isClosed()) {
+            this.shmem.unregisterResource(this);
+            this.arena.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ShmemSegment{" +
+            "offset=" + offset +
+            ", size=" + segment.byteSize() +
+            '}';
+    }
+
+}
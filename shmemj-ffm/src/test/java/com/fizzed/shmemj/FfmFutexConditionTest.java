@@ -0,0 +1,156 @@
+package com.fizzed.shmemj;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class FfmFutexConditionTest {
+
+    private Shmem shmem;
+    private Shmem otherShmem;
+
+    @BeforeEach
+    public void beforeEach() {
+        assumeTrue(Futex.isSupported(), "futex downcalls not supported on this platform");
+
+        this.shmem = new ShmemFactory().setSize(2048L).create();
+        // a second mapping of the same memory, like another process would have
+        this.otherShmem = new ShmemFactory().setOsId(this.shmem.getOsId()).open();
+    }
+
+    @AfterEach
+    public void afterEach() {
+        if (this.otherShmem != null) {
+            this.otherShmem.close();
+        }
+        if (this.shmem != null) {
+            this.shmem.close();
+        }
+    }
+
+    static private boolean isJniFutexSupported() {
+        try {
+            return Shmem.nativeIsFutexSupported();
+        } catch (UnsatisfiedLinkError e) {
+            // native library is older than futex support
+            return false;
+        }
+    }
+
+    // the jni natives directly, since the provider takes precedence over them in Shmem.newCondition
+    static private ShmemCondition jniCondition(Shmem shmem, boolean create, boolean autoReset) {
+        final ShmemCondition condition = create ? shmem.nativeNewFutexCondition(0L, autoReset) : shmem.nativeExistingFutexCondition(0L);
+        condition.setShmem(shmem);
+        condition.setLockType(ShmemLockType.FUTEX);
+        return condition;
+    }
+
+    // waits for the condition on another thread, a second after the signal was sent is plenty
+    static private void assertSignalWakesWaiter(ShmemCondition signaler, ShmemCondition waiter) throws Exception {
+        final CompletableFuture<Boolean> signaled = CompletableFuture.supplyAsync(() -> {
+            try {
+                return waiter.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        });
+        Thread.sleep(50L);
+        signaler.signal();
+        assertThat(signaled.get(1, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void providerSuppliesFutexConditions() {
+        final ShmemCondition condition = this.shmem.newCondition(0L, ShmemLockType.FUTEX, true);
+        assertThat(condition, instanceOf(FfmFutexCondition.class));
+        assertThat(condition.getSize(), is(8L));
+        assertThat(condition.getLockType(), is(ShmemLockType.FUTEX));
+    }
+
+    @Test
+    public void layoutMatchesJniFutex() throws Exception {
+        // futex.rs: 32-bit state word (0 = clear, 1 = signaled) followed by a 32-bit auto-reset flag
+        final ByteBuffer words = this.shmem.newByteBuffer(0L, 8L).order(ByteOrder.nativeOrder());
+
+        final ShmemCondition autoReset = this.shmem.newCondition(0L, ShmemLockType.FUTEX, true);
+        assertThat(words.getInt(0), is(0));
+        assertThat(words.getInt(4), is(1));
+        autoReset.signal();
+        assertThat(words.getInt(0), is(1));
+        assertThat(autoReset.await(10, TimeUnit.MILLISECONDS), is(true));
+        assertThat(words.getInt(0), is(0));
+
+        final ShmemCondition manualReset = this.shmem.newCondition(0L, ShmemLockType.FUTEX, false);
+        assertThat(words.getInt(4), is(0));
+        manualReset.signal();
+        assertThat(manualReset.await(10, TimeUnit.MILLISECONDS), is(true));
+        assertThat(words.getInt(0), is(1));
+        manualReset.clear();
+        assertThat(words.getInt(0), is(0));
+
+        // a signal written straight into the word (what the jni natives do) is seen by an existing condition
+        final ShmemCondition existing = this.otherShmem.existingCondition(0L, ShmemLockType.FUTEX);
+        words.putInt(0, 1);
+        assertThat(existing.await(10, TimeUnit.MILLISECONDS), is(true));
+    }
+
+    @Test
+    public void signalAndWaitAcrossMappings() throws Exception {
+        final ShmemCondition condition1 = this.shmem.newCondition(0L, ShmemLockType.FUTEX, true);
+        final ShmemCondition condition2 = this.otherShmem.existingCondition(0L, ShmemLockType.FUTEX);
+
+        // with no signal, we should timeout
+        assertThat(condition2.await(10, TimeUnit.MILLISECONDS), is(false));
+
+        // signal is latched and consumed by the first waiter
+        condition1.signal();
+        assertThat(condition2.await(10, TimeUnit.MILLISECONDS), is(true));
+        assertThat(condition2.await(10, TimeUnit.MILLISECONDS), is(false));
+
+        // wakes a waiter sleeping in the kernel, in both directions
+        assertSignalWakesWaiter(condition1, condition2);
+        assertSignalWakesWaiter(condition2, condition1);
+
+        // many timed waits on the same thread reuse its timespec
+        for (int i = 0; i < 100; i++) {
+            assertThat(condition2.awaitSlice(1L), is(false));
+        }
+    }
+
+    @Test
+    public void interoperatesWithJniFutex() throws Exception {
+        assumeTrue(isJniFutexSupported(), "futex conditions not supported by the jni native library");
+
+        // jni creates, ffm attaches
+        final ShmemCondition jni = jniCondition(this.shmem, true, true);
+        final ShmemCondition ffm = this.otherShmem.existingCondition(0L, ShmemLockType.FUTEX);
+        assertThat(ffm, instanceOf(FfmFutexCondition.class));
+
+        assertSignalWakesWaiter(jni, ffm);
+        assertSignalWakesWaiter(ffm, jni);
+        assertThat(jni.await(10, TimeUnit.MILLISECONDS), is(false));
+        assertThat(ffm.await(10, TimeUnit.MILLISECONDS), is(false));
+
+        // ffm creates, jni attaches
+        final ShmemCondition ffm2 = this.shmem.newCondition(0L, ShmemLockType.FUTEX, true);
+        final ShmemCondition jni2 = jniCondition(this.otherShmem, false, false);
+
+        assertSignalWakesWaiter(ffm2, jni2);
+        assertSignalWakesWaiter(jni2, ffm2);
+        // the jni end picked up the auto-reset flag the ffm end wrote
+        ffm2.signal();
+        assertThat(jni2.await(10, TimeUnit.MILLISECONDS), is(true));
+        assertThat(jni2.await(10, TimeUnit.MILLISECONDS), is(false));
+    }
+
+}
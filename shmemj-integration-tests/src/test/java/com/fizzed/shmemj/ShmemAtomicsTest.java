@@ -0,0 +1,73 @@
+package com.fizzed.shmemj;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShmemAtomicsTest {
+
+    @Test
+    public void visibleAcrossMappings() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(2048L).create()) {
+            try (final Shmem existing = new ShmemFactory().setOsId(shmem.getOsId()).open()) {
+                final ShmemAtomics atomics1 = shmem.newAtomics(64L, 64L);
+                final ShmemAtomics atomics2 = existing.newAtomics(64L, 64L);
+
+                atomics1.setLongRelease(0, 42L);
+                assertThat(atomics2.getLongVolatile(0), is(42L));
+
+                atomics2.setIntVolatile(8, 7);
+                assertThat(atomics1.getIntAcquire(8), is(7));
+
+                assertThat(atomics1.compareAndSetLong(0, 41L, 1L), is(false));
+                assertThat(atomics1.compareAndSetLong(0, 42L, 1L), is(true));
+                assertThat(atomics2.getLongVolatile(0), is(1L));
+
+                assertThat(atomics2.getAndAddLong(0, 5L), is(1L));
+                assertThat(atomics1.incrementAndGetLong(0), is(7L));
+                assertThat(atomics1.getAndAddInt(8, -7), is(7));
+                assertThat(atomics2.getAndSetInt(8, 3), is(0));
+                assertThat(atomics1.getInt(8), is(3));
+            }
+        }
+    }
+
+    @Test
+    public void concurrentIncrements() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(2048L).create()) {
+            try (final Shmem existing = new ShmemFactory().setOsId(shmem.getOsId()).open()) {
+                final ShmemAtomics atomics1 = shmem.newAtomics(0L, 8L);
+                final ShmemAtomics atomics2 = existing.newAtomics(0L, 8L);
+                final int increments = 100000;
+
+                final Thread t = new Thread(() -> {
+                    for (int i = 0; i < increments; i++) {
+                        atomics2.getAndAddLong(0, 1L);
+                    }
+                });
+                t.start();
+                for (int i = 0; i < increments; i++) {
+                    atomics1.getAndAddLong(0, 1L);
+                }
+                t.join();
+
+                assertThat(atomics1.getLongVolatile(0), is(2L * increments));
+            }
+        }
+    }
+
+    @Test
+    public void misalignedAccessFails() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(2048L).create()) {
+            final ShmemAtomics atomics = shmem.newAtomics(0L, 64L);
+
+            assertThrows(IllegalStateException.class, () -> atomics.getLongVolatile(4));
+            assertThrows(IllegalArgumentException.class, () -> ShmemAtomics.of(ByteBuffer.allocate(8)));
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.fizzed.shmemj;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShmemBroadcastLogTest {
+
+    @Test
+    public void fanOutAcrossMappings() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(4096L).create()) {
+            try (final Shmem existing = new ShmemFactory().setOsId(shmem.getOsId()).open()) {
+                final ShmemBroadcastLog publisher = ShmemBroadcastLog.create(shmem, 0L, 4096L, 128);
+                final ShmemBroadcastLog log = ShmemBroadcastLog.existing(existing, 0L);
+
+                assertThat(log.getCapacity(), is(2048));
+                assertThat(log.getMaxRecordSize(), is(128));
+
+                final ShmemBroadcastLog.Subscriber early = log.subscribe();
+                publisher.publish(utf8("a"));
+                final ShmemBroadcastLog.Subscriber late = log.subscribe();
+                publisher.publish(utf8("b"));
+
+                final List<String> received = new ArrayList<>();
+                assertThat(early.drain(r -> received.add(string(r)), 10), is(2));
+                assertThat(received.toString(), is("[a, b]"));
+                assertThat(early.getLag(), is(0L));
+
+                // subscribers only see what is published after they subscribe
+                received.clear();
+                assertThat(late.drain(r -> received.add(string(r)), 10), is(1));
+                assertThat(received.toString(), is("[b]"));
+                assertThat(late.poll(r -> {}), is(false));
+
+                assertThrows(IllegalArgumentException.class, () -> publisher.publish(ByteBuffer.allocate(129)));
+            }
+        }
+    }
+
+    @Test
+    public void wrapAroundPadsEndOfRing() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(1024L + 256L).create()) {
+            final ShmemBroadcastLog log = ShmemBroadcastLog.create(shmem, 0L, 1024L + 256L, 100);
+            final ShmemBroadcastLog.Subscriber subscriber = log.subscribe();
+
+            // 8 byte header + 93 bytes is 104 byte records, which do not divide the 1024 byte ring evenly
+            for (int i = 0; i < 50; i++) {
+                final ByteBuffer record = ByteBuffer.allocate(93);
+                record.putInt(0, i);
+                log.publish(record);
+
+                final int[] value = { -1 };
+                assertThat(subscriber.poll(r -> value[0] = r.getInt(0)), is(true));
+                assertThat(value[0], is(i));
+            }
+
+            assertThat(log.getTail(), greaterThan(50L * 104L));
+            assertThat(subscriber.getLappedCount(), is(0L));
+        }
+    }
+
+    @Test
+    public void slowSubscriberIsLapped() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(1024L + 256L).create()) {
+            final ShmemBroadcastLog log = ShmemBroadcastLog.create(shmem, 0L, 1024L + 256L, 24);
+            final ShmemBroadcastLog.Subscriber subscriber = log.subscribe();
+
+            // 32 byte records, so a 1024 byte ring only holds the last 32
+            for (int i = 0; i < 100; i++) {
+                log.publish(ByteBuffer.allocate(24).putInt(0, i));
+            }
+            assertThat(subscriber.getLag(), is(3200L));
+
+            final List<Integer> received = new ArrayList<>();
+            subscriber.drain(r -> received.add(r.getInt(0)), 1000);
+
+            assertThat(subscriber.getLappedCount(), is(1L));
+            assertThat(received.get(0), is(99));
+            assertThat(received.size(), is(1));
+        }
+    }
+
+    @Test
+    public void concurrentPublisherNeverDeliversTornRecords() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(4096L + 256L).create()) {
+            try (final Shmem existing = new ShmemFactory().setOsId(shmem.getOsId()).open()) {
+                final ShmemBroadcastLog publisher = ShmemBroadcastLog.create(shmem, 0L, 4096L + 256L, 64);
+                final ShmemBroadcastLog.Subscriber subscriber = ShmemBroadcastLog.existing(existing, 0L).subscribe();
+                final int records = 200000;
+                final AtomicReference<String> failure = new AtomicReference<>();
+
+                final Thread t = new Thread(() -> {
+                    final long[] last = { -1L };
+                    while (last[0] < records - 1 && failure.get() == null) {
+                        subscriber.poll(r -> {
+                            final long a = r.getLong(0);
+                            final long b = r.getLong(r.limit() - 8);
+                            if (a != b || a <= last[0] || r.limit() != 8 + (int)(a % 7) * 8) {
+                                failure.set("Torn record a=" + a + ", b=" + b + ", length=" + r.limit() + " after " + last[0]);
+                            }
+                            last[0] = a;
+                        });
+                    }
+                });
+                t.start();
+
+                final ByteBuffer record = ByteBuffer.allocate(64);
+                for (long i = 0; i < records; i++) {
+                    record.clear();
+                    record.limit(8 + (int)(i % 7) * 8);
+                    record.putLong(0, i);
+                    record.putLong(record.limit() - 8, i);
+                    publisher.publish(record);
+                }
+                t.join(30000L);
+
+                assertThat(failure.get(), is(nullValue()));
+            }
+        }
+    }
+
+    static private ByteBuffer utf8(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static private String string(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+}
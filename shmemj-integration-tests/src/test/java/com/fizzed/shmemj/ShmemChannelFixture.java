@@ -0,0 +1,167 @@
+package com.fizzed.shmemj;
+
+import com.fizzed.crux.util.WaitFor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * A server and a client channel over the same shared memory, within this process. Each side has its own mocked process
+ * provider (pids 12345 and 98765), so tests control what each side thinks of the liveness of the other. Either use the
+ * create/connect callbacks, which clean up after themselves, or connect() once and close the fixture when done.
+ */
+public class ShmemChannelFixture implements AutoCloseable {
+
+    static public final long SERVER_PID = 12345L;
+    static public final long CLIENT_PID = 98765L;
+
+    public interface CreateChannelsConsumer {
+        void apply(ShmemServerChannel serverChannel, ShmemClientChannel clientChannel) throws Exception;
+    }
+
+    public interface ConnectChannelsConsumer {
+        void apply(ShmemChannelConnection serverConn, ShmemChannelConnection clientConn) throws Exception;
+    }
+
+    private final ExecutorService executor;
+    private final ProcessProvider serverProcessProvider;
+    private final ProcessProvider clientProcessProvider;
+    private DefaultShmemChannel serverChannel;
+    private DefaultShmemChannel clientChannel;
+    private ShmemChannelConnection serverConn;
+    private ShmemChannelConnection clientConn;
+
+    public ShmemChannelFixture() {
+        this.executor = Executors.newCachedThreadPool();
+        this.serverProcessProvider = mockProcessProvider(SERVER_PID);
+        this.clientProcessProvider = mockProcessProvider(CLIENT_PID);
+    }
+
+    /**
+     * A process provider with the pid, which says every process is dead until told otherwise.
+     */
+    static public ProcessProvider mockProcessProvider(long pid) {
+        final ProcessProvider processProvider = mock(ProcessProvider.class);
+        doReturn(pid).when(processProvider).getCurrentPid();
+        return processProvider;
+    }
+
+    /**
+     * Whether both sides consider every process alive, e.g. so a wait of more than a second is not taken for the other
+     * side having died.
+     */
+    public ShmemChannelFixture setAlive(boolean alive) {
+        doReturn(alive).when(this.serverProcessProvider).isAlive(anyLong());
+        doReturn(alive).when(this.clientProcessProvider).isAlive(anyLong());
+        return this;
+    }
+
+    public ProcessProvider getServerProcessProvider() {
+        return this.serverProcessProvider;
+    }
+
+    public ProcessProvider getClientProcessProvider() {
+        return this.clientProcessProvider;
+    }
+
+    public DefaultShmemChannel getServerChannel() {
+        return this.serverChannel;
+    }
+
+    public DefaultShmemChannel getClientChannel() {
+        return this.clientChannel;
+    }
+
+    public ShmemChannelConnection getServerConn() {
+        return this.serverConn;
+    }
+
+    public ShmemChannelConnection getClientConn() {
+        return this.clientConn;
+    }
+
+    public void createChannels(long size, ShmemLockType lockType, boolean ringBuffers, CreateChannelsConsumer consumer) throws Exception {
+        final DefaultShmemChannel serverChannel = this.createServerChannel(size, lockType, ringBuffers);
+        final DefaultShmemChannel clientChannel = this.existingClientChannel(serverChannel);
+
+        consumer.apply(serverChannel, clientChannel);
+
+        // always cleanup
+        clientChannel.close();
+        serverChannel.close();
+    }
+
+    public void connectChannels(ShmemServerChannel serverChannel, ShmemClientChannel clientChannel, ConnectChannelsConsumer consumer) throws Exception {
+        final ShmemChannelConnection[] conns = this.connectChannels(serverChannel, clientChannel);
+
+        consumer.apply(conns[0], conns[1]);
+
+        // always cleanup
+        conns[1].close();
+        conns[0].close();
+    }
+
+    /**
+     * Creates both channels and connects them, which stay open until the fixture is closed.
+     */
+    public ShmemChannelFixture connect(long size, ShmemLockType lockType, boolean ringBuffers) throws Exception {
+        this.serverChannel = this.createServerChannel(size, lockType, ringBuffers);
+        this.clientChannel = this.existingClientChannel(this.serverChannel);
+        final ShmemChannelConnection[] conns = this.connectChannels(this.serverChannel, this.clientChannel);
+        this.serverConn = conns[0];
+        this.clientConn = conns[1];
+        return this;
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            if (this.clientChannel != null) {
+                this.clientChannel.close();
+            }
+            if (this.serverChannel != null) {
+                this.serverChannel.close();
+            }
+        } finally {
+            this.executor.shutdownNow();
+        }
+    }
+
+    private DefaultShmemChannel createServerChannel(long size, ShmemLockType lockType, boolean ringBuffers) {
+        final Shmem serverShmem = new ShmemFactory()
+            .setSize(size)
+            .create();
+
+        return DefaultShmemChannel.create(this.serverProcessProvider, serverShmem, lockType, ringBuffers);
+    }
+
+    private DefaultShmemChannel existingClientChannel(ShmemChannel serverChannel) {
+        final Shmem clientShmem = new ShmemFactory()
+            .setOsId(serverChannel.getShmem().getOsId())
+            .open();
+
+        return DefaultShmemChannel.existing(this.clientProcessProvider, clientShmem);
+    }
+
+    // the server and client ends of the connection
+    private ShmemChannelConnection[] connectChannels(ShmemServerChannel serverChannel, ShmemClientChannel clientChannel) throws Exception {
+        final Future<ShmemChannelConnection> acceptFuture = this.executor.submit(() -> serverChannel.accept(2, TimeUnit.SECONDS));
+
+        // waitfor serverPid to be populated
+        WaitFor.requireMillis(() -> serverChannel.getServerPid() > 0, 2000L, 10L);
+
+        // client can now connect
+        final ShmemChannelConnection clientConn = clientChannel.connect(3, TimeUnit.SECONDS);
+
+        final ShmemChannelConnection serverConn = acceptFuture.get(4, TimeUnit.SECONDS);
+
+        return new ShmemChannelConnection[] { serverConn, clientConn };
+    }
+
+}
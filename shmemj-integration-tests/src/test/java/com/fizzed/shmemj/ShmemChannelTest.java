@@ -1,18 +1,26 @@
 package com.fizzed.shmemj;
 
-import com.fizzed.crux.util.WaitFor;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
 import java.util.concurrent.*;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.*;
 
 public class ShmemChannelTest {
@@ -23,15 +31,20 @@ public class ShmemChannelTest {
     //
 
     private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private ShmemChannelFixture fixture;
     private ProcessProvider serverProcessProvider;
     private ProcessProvider clientProcessProvider;
 
     @BeforeEach
     public void beforeEach() {
-        this.serverProcessProvider = mock(ProcessProvider.class);
-        doReturn(12345L).when(this.serverProcessProvider).getCurrentPid();
-        this.clientProcessProvider = mock(ProcessProvider.class);
-        doReturn(98765L).when(this.clientProcessProvider).getCurrentPid();
+        this.fixture = new ShmemChannelFixture();
+        this.serverProcessProvider = this.fixture.getServerProcessProvider();
+        this.clientProcessProvider = this.fixture.getClientProcessProvider();
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception {
+        this.fixture.close();
     }
 
     public interface Async {
@@ -72,56 +85,20 @@ public class ShmemChannelTest {
         return future.get(secs, TimeUnit.SECONDS);
     }
 
-    public interface CreateChannelsConsumer {
-        void apply(ShmemServerChannel serverChannel, ShmemClientChannel clientChannel) throws Exception;
-    }
-
-    public interface ConnectChannelsConsumer {
-        void apply(ShmemChannelConnection serverConn, ShmemChannelConnection clientConn) throws Exception;
-    }
-
-    public void createChannels(CreateChannelsConsumer consumer) throws Exception {
+    public void createChannels(ShmemChannelFixture.CreateChannelsConsumer consumer) throws Exception {
         this.createChannels(2048L, true, consumer);
     }
 
-    public void createChannels(long size, boolean spinLocks, CreateChannelsConsumer consumer) throws Exception {
-        final Shmem serverShmem = new ShmemFactory()
-            .setSize(size)
-            .create();
-
-        final ShmemServerChannel serverChannel = DefaultShmemChannel.create(this.serverProcessProvider, serverShmem, spinLocks);
-
-        final Shmem clientShmem = new ShmemFactory()
-            .setOsId(serverShmem.getOsId())
-            .open();
-
-        final ShmemClientChannel clientChannel = DefaultShmemChannel.existing(this.clientProcessProvider, clientShmem);
-
-        consumer.apply(serverChannel, clientChannel);
-
-        // always cleanup
-        clientChannel.close();
-        serverChannel.close();
+    public void createChannels(long size, boolean spinLocks, ShmemChannelFixture.CreateChannelsConsumer consumer) throws Exception {
+        this.createChannels(size, spinLocks, false, consumer);
     }
 
-    private void connectChannels(ShmemServerChannel serverChannel, ShmemClientChannel clientChannel, ConnectChannelsConsumer consumer) throws Exception {
-        final Future<ShmemChannelConnection> acceptFuture = this.asyncResult(() -> {
-            return serverChannel.accept(2, TimeUnit.SECONDS);
-        });
-
-        // waitfor serverPid to be populated
-        WaitFor.requireMillis(() -> serverChannel.getServerPid() > 0, 2000L, 10L);
-
-        // client can now connect
-        ShmemChannelConnection clientConn = clientChannel.connect(3, TimeUnit.SECONDS);
-
-        ShmemChannelConnection serverConn = acceptFuture.get(4, TimeUnit.SECONDS);
-
-        consumer.apply(serverConn, clientConn);
+    public void createChannels(long size, boolean spinLocks, boolean ringBuffers, ShmemChannelFixture.CreateChannelsConsumer consumer) throws Exception {
+        this.fixture.createChannels(size, ShmemLockType.fromSpinLock(spinLocks), ringBuffers, consumer);
+    }
 
-        // always cleanup
-        clientConn.close();
-        serverConn.close();
+    private void connectChannels(ShmemServerChannel serverChannel, ShmemClientChannel clientChannel, ShmemChannelFixture.ConnectChannelsConsumer consumer) throws Exception {
+        this.fixture.connectChannels(serverChannel, clientChannel, consumer);
     }
 
     //
@@ -137,6 +114,40 @@ public class ShmemChannelTest {
         }
     }
 
+    @Test
+    public void waitStrategy() throws Exception {
+        final Path address = Files.createTempFile("shmemj-wait-strategy", ".shm");
+        Files.deleteIfExists(address);
+
+        try (final ShmemServerChannel serverChannel = new ShmemChannelFactory()
+                .setSize(2048L)
+                .setAddress(address)
+                .setProcessProvider(this.serverProcessProvider)
+                .setWaitStrategy(ShmemWaitStrategy.BUSY_SPIN)
+                .createServerChannel()) {
+
+            try (final ShmemClientChannel clientChannel = new ShmemChannelFactory()
+                    .setAddress(address)
+                    .setProcessProvider(this.clientProcessProvider)
+                    .setWaitStrategy(ShmemWaitStrategy.spinThenPark(1, 10, TimeUnit.MILLISECONDS))
+                    .createClientChannel()) {
+
+                // each side of the channel waits its own way
+                assertThat(((DefaultShmemChannel)serverChannel).getWaitStrategy(), is(ShmemWaitStrategy.BUSY_SPIN));
+                assertThat(((DefaultShmemChannel)clientChannel).getWaitStrategy().toString(), containsString("SpinThenPark"));
+
+                this.connectChannels(serverChannel, clientChannel, (serverConn, clientConn) -> {
+                    try (ShmemChannel.Write write = clientConn.write(2, TimeUnit.SECONDS)) {
+                        write.getBuffer().putInt(42);
+                    }
+                    try (ShmemChannel.Read read = serverConn.read(2, TimeUnit.SECONDS)) {
+                        assertThat(read.getBuffer().getInt(), is(42));
+                    }
+                });
+            }
+        }
+    }
+
     @Test
     public void existing() throws Exception {
         this.createChannels((serverChannel, clientChannel) -> {
@@ -165,7 +176,7 @@ public class ShmemChannelTest {
         try {
             // try to "existing" which is a non-initialized shmem
             final ShmemChannel channel = DefaultShmemChannel.existing(this.serverProcessProvider, clientShmem);
-        } catch (IllegalStateException e) {
+        } catch (ShmemChannelNotInitializedException e) {
             assertThat(e.getMessage(), containsString("unexpected magic value"));
         } finally {
             clientShmem.close();
@@ -669,6 +680,53 @@ public class ShmemChannelTest {
         });
     }
 
+    @Test
+    public void readFailureIfClientHeartbeatsStop() throws Exception {
+        this.readFailureIfClientHeartbeatsStop(false);
+    }
+
+    @Test
+    public void readFailureIfClientHeartbeatsStopWithSpinLocks() throws Exception {
+        this.readFailureIfClientHeartbeatsStop(true);
+    }
+
+    private void readFailureIfClientHeartbeatsStop(boolean spinLocks) throws Exception {
+        this.createChannels(2048L, spinLocks, (serverChannel, clientChannel) -> {
+            ((DefaultShmemChannel)serverChannel).setHeartbeat(20L, 300L);
+
+            this.connectChannels(serverChannel, clientChannel, ((serverConn, clientConn) -> {
+                // the process provider would say every process is dead, so only heartbeats keep the connection alive
+                // for longer than the heartbeat timeout
+                doReturn(false).when(this.serverProcessProvider).isAlive(anyLong());
+                try {
+                    serverConn.read(1500, TimeUnit.MILLISECONDS);
+                    fail();
+                } catch (TimeoutException e) {
+                    // expected
+                }
+                assertThat(serverConn.isClosed(), is(false));
+                verify(this.serverProcessProvider, never()).isAlive(anyLong());
+
+                // mimic the client hanging (alive, but no longer publishing its heartbeat)
+                ((DefaultShmemChannel)clientChannel).stopHeartbeat();
+
+                final long start = System.currentTimeMillis();
+                try {
+                    serverConn.read(10, TimeUnit.SECONDS);
+                    fail();
+                } catch (ShmemClosedConnectionException e) {
+                    // expected
+                    assertThat(e.getCause(), instanceOf(ShmemProcessDiedException.class));
+                }
+                // noticed within a small multiple of the heartbeat timeout, even though the read waits much longer
+                assertThat(System.currentTimeMillis() - start, lessThan(3 * 300L));
+
+                assertThat(serverConn.isClosed(), is(true));
+                assertThat(clientConn.isClosed(), is(true));
+            }));
+        });
+    }
+
     @Test
     public void writeFailureIfClientProcessDies() throws Exception {
         this.createChannels((serverChannel, clientChannel) -> {
@@ -769,4 +827,583 @@ public class ShmemChannelTest {
         });
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void readBufferLimitedToWrittenLength() throws Exception {
+        this.createChannels(5000, true, (serverChannel, clientChannel) -> {
+            this.connectChannels(serverChannel, clientChannel, ((serverConn, clientConn) -> {
+                try (ShmemChannel.Write write = serverConn.write(2, TimeUnit.SECONDS)) {
+                    write.getBuffer().putLong(1L);
+                    write.getBuffer().putLong(2L);
+                    write.getBuffer().putLong(3L);
+                }
+
+                try (ShmemChannel.Read read = clientConn.read(2, TimeUnit.SECONDS)) {
+                    assertThat(read.getBuffer().position(), is(0));
+                    assertThat(read.getBuffer().remaining(), is(24));
+                    assertThat(read.getBuffer().getLong(), is(1L));
+                }
+
+                // nothing written is an empty message
+                clientConn.write(2, TimeUnit.SECONDS).close();
+
+                try (ShmemChannel.Read read = serverConn.read(2, TimeUnit.SECONDS)) {
+                    assertThat(read.getBuffer().remaining(), is(0));
+                }
+
+                // a shorter message must not expose the tail of the previous longer one
+                try (ShmemChannel.Write write = serverConn.write(2, TimeUnit.SECONDS)) {
+                    write.getBuffer().putInt(7);
+                }
+
+                try (ShmemChannel.Read read = clientConn.read(2, TimeUnit.SECONDS)) {
+                    assertThat(read.getBuffer().remaining(), is(4));
+                    assertThat(read.getBuffer().getInt(), is(7));
+                }
+            }));
+        });
+    }
+
+    @Test
+    public void batchWriteAndRead() throws Exception {
+        this.createChannels(5000, true, (serverChannel, clientChannel) -> {
+            this.connectChannels(serverChannel, clientChannel, ((serverConn, clientConn) -> {
+                try (ShmemChannel.BatchWrite batch = clientConn.writeBatch(2, TimeUnit.SECONDS)) {
+                    for (int i = 0; i < 100; i++) {
+                        batch.next().putInt(i);
+                    }
+                    assertThat(batch.getCount(), is(100));
+                }
+
+                try (ShmemChannel.BatchRead batch = serverConn.readBatch(2, TimeUnit.SECONDS)) {
+                    assertThat(batch.getCount(), is(100));
+                    for (int i = 0; i < 100; i++) {
+                        assertThat(batch.hasNext(), is(true));
+                        final ByteBuffer record = batch.next();
+                        assertThat(record.remaining(), is(4));
+                        assertThat(record.getInt(), is(i));
+                    }
+                    assertThat(batch.hasNext(), is(false));
+                    assertThat(batch.next(), is(nullValue()));
+                }
+
+                // variable length records from existing buffers
+                final ByteBuffer a = ByteBuffer.wrap(new byte[] { 1, 2, 3 });
+                final ByteBuffer b = ByteBuffer.allocateDirect(0);
+                final ByteBuffer c = ByteBuffer.wrap(new byte[] { 4 });
+                serverConn.writeBatch(Arrays.asList(a, b, c), 2, TimeUnit.SECONDS);
+
+                assertThat(a.position(), is(0));
+
+                try (ShmemChannel.BatchRead batch = clientConn.readBatch(2, TimeUnit.SECONDS)) {
+                    assertThat(batch.getCount(), is(3));
+                    assertThat(batch.next().remaining(), is(3));
+                    assertThat(batch.next().remaining(), is(0));
+                    final ByteBuffer record = batch.next();
+                    assertThat(record.remaining(), is(1));
+                    assertThat(record.get(), is((byte)4));
+                }
+            }));
+        });
+    }
+
+    @Test
+    public void readAndWriteAllocateNothing() throws Exception {
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled(),
+            "thread allocated memory not supported by this jvm");
+        final long threadId = Thread.currentThread().getId();
+
+        this.createChannels(4096L, false, (serverChannel, clientChannel) -> {
+            this.connectChannels(serverChannel, clientChannel, ((serverConn, clientConn) -> {
+                // warmup (so class loading, lazy init and jit are not measured)
+                for (int i = 0; i < 20000; i++) {
+                    roundTrip(serverConn, clientConn, i);
+                }
+
+                // what measuring itself allocates (if anything)
+                final long baseline = -threadMXBean.getThreadAllocatedBytes(threadId) + threadMXBean.getThreadAllocatedBytes(threadId);
+
+                final long before = threadMXBean.getThreadAllocatedBytes(threadId);
+                for (int i = 0; i < 10000; i++) {
+                    roundTrip(serverConn, clientConn, i);
+                }
+                final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before - baseline;
+
+                assertThat(allocated, is(0L));
+            }));
+        });
+    }
+
+    static private void roundTrip(ShmemChannelConnection serverConn, ShmemChannelConnection clientConn, int i) throws Exception {
+        try (ShmemChannel.Write write = clientConn.write(2, TimeUnit.SECONDS)) {
+            write.getBuffer().putInt(i);
+        }
+        try (ShmemChannel.Read read = serverConn.read(2, TimeUnit.SECONDS)) {
+            if (read.getBuffer().getInt() != i) {
+                fail();
+            }
+        }
+        try (ShmemChannel.Write write = serverConn.write(2, TimeUnit.SECONDS)) {
+            write.getBuffer().putInt(i + 1);
+        }
+        try (ShmemChannel.Read read = clientConn.read(2, TimeUnit.SECONDS)) {
+            if (read.getBuffer().getInt() != i + 1) {
+                fail();
+            }
+        }
+    }
+
+    @Test
+    public void gatheringWriteAndScatteringRead() throws Exception {
+        for (boolean ringBuffers : new boolean[] { false, true }) {
+            this.createChannels(5000, ringBuffers, (serverChannel, clientChannel) -> {
+                this.connectChannels(serverChannel, clientChannel, ((serverConn, clientConn) -> {
+                    // header, metadata and payload in separate buffers
+                    final ByteBuffer header = ByteBuffer.allocateDirect(8).putInt(0xCAFE).putInt(3);
+                    header.flip();
+                    final ByteBuffer metadata = ByteBuffer.wrap(new byte[] { 7, 8 });
+                    final ByteBuffer payload = ByteBuffer.allocateDirect(1000);
+                    for (int i = 0; i < 1000; i++) {
+                        payload.put((byte)i);
+                    }
+                    payload.flip();
+
+                    final long written = clientConn.write(new ByteBuffer[] { header, metadata, payload }, 2, TimeUnit.SECONDS);
+                    assertThat(written, is(1010L));
+                    assertThat(header.hasRemaining(), is(false));
+                    assertThat(payload.hasRemaining(), is(false));
+
+                    final ByteBuffer readHeader = ByteBuffer.allocateDirect(8);
+                    final ByteBuffer readMetadata = ByteBuffer.allocate(2);
+                    final ByteBuffer readPayload = ByteBuffer.allocateDirect(2000);
+                    final long read = serverConn.read(new ByteBuffer[] { readHeader, readMetadata, readPayload }, 2, TimeUnit.SECONDS);
+                    assertThat(read, is(1010L));
+                    readHeader.flip();
+                    assertThat(readHeader.getInt(), is(0xCAFE));
+                    assertThat(readHeader.getInt(), is(3));
+                    assertThat(readMetadata.array(), is(new byte[] { 7, 8 }));
+                    readPayload.flip();
+                    assertThat(readPayload.remaining(), is(1000));
+                    for (int i = 0; i < 1000; i++) {
+                        assertThat(readPayload.get(), is((byte)i));
+                    }
+
+                    // a message longer than the buffers have room for
+                    serverConn.write(new ByteBuffer[] { ByteBuffer.wrap(new byte[10]) }, 2, TimeUnit.SECONDS);
+                    try {
+                        clientConn.read(new ByteBuffer[] { ByteBuffer.allocate(4), ByteBuffer.allocate(4) }, 2, TimeUnit.SECONDS);
+                        fail();
+                    } catch (BufferOverflowException e) {
+                        // expected
+                    }
+
+                    // gathering more than the write buffer holds
+                    try {
+                        clientConn.write(new ByteBuffer[] { ByteBuffer.allocate(5000) }, 2, TimeUnit.SECONDS);
+                        fail();
+                    } catch (IllegalArgumentException e) {
+                        // expected
+                    }
+                }));
+            });
+        }
+    }
+
+    @Test
+    public void ringBuffers() throws Exception {
+        this.createChannels(4096L, true, true, (serverChannel, clientChannel) -> {
+            assertThat(serverChannel.isRingBuffers(), is(true));
+            assertThat(clientChannel.isRingBuffers(), is(true));
+            assertThat(serverChannel.getWriteBufferSize(), is(clientChannel.getReadBufferSize()));
+            assertThat(serverChannel.getReadBufferSize(), is(clientChannel.getWriteBufferSize()));
+
+            this.connectChannels(serverChannel, clientChannel, ((serverConn, clientConn) -> {
+                // client can write many messages without the server reading any of them
+                for (int i = 0; i < 10; i++) {
+                    try (ShmemChannel.Write write = clientConn.write(16, 2, TimeUnit.SECONDS)) {
+                        assertThat(write.getBuffer().remaining(), is(16));
+                        write.getBuffer().putInt(i);
+                    }
+                }
+
+                for (int i = 0; i < 10; i++) {
+                    try (ShmemChannel.Read read = serverConn.read(2, TimeUnit.SECONDS)) {
+                        assertThat(read.getBuffer().remaining(), is(4));
+                        assertThat(read.getBuffer().getInt(), is(i));
+                    }
+                }
+
+                // ring is empty, so reading should timeout
+                try {
+                    serverConn.read(50L, TimeUnit.MILLISECONDS);
+                    fail();
+                } catch (TimeoutException e) {
+                    // expected
+                }
+            }));
+        });
+    }
+
+    @Test
+    public void ringBuffersWrapAroundAndBlockWhenFull() throws Exception {
+        this.createChannels(4096L, true, true, (serverChannel, clientChannel) -> {
+            this.connectChannels(serverChannel, clientChannel, ((serverConn, clientConn) -> {
+                // fill up the ring until the writer would block
+                int written = 0;
+                try {
+                    for (;;) {
+                        try (ShmemChannel.Write write = serverConn.write(100, 50L, TimeUnit.MILLISECONDS)) {
+                            write.getBuffer().putInt(written);
+                        }
+                        written++;
+                    }
+                } catch (TimeoutException e) {
+                    // expected
+                }
+
+                assertThat(written, greaterThan(1));
+
+                // reader consumes concurrently, while the writer keeps going with varying sizes (forcing wrap arounds)
+                final int total = written + 500;
+                final Future<?> readFuture = this.async(() -> {
+                    for (int i = 0; i < total; i++) {
+                        try (ShmemChannel.Read read = clientConn.read(2, TimeUnit.SECONDS)) {
+                            assertThat(read.getBuffer().getInt(), is(i));
+                            while (read.getBuffer().hasRemaining()) {
+                                assertThat(read.getBuffer().get(), is((byte)i));
+                            }
+                        }
+                    }
+                });
+
+                for (int i = written; i < total; i++) {
+                    try (ShmemChannel.Write write = serverConn.write(4 + (i % 300), 2, TimeUnit.SECONDS)) {
+                        write.getBuffer().putInt(i);
+                        while (write.getBuffer().hasRemaining()) {
+                            write.getBuffer().put((byte)i);
+                        }
+                    }
+                }
+
+                this.awaitSecs(readFuture, 5);
+            }));
+        });
+    }
+
+
+    @Test
+    public void slots() throws Exception {
+        final Shmem serverShmem = new ShmemFactory()
+            .setSize(3 * 2048L)
+            .create();
+
+        final ShmemServerChannel serverChannel = SlottedShmemChannel.create(this.serverProcessProvider, serverShmem, ShmemLockType.SPIN, false, 3);
+
+        final Shmem[] clientShmems = new Shmem[4];
+        final ShmemClientChannel[] clientChannels = new ShmemClientChannel[4];
+        for (int i = 0; i < 4; i++) {
+            clientShmems[i] = new ShmemFactory().setOsId(serverShmem.getOsId()).open();
+            final DefaultShmemChannel firstSlot = DefaultShmemChannel.existing(this.clientProcessProvider, clientShmems[i]);
+            clientChannels[i] = SlottedShmemChannel.existing(this.clientProcessProvider, clientShmems[i], firstSlot);
+        }
+
+        try {
+            assertThat(serverChannel.getSlotCount(), is(3));
+            assertThat(clientChannels[0].getSlotCount(), is(3));
+            assertThat(serverChannel.getWriteBufferSize(), is(clientChannels[0].getReadBufferSize()));
+
+            // 3 clients can all be connected at once
+            final ShmemChannelConnection[] serverConns = new ShmemChannelConnection[3];
+            final ShmemChannelConnection[] clientConns = new ShmemChannelConnection[3];
+            for (int i = 0; i < 3; i++) {
+                final Future<ShmemChannelConnection> acceptFuture = this.asyncResult(() -> serverChannel.accept(2, TimeUnit.SECONDS));
+                clientConns[i] = clientChannels[i].connect(2, TimeUnit.SECONDS);
+                serverConns[i] = this.awaitSecs(acceptFuture, 5);
+            }
+
+            // every connection is independent of the others
+            for (int i = 0; i < 3; i++) {
+                try (ShmemChannel.Write write = clientConns[i].write(2, TimeUnit.SECONDS)) {
+                    write.getBuffer().putInt(i);
+                }
+            }
+            for (int i = 0; i < 3; i++) {
+                try (ShmemChannel.Read read = serverConns[i].read(2, TimeUnit.SECONDS)) {
+                    assertThat(read.getBuffer().getInt(), is(i));
+                }
+            }
+
+            // all slots are in use, so the server cannot accept another client
+            try {
+                serverChannel.accept(50L, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (TimeoutException e) {
+                // expected
+            }
+
+            // once a connection is closed its slot is handed out again
+            clientConns[1].close();
+            serverConns[1].close();
+
+            final Future<ShmemChannelConnection> acceptFuture = this.asyncResult(() -> serverChannel.accept(2, TimeUnit.SECONDS));
+            final ShmemChannelConnection clientConn = clientChannels[3].connect(2, TimeUnit.SECONDS);
+            final ShmemChannelConnection serverConn = this.awaitSecs(acceptFuture, 5);
+
+            try (ShmemChannel.Write write = serverConn.write(2, TimeUnit.SECONDS)) {
+                write.getBuffer().putInt(42);
+            }
+            try (ShmemChannel.Read read = clientConn.read(2, TimeUnit.SECONDS)) {
+                assertThat(read.getBuffer().getInt(), is(42));
+            }
+        } finally {
+            for (int i = 0; i < 4; i++) {
+                clientChannels[i].close();
+            }
+            serverChannel.close();
+        }
+    }
+
+    @Test
+    public void slotsClientCloseLeavesOtherClientsConnected() throws Exception {
+        final Shmem serverShmem = new ShmemFactory()
+            .setSize(3 * 2048L)
+            .create();
+
+        final ShmemServerChannel serverChannel = SlottedShmemChannel.create(this.serverProcessProvider, serverShmem, ShmemLockType.SPIN, false, 3);
+
+        // every client is its own process
+        final ShmemClientChannel[] clientChannels = new ShmemClientChannel[3];
+        for (int i = 0; i < 3; i++) {
+            final ProcessProvider processProvider = ShmemChannelFixture.mockProcessProvider(ShmemChannelFixture.CLIENT_PID + i);
+            final Shmem clientShmem = new ShmemFactory().setOsId(serverShmem.getOsId()).open();
+            final DefaultShmemChannel firstSlot = DefaultShmemChannel.existing(processProvider, clientShmem);
+            clientChannels[i] = SlottedShmemChannel.existing(processProvider, clientShmem, firstSlot);
+        }
+
+        try {
+            final ShmemChannelConnection[] serverConns = new ShmemChannelConnection[3];
+            final ShmemChannelConnection[] clientConns = new ShmemChannelConnection[3];
+            for (int i = 0; i < 3; i++) {
+                final Future<ShmemChannelConnection> acceptFuture = this.asyncResult(() -> serverChannel.accept(2, TimeUnit.SECONDS));
+                clientConns[i] = clientChannels[i].connect(2, TimeUnit.SECONDS);
+                serverConns[i] = this.awaitSecs(acceptFuture, 5);
+            }
+
+            // the first client goes away entirely
+            clientChannels[0].close();
+
+            try {
+                serverConns[0].read(2, TimeUnit.SECONDS);
+                fail();
+            } catch (ShmemClosedConnectionException e) {
+                // expected
+            }
+
+            // while the others are still connected, both ways
+            for (int i = 1; i < 3; i++) {
+                assertThat(clientConns[i].isClosed(), is(false));
+                try (ShmemChannel.Write write = clientConns[i].write(2, TimeUnit.SECONDS)) {
+                    write.getBuffer().putInt(i);
+                }
+                try (ShmemChannel.Read read = serverConns[i].read(2, TimeUnit.SECONDS)) {
+                    assertThat(read.getBuffer().getInt(), is(i));
+                }
+                try (ShmemChannel.Write write = serverConns[i].write(2, TimeUnit.SECONDS)) {
+                    write.getBuffer().putInt(i * 10);
+                }
+                try (ShmemChannel.Read read = clientConns[i].read(2, TimeUnit.SECONDS)) {
+                    assertThat(read.getBuffer().getInt(), is(i * 10));
+                }
+            }
+        } finally {
+            for (int i = 0; i < 3; i++) {
+                clientChannels[i].close();
+            }
+            serverChannel.close();
+        }
+    }
+
+    @Test
+    public void tryReadAndTryWrite() throws Exception {
+        this.createChannels((serverChannel, clientChannel) -> {
+            this.connectChannels(serverChannel, clientChannel, ((serverConn, clientConn) -> {
+                // nothing written yet
+                assertThat(clientConn.isReadable(), is(false));
+                assertThat(clientConn.tryRead(), is(nullValue()));
+                assertThat(serverConn.isWritable(), is(true));
+
+                try (ShmemChannel.Write write = serverConn.tryWrite()) {
+                    write.getBuffer().putInt(1);
+                }
+
+                // ping-pong buffer is full until the client reads it
+                assertThat(serverConn.isWritable(), is(false));
+                assertThat(serverConn.tryWrite(), is(nullValue()));
+                assertThat(clientConn.isReadable(), is(true));
+                // the other direction is independent
+                assertThat(clientConn.isWritable(), is(true));
+                assertThat(serverConn.isReadable(), is(false));
+
+                try (ShmemChannel.Read read = clientConn.tryRead()) {
+                    assertThat(read.getBuffer().remaining(), is(4));
+                    assertThat(read.getBuffer().getInt(), is(1));
+                }
+
+                assertThat(clientConn.isReadable(), is(false));
+                assertThat(serverConn.isWritable(), is(true));
+
+                // a signal left latched by the try methods does not trick a blocking read into reading nothing
+                try {
+                    clientConn.read(50L, TimeUnit.MILLISECONDS);
+                    fail();
+                } catch (TimeoutException e) {
+                    // expected
+                }
+
+                // mixing blocking and non-blocking calls still works
+                try (ShmemChannel.Write write = serverConn.write(2, TimeUnit.SECONDS)) {
+                    write.getBuffer().putInt(2);
+                }
+                try (ShmemChannel.Read read = clientConn.tryRead()) {
+                    assertThat(read.getBuffer().getInt(), is(2));
+                }
+                try (ShmemChannel.Write write = serverConn.tryWrite(4)) {
+                    write.getBuffer().putInt(3);
+                }
+                try (ShmemChannel.Read read = clientConn.read(2, TimeUnit.SECONDS)) {
+                    assertThat(read.getBuffer().getInt(), is(3));
+                }
+            }));
+        });
+    }
+
+    @Test
+    public void tryReadAndTryWriteWithRingBuffers() throws Exception {
+        this.createChannels(4096L, true, true, (serverChannel, clientChannel) -> {
+            this.connectChannels(serverChannel, clientChannel, ((serverConn, clientConn) -> {
+                assertThat(serverConn.isReadable(), is(false));
+                assertThat(serverConn.tryRead(), is(nullValue()));
+
+                // write until the ring is full
+                int written = 0;
+                ShmemChannel.Write write;
+                while ((write = clientConn.tryWrite(100)) != null) {
+                    try (ShmemChannel.Write w = write) {
+                        w.getBuffer().putInt(written++);
+                    }
+                }
+                assertThat(written, greaterThan(1));
+                assertThat(clientConn.isWritable(), is(false));
+                assertThat(serverConn.isReadable(), is(true));
+
+                for (int i = 0; i < written; i++) {
+                    try (ShmemChannel.Read read = serverConn.tryRead()) {
+                        assertThat(read.getBuffer().getInt(), is(i));
+                    }
+                }
+
+                assertThat(serverConn.isReadable(), is(false));
+                assertThat(clientConn.isWritable(), is(true));
+            }));
+        });
+    }
+
+    @Test
+    public void readAndWriteAsync() throws Exception {
+        this.createChannels((serverChannel, clientChannel) -> {
+            this.connectChannels(serverChannel, clientChannel, ((serverConn, clientConn) -> {
+                // nothing to read yet, so this is completed later by the shared waiter thread
+                final CompletableFuture<Integer> readFuture = serverConn.readAsync(5, TimeUnit.SECONDS)
+                    .thenApply(read -> {
+                        try (ShmemChannel.Read r = read) {
+                            return r.getBuffer().getInt();
+                        } catch (Exception e) {
+                            throw new CompletionException(e);
+                        }
+                    })
+                    .toCompletableFuture();
+
+                assertThat(readFuture.isDone(), is(false));
+
+                // only one async read in flight at a time
+                try {
+                    serverConn.readAsync(1, TimeUnit.SECONDS);
+                    fail();
+                } catch (IllegalStateException e) {
+                    // expected
+                }
+
+                // writable right away, so completed on this thread
+                final CompletableFuture<ShmemChannel.Write> writeFuture = clientConn.writeAsync(4, 5, TimeUnit.SECONDS).toCompletableFuture();
+                assertThat(writeFuture.isDone(), is(true));
+                try (ShmemChannel.Write write = writeFuture.get()) {
+                    write.getBuffer().putInt(42);
+                }
+
+                assertThat(readFuture.get(5, TimeUnit.SECONDS), is(42));
+
+                // the client has not read anything yet, so the next server write stays pending until it does
+                try (ShmemChannel.Write write = serverConn.write(2, TimeUnit.SECONDS)) {
+                    write.getBuffer().putInt(1);
+                }
+                final CompletableFuture<ShmemChannel.Write> pendingWrite = serverConn.writeAsync(5, TimeUnit.SECONDS).toCompletableFuture();
+                assertThat(pendingWrite.isDone(), is(false));
+                try (ShmemChannel.Read read = clientConn.read(2, TimeUnit.SECONDS)) {
+                    assertThat(read.getBuffer().getInt(), is(1));
+                }
+                try (ShmemChannel.Write write = pendingWrite.get(5, TimeUnit.SECONDS)) {
+                    write.getBuffer().putInt(2);
+                }
+                try (ShmemChannel.Read read = clientConn.read(2, TimeUnit.SECONDS)) {
+                    assertThat(read.getBuffer().getInt(), is(2));
+                }
+
+                // times out
+                try {
+                    clientConn.readAsync(50L, TimeUnit.MILLISECONDS).toCompletableFuture().get(5, TimeUnit.SECONDS);
+                    fail();
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause(), instanceOf(TimeoutException.class));
+                }
+            }));
+        });
+    }
+
+    @Test
+    public void cancelledWriteAsyncIsNeverPublished() throws Exception {
+        this.createChannels((serverChannel, clientChannel) -> {
+            this.connectChannels(serverChannel, clientChannel, ((serverConn, clientConn) -> {
+                // the client has not read anything yet, so the write stays pending
+                try (ShmemChannel.Write write = serverConn.write(2, TimeUnit.SECONDS)) {
+                    write.getBuffer().putInt(1);
+                }
+                final CompletableFuture<ShmemChannel.Write> pendingWrite = serverConn.writeAsync(5, TimeUnit.SECONDS).toCompletableFuture();
+                assertThat(pendingWrite.isDone(), is(false));
+
+                pendingWrite.cancel(false);
+
+                // frees up the write, which the cancelled one must not claim and publish
+                try (ShmemChannel.Read read = clientConn.read(2, TimeUnit.SECONDS)) {
+                    assertThat(read.getBuffer().getInt(), is(1));
+                }
+
+                try {
+                    clientConn.read(250L, TimeUnit.MILLISECONDS);
+                    fail();
+                } catch (TimeoutException e) {
+                    // expected
+                }
+
+                // and the server is free to write again
+                try (ShmemChannel.Write write = serverConn.write(2, TimeUnit.SECONDS)) {
+                    write.getBuffer().putInt(2);
+                }
+                try (ShmemChannel.Read read = clientConn.read(2, TimeUnit.SECONDS)) {
+                    assertThat(read.getBuffer().getInt(), is(2));
+                }
+            }));
+        });
+    }
+
+}
@@ -9,7 +9,11 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public class ShmemConditionTest {
 
@@ -73,6 +77,330 @@ public class ShmemConditionTest {
         }
     }
 
+    @Test
+    public void futexLock() throws Exception {
+        assumeTrue(Shmem.isFutexSupported(), "futex conditions not supported by this platform or native library");
+
+        final Shmem shmem = new ShmemFactory()
+            .setSize(2048L)
+            .create();
+
+        try {
+            final ShmemCondition condition1 = shmem.newCondition(0, ShmemLockType.FUTEX, true);
+            final ShmemCondition condition2 = shmem.existingCondition(0, ShmemLockType.FUTEX);
+
+            assertThat(condition1.getSize(), is(8L));
+            assertThat(condition1.getLockType(), is(ShmemLockType.FUTEX));
+
+            boolean signaled;
+
+            // with no signal, we should timeout
+            signaled = condition2.await(10, TimeUnit.MILLISECONDS);
+            assertThat(signaled, is(false));
+
+            // signal is latched, so we shouldn't actually need to wait
+            condition1.signal();
+            signaled = condition2.await(10, TimeUnit.MILLISECONDS);
+            assertThat(signaled, is(true));
+
+            // auto reset means its consumed
+            signaled = condition2.await(10, TimeUnit.MILLISECONDS);
+            assertThat(signaled, is(false));
+
+            // wake up a waiter from another thread
+            final CountDownLatch signaledLatch = new CountDownLatch(1);
+            final Thread t = new Thread(() -> {
+                try {
+                    if (condition2.await(5, TimeUnit.SECONDS)) {
+                        signaledLatch.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            });
+            t.start();
+            Thread.sleep(50L);
+            condition1.signal();
+
+            if (!signaledLatch.await(5, TimeUnit.SECONDS)) {
+                fail("await was NOT signaled");
+            }
+        } finally {
+            shmem.close();
+        }
+    }
+
+    @Test
+    public void futexLockUnsupported() throws Exception {
+        assumeFalse(Shmem.isFutexSupported());
+
+        final Shmem shmem = new ShmemFactory()
+            .setSize(2048L)
+            .create();
+
+        try {
+            assertThrows(UnsupportedOperationException.class, () -> shmem.newCondition(0, ShmemLockType.FUTEX, true));
+        } finally {
+            shmem.close();
+        }
+    }
+
+    @Test
+    public void waitStrategies() throws Exception {
+        final Shmem shmem = new ShmemFactory()
+            .setSize(2048L)
+            .create();
+
+        final ShmemWaitStrategy[] waitStrategies = new ShmemWaitStrategy[] {
+            ShmemWaitStrategy.BUSY_SPIN,
+            ShmemWaitStrategy.YIELDING,
+            ShmemWaitStrategy.BLOCKING,
+            ShmemWaitStrategy.BACKOFF,
+            ShmemWaitStrategy.spinThenPark(1, 5, TimeUnit.MILLISECONDS),
+            ShmemWaitStrategy.OFFLOADED
+        };
+
+        try {
+            for (ShmemLockType lockType : new ShmemLockType[] { ShmemLockType.THREAD, ShmemLockType.SPIN }) {
+                for (ShmemWaitStrategy waitStrategy : waitStrategies) {
+                    final ShmemCondition condition = shmem.newCondition(0, lockType, true, waitStrategy);
+                    try {
+                        assertThat(condition.getWaitStrategy(), is(waitStrategy));
+
+                        // with no signal, we should timeout
+                        assertThat(condition.await(20, TimeUnit.MILLISECONDS), is(false));
+
+                        // signal is latched, so we shouldn't actually need to wait
+                        condition.signal();
+                        assertThat(condition.await(20, TimeUnit.MILLISECONDS), is(true));
+
+                        // wake up a waiter from another thread
+                        final CountDownLatch signaledLatch = new CountDownLatch(1);
+                        final Thread t = new Thread(() -> {
+                            try {
+                                if (condition.await(5, TimeUnit.SECONDS)) {
+                                    signaledLatch.countDown();
+                                }
+                            } catch (InterruptedException e) {
+                                // ignore
+                            }
+                        });
+                        t.start();
+                        Thread.sleep(20L);
+                        condition.signal();
+
+                        if (!signaledLatch.await(5, TimeUnit.SECONDS)) {
+                            fail("await was NOT signaled using " + lockType + " lock and " + waitStrategy);
+                        }
+                    } finally {
+                        condition.close();
+                    }
+                }
+            }
+        } finally {
+            shmem.close();
+        }
+    }
+
+    @Test
+    public void defaultWaitStrategies() throws Exception {
+        final Shmem shmem = new ShmemFactory()
+            .setSize(2048L)
+            .create();
+
+        try {
+            assertThat(shmem.newCondition(0, true, true).getWaitStrategy(), is(ShmemWaitStrategy.BACKOFF));
+            assertThat(shmem.newCondition(1024, false, true).getWaitStrategy(), is(ShmemWaitStrategy.BLOCKING));
+        } finally {
+            shmem.close();
+        }
+    }
+
+    static private boolean isNativeTryAwaitSupported(ShmemCondition condition) {
+        try {
+            condition.nativeTryAwait();
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            // native library is older than tryAwait
+            return false;
+        }
+    }
+
+    @Test
+    public void tryAwait() throws Exception {
+        final Shmem shmem = new ShmemFactory()
+            .setSize(2048L)
+            .create();
+
+        try {
+            final ShmemCondition autoReset = shmem.newCondition(0, ShmemLockType.THREAD, true);
+            final ShmemCondition manualReset = shmem.newCondition(1024, ShmemLockType.SPIN, false);
+
+            assertThat(autoReset.tryAwait(), is(false));
+            autoReset.signal();
+            assertThat(autoReset.tryAwait(), is(true));
+            // consumed
+            assertThat(autoReset.tryAwait(), is(false));
+
+            assertThat(manualReset.tryAwait(), is(false));
+            manualReset.signal();
+            assertThat(manualReset.tryAwait(), is(true));
+            assertThat(manualReset.tryAwait(), is(true));
+            manualReset.clear();
+            assertThat(manualReset.tryAwait(), is(false));
+
+            // without the native, it falls back to a native wait of a milli
+            assumeTrue(isNativeTryAwaitSupported(autoReset), "tryAwait not supported by the native library");
+
+            // never waits, so many checks take far less than a milli each
+            final long start = System.nanoTime();
+            for (int i = 0; i < 1000; i++) {
+                assertThat(autoReset.tryAwait(), is(false));
+            }
+            assertThat(System.nanoTime() - start, lessThan(TimeUnit.MILLISECONDS.toNanos(500L)));
+        } finally {
+            shmem.close();
+        }
+    }
+
+    @Test
+    public void awaitIsInterruptibleWithBusySpin() throws Exception {
+        final Shmem shmem = new ShmemFactory()
+            .setSize(2048L)
+            .create();
+
+        final ShmemCondition condition = shmem.newCondition(0, ShmemLockType.SPIN, true, ShmemWaitStrategy.BUSY_SPIN);
+
+        try {
+            final CountDownLatch interruptedLatch = new CountDownLatch(1);
+            final Thread t = new Thread(() -> {
+                try {
+                    condition.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interruptedLatch.countDown();
+                }
+            });
+            t.start();
+
+            t.interrupt();
+
+            if (!interruptedLatch.await(5, TimeUnit.SECONDS)) {
+                fail("await was NOT interrupted");
+            }
+        } finally {
+            condition.close();
+            shmem.close();
+        }
+    }
+
+    @Test
+    public void offloadedWaitsManyAtOnce() throws Exception {
+        final Shmem shmem = new ShmemFactory()
+            .setSize(64 * 1024L)
+            .create();
+
+        // far more waiters than the pool has threads
+        final ShmemWaitStrategy waitStrategy = ShmemWaitStrategy.offloaded(1);
+        final int waiters = 20;
+        final ShmemCondition[] conditions = new ShmemCondition[waiters];
+        final CountDownLatch signaledLatch = new CountDownLatch(waiters);
+
+        try {
+            long offset = 0;
+            for (int i = 0; i < waiters; i++) {
+                conditions[i] = shmem.newCondition(offset, ShmemLockType.THREAD, true, waitStrategy);
+                offset += conditions[i].getSize();
+            }
+
+            for (int i = 0; i < waiters; i++) {
+                final ShmemCondition condition = conditions[i];
+                final Thread t = new Thread(() -> {
+                    try {
+                        if (condition.await(10, TimeUnit.SECONDS)) {
+                            signaledLatch.countDown();
+                        }
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                });
+                t.start();
+            }
+
+            Thread.sleep(50L);
+            for (ShmemCondition condition : conditions) {
+                condition.signal();
+            }
+
+            if (!signaledLatch.await(5, TimeUnit.SECONDS)) {
+                fail("Only " + (waiters - signaledLatch.getCount()) + " of " + waiters + " offloaded waits were signaled");
+            }
+
+            // interrupting a parked waiter cancels its wait
+            final CountDownLatch interruptedLatch = new CountDownLatch(1);
+            final Thread t = new Thread(() -> {
+                try {
+                    conditions[0].await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interruptedLatch.countDown();
+                }
+            });
+            t.start();
+            Thread.sleep(20L);
+            t.interrupt();
+
+            if (!interruptedLatch.await(5, TimeUnit.SECONDS)) {
+                fail("offloaded await was NOT interrupted");
+            }
+            assertThat(waitStrategy.toString(), is("Offloaded{threads=1}"));
+        } finally {
+            for (ShmemCondition condition : conditions) {
+                if (condition != null) {
+                    condition.close();
+                }
+            }
+            shmem.close();
+        }
+    }
+
+    @Test
+    public void offloadedFansOutSignalToWaitersOfSameCondition() throws Exception {
+        final Shmem shmem = new ShmemFactory()
+            .setSize(2048L)
+            .create();
+
+        // a manual reset condition stays signaled, so one signal is handed to every waiter
+        final ShmemCondition condition = shmem.newCondition(0, ShmemLockType.THREAD, false, ShmemWaitStrategy.offloaded(1));
+        final int waiters = 10;
+        final CountDownLatch signaledLatch = new CountDownLatch(waiters);
+
+        try {
+            for (int i = 0; i < waiters; i++) {
+                final Thread t = new Thread(() -> {
+                    try {
+                        if (condition.await(10, TimeUnit.SECONDS)) {
+                            signaledLatch.countDown();
+                        }
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                });
+                t.start();
+            }
+
+            // a waiter that gives up early does not hold up the others
+            assertThat(condition.await(10, TimeUnit.MILLISECONDS), is(false));
+
+            condition.signal();
+
+            if (!signaledLatch.await(5, TimeUnit.SECONDS)) {
+                fail("Only " + (waiters - signaledLatch.getCount()) + " of " + waiters + " offloaded waits were signaled");
+            }
+        } finally {
+            condition.close();
+            shmem.close();
+        }
+    }
+
     @Test
     public void destroyingShmemInvalidatesNativeCalls() throws Exception {
         final Shmem shmem = new ShmemFactory()
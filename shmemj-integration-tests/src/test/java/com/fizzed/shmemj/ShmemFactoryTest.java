@@ -76,6 +76,7 @@ public class ShmemFactoryTest {
                 .setOsId("/shmem_thisdoesnotexist")
                 .open();
         } catch (Exception e) {
+            assertThat(e, instanceOf(ShmemNotFoundException.class));
             assertThat(e.getMessage(), containsString("MapOpenFailed"));
         }
     }
@@ -0,0 +1,204 @@
+package com.fizzed.shmemj;
+
+import com.fizzed.crux.util.WaitFor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ShmemFlowTest {
+
+    private final ShmemChannelFixture fixture = new ShmemChannelFixture();
+    private ShmemChannelConnection serverConn;
+    private ShmemChannelConnection clientConn;
+
+    @BeforeEach
+    public void beforeEach() throws Exception {
+        // both ends stay alive for the whole test, even if a write has to wait more than a second
+        this.fixture.setAlive(true).connect(4096L, ShmemLockType.THREAD, false);
+        this.serverConn = this.fixture.getServerConn();
+        this.clientConn = this.fixture.getClientConn();
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception {
+        this.fixture.close();
+    }
+
+    /**
+     * Emits sequential longs as they are requested, keeping track of how many were requested.
+     */
+    static private class CountingPublisher implements Flow.Publisher<ByteBuffer> {
+        private final long count;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        private CountingPublisher(long count) {
+            this.count = count;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private long next = 0;
+
+                @Override
+                public synchronized void request(long n) {
+                    requested.addAndGet(n);
+                    for (long i = 0; i < n && next < count && !cancelled.get(); i++) {
+                        subscriber.onNext((ByteBuffer)ByteBuffer.allocate(8).putLong(next++).flip());
+                    }
+                    if (next == count) {
+                        next++;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                }
+            });
+        }
+    }
+
+    static private class CollectingSubscriber implements Flow.Subscriber<ByteBuffer> {
+        private final long initialRequest;
+        private final List<Long> items = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        // rule 1.3, signals never overlap (including one signal from within another)
+        private final AtomicInteger signaling = new AtomicInteger();
+        private final AtomicBoolean overlapped = new AtomicBoolean();
+        private volatile Flow.Subscription subscription;
+
+        private CollectingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        private void enter() {
+            if (this.signaling.incrementAndGet() != 1) {
+                this.overlapped.set(true);
+            }
+        }
+
+        private void exit() {
+            this.signaling.decrementAndGet();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.enter();
+            try {
+                this.subscription = subscription;
+                subscription.request(this.initialRequest);
+            } finally {
+                this.exit();
+            }
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            this.enter();
+            try {
+                this.items.add(item.getLong());
+            } finally {
+                this.exit();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.enter();
+            try {
+                this.error.set(throwable);
+                this.completed.countDown();
+            } finally {
+                this.exit();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            this.enter();
+            try {
+                this.completed.countDown();
+            } finally {
+                this.exit();
+            }
+        }
+    }
+
+    @Test
+    public void streamsEveryItemInOrder() throws Exception {
+        final CountingPublisher upstream = new CountingPublisher(500);
+        upstream.subscribe(new ShmemFlowSubscriber(this.serverConn));
+
+        final CollectingSubscriber downstream = new CollectingSubscriber(Long.MAX_VALUE);
+        new ShmemFlowPublisher(this.clientConn).subscribe(downstream);
+
+        assertThat(downstream.completed.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(downstream.error.get(), is(nullValue()));
+        assertThat(downstream.items.size(), is(500));
+        for (int i = 0; i < 500; i++) {
+            assertThat(downstream.items.get(i), is((long)i));
+        }
+        assertThat(downstream.overlapped.get(), is(false));
+    }
+
+    @Test
+    public void invalidRequestFailsDownstreamAndCancelsUpstream() throws Exception {
+        final CountingPublisher upstream = new CountingPublisher(100);
+        upstream.subscribe(new ShmemFlowSubscriber(this.serverConn));
+
+        // requests 0 from within onSubscribe, whose onError must only follow once onSubscribe returned
+        final CollectingSubscriber downstream = new CollectingSubscriber(0);
+        new ShmemFlowPublisher(this.clientConn).subscribe(downstream);
+
+        assertThat(downstream.completed.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(downstream.error.get(), instanceOf(IllegalArgumentException.class));
+        assertThat(downstream.overlapped.get(), is(false));
+        WaitFor.requireMillis(upstream.cancelled::get, 5000L, 10L);
+        assertThat(upstream.requested.get(), is(0L));
+    }
+
+    @Test
+    public void demandPropagatesAcrossProcesses() throws Exception {
+        final CountingPublisher upstream = new CountingPublisher(100);
+        upstream.subscribe(new ShmemFlowSubscriber(this.serverConn));
+
+        final CollectingSubscriber downstream = new CollectingSubscriber(5);
+        new ShmemFlowPublisher(this.clientConn).subscribe(downstream);
+
+        WaitFor.requireMillis(() -> downstream.items.size() == 5, 5000L, 10L);
+        Thread.sleep(100L);
+
+        // upstream was only asked for what downstream requested
+        assertThat(upstream.requested.get(), is(5L));
+        assertThat(downstream.items.size(), is(5));
+
+        downstream.subscription.request(10);
+        WaitFor.requireMillis(() -> downstream.items.size() == 15, 5000L, 10L);
+        assertThat(upstream.requested.get(), is(15L));
+
+        // cancelling downstream cancels upstream
+        downstream.subscription.cancel();
+        WaitFor.requireMillis(upstream.cancelled::get, 5000L, 10L);
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.fizzed.shmemj;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShmemFlyweightTest {
+
+    static private class Quote extends ShmemFlyweight {
+        static private final int ID = 0;
+        static private final int PRICE = 8;
+        static private final int SIZE = 16;
+        static private final int SIDE = 20;
+        static private final int SYMBOL = 21;
+        static private final int SYMBOL_LENGTH = 8;
+
+        @Override
+        public int getEncodedLength() {
+            return SYMBOL + SYMBOL_LENGTH;
+        }
+
+        @Override
+        public Quote wrap(ByteBuffer buffer, int offset) {
+            super.wrap(buffer, offset);
+            return this;
+        }
+
+        public long getId() {
+            return this.getLong(ID);
+        }
+
+        public Quote setId(long id) {
+            this.putLong(ID, id);
+            return this;
+        }
+
+        public double getPrice() {
+            return this.getDouble(PRICE);
+        }
+
+        public Quote setPrice(double price) {
+            this.putDouble(PRICE, price);
+            return this;
+        }
+
+        public int getSize() {
+            return this.getInt(SIZE);
+        }
+
+        public Quote setSize(int size) {
+            this.putInt(SIZE, size);
+            return this;
+        }
+
+        public byte getSide() {
+            return this.getByte(SIDE);
+        }
+
+        public Quote setSide(byte side) {
+            this.putByte(SIDE, side);
+            return this;
+        }
+
+        public void getSymbol(StringBuilder dst) {
+            this.getAscii(SYMBOL, SYMBOL_LENGTH, dst);
+        }
+
+        public Quote setSymbol(CharSequence symbol) {
+            this.putAscii(SYMBOL, SYMBOL_LENGTH, symbol);
+            return this;
+        }
+    }
+
+    @Test
+    public void encodeAndDecodeInPlaceAcrossConnection() throws Exception {
+        try (ShmemChannelFixture fixture = new ShmemChannelFixture().connect(4096L, ShmemLockType.THREAD, false)) {
+            final ShmemChannelConnection clientConn = fixture.getClientConn();
+            final ShmemChannelConnection serverConn = fixture.getServerConn();
+
+            // several messages back to back in a single write, encoded with one reused flyweight
+            final Quote quote = new Quote();
+            try (ShmemChannel.Write write = clientConn.write(2, TimeUnit.SECONDS)) {
+                for (int i = 0; i < 10; i++) {
+                    quote.wrap(write.getBuffer(), write.getBuffer().position())
+                        .setId(i)
+                        .setPrice(100.25 + i)
+                        .setSize(i * 10)
+                        .setSide((byte)(i % 2))
+                        .setSymbol(i % 2 == 0 ? "ACME" : "LONGNAME")
+                        .advance();
+                }
+            }
+
+            // decoded in place with one reused flyweight
+            final StringBuilder symbol = new StringBuilder();
+            try (ShmemChannel.Read read = serverConn.read(2, TimeUnit.SECONDS)) {
+                final ByteBuffer buffer = read.getBuffer();
+                assertThat(buffer.remaining(), is(10 * quote.getEncodedLength()));
+                for (int i = 0; i < 10; i++) {
+                    assertThat(quote.wrap(buffer, buffer.position()), is(sameInstance(quote)));
+                    assertThat(quote.getId(), is((long)i));
+                    assertThat(quote.getPrice(), is(100.25 + i));
+                    assertThat(quote.getSize(), is(i * 10));
+                    assertThat(quote.getSide(), is((byte)(i % 2)));
+                    symbol.setLength(0);
+                    quote.getSymbol(symbol);
+                    assertThat(symbol.toString(), is(i % 2 == 0 ? "ACME" : "LONGNAME"));
+                    quote.advance();
+                }
+                assertThat(buffer.hasRemaining(), is(false));
+            }
+
+            clientConn.close();
+            serverConn.close();
+        }
+    }
+
+    @Test
+    public void wrapChecksBounds() {
+        final Quote quote = new Quote();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+
+        quote.wrap(buffer, 64 - quote.getEncodedLength());
+        assertThat(quote.getOffset(), is(64 - quote.getEncodedLength()));
+        assertThat(quote.getBuffer(), is(sameInstance(buffer)));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> quote.wrap(buffer, 64 - quote.getEncodedLength() + 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> quote.wrap(buffer, -1));
+        buffer.limit(10);
+        assertThrows(IndexOutOfBoundsException.class, () -> quote.wrap(buffer, 0));
+        assertThrows(IllegalArgumentException.class, () -> quote.wrap(ByteBuffer.allocate(64), 0).setSymbol("TOOLONGNAME"));
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.fizzed.shmemj;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class ShmemHashMapTest {
+
+    @Test
+    public void putGetRemoveAcrossMappings() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(16384L).create()) {
+            try (final Shmem existing = new ShmemFactory().setOsId(shmem.getOsId()).open()) {
+                final ShmemHashMap writer = ShmemHashMap.create(shmem, 0L, 16384L, 64);
+                final ShmemHashMap reader = ShmemHashMap.existing(existing, 0L);
+
+                assertThat(reader.getBucketCount(), is(64));
+                assertThat(reader.isEmpty(), is(true));
+                assertThat(reader.get(1L), is(nullValue()));
+
+                assertThat(writer.put(1L, utf8("one")), is(true));
+                assertThat(writer.put(-7L, utf8("minus seven")), is(true));
+                assertThat(writer.put(0L, utf8("")), is(true));
+                assertThat(reader.size(), is(3));
+
+                assertThat(string(reader.get(1L)), is("one"));
+                assertThat(string(reader.get(-7L)), is("minus seven"));
+                assertThat(string(reader.get(0L)), is(""));
+                assertThat(reader.containsKey(2L), is(false));
+                assertThat(reader.get(1L).isReadOnly(), is(true));
+
+                // replaced values are appended, so an earlier view is still intact
+                final ByteBuffer old = reader.get(1L);
+                assertThat(writer.put(1L, utf8("uno")), is(false));
+                assertThat(string(reader.get(1L)), is("uno"));
+                assertThat(string(old), is("one"));
+                assertThat(reader.size(), is(3));
+
+                assertThat(writer.remove(-7L), is(true));
+                assertThat(writer.remove(-7L), is(false));
+                assertThat(reader.get(-7L), is(nullValue()));
+                assertThat(reader.size(), is(2));
+            }
+        }
+    }
+
+    @Test
+    public void collisionsAndTombstones() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(8192L).create()) {
+            final ShmemHashMap map = ShmemHashMap.create(shmem, 0L, 8192L, 16);
+
+            for (long key = 0; key < 16; key++) {
+                map.put(key, ByteBuffer.allocate(8).putLong(0, key * 10));
+            }
+            assertThat(map.size(), is(16));
+            assertThrows(IllegalStateException.class, () -> map.put(100L, ByteBuffer.allocate(8)));
+
+            for (long key = 0; key < 16; key++) {
+                assertThat(map.get(key).getLong(0), is(key * 10));
+            }
+
+            // tombstone is reused, yet keys probed past it are still found
+            assertThat(map.remove(5L), is(true));
+            assertThat(map.put(100L, ByteBuffer.allocate(8).putLong(0, 1000L)), is(true));
+            assertThat(map.get(100L).getLong(0), is(1000L));
+            assertThat(map.get(5L), is(nullValue()));
+            for (long key = 0; key < 16; key++) {
+                if (key != 5L) {
+                    assertThat(map.get(key).getLong(0), is(key * 10));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void heapFull() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(4096L).create()) {
+            final ShmemHashMap map = ShmemHashMap.create(shmem, 0L, 4096L, 16);
+
+            // 4096 - 256 byte header - 16 * 32 byte buckets
+            assertThat(map.getHeapCapacity(), is(3328L));
+
+            map.put(1L, ByteBuffer.allocate(3000));
+            assertThat(map.getHeapUsed(), is(3000L));
+            assertThrows(IllegalStateException.class, () -> map.put(2L, ByteBuffer.allocate(500)));
+            assertThat(map.containsKey(2L), is(false));
+        }
+    }
+
+    @Test
+    public void heapOver2GBRejected() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(4096L).create()) {
+            assertThrows(IllegalArgumentException.class, () -> ShmemHashMap.create(shmem, 0L, 3L * 1024L * 1024L * 1024L, 16));
+        }
+    }
+
+    @Test
+    public void bucketsOver1GBRejected() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(4096L).create()) {
+            // 2^26 buckets of 32 bytes would be 2GB, past what an int offset can address
+            assertThrows(IllegalArgumentException.class, () -> ShmemHashMap.create(shmem, 0L, 4L * 1024L * 1024L * 1024L, 1 << 26));
+            assertThrows(IllegalArgumentException.class, () -> ShmemHashMap.create(shmem, 0L, 4096L, 1 << 30));
+        }
+    }
+
+    @Test
+    public void writerDiedWhileHoldingLock() throws Exception {
+        final ProcessProvider writerProcessProvider = mock(ProcessProvider.class);
+        doReturn(12345L).when(writerProcessProvider).getCurrentPid();
+        final ProcessProvider processProvider = mock(ProcessProvider.class);
+        doReturn(98765L).when(processProvider).getCurrentPid();
+        doReturn(false).when(processProvider).isAlive(12345L);
+
+        try (final Shmem shmem = new ShmemFactory().setSize(8192L).create()) {
+            final ShmemHashMap writer = ShmemHashMap.create(writerProcessProvider, shmem, 0L, 8192L, 16);
+            writer.put(1L, ByteBuffer.wrap(new byte[] { 1 }));
+
+            // the writer dies part way through modifying the bucket of the key
+            final ShmemAtomics header = shmem.newAtomics(0L, 256L);
+            header.setLongVolatile(128, 12345L);
+            final ShmemAtomics buckets = shmem.newAtomics(256L, 16L * 32L);
+            final int bucket = (ShmemHashMap.hash(1L) & 15) * 32;
+            buckets.getAndAddLong(bucket, 1L);
+
+            final ShmemHashMap map = ShmemHashMap.existing(processProvider, shmem, 0L);
+            assertThrows(ShmemProcessDiedException.class, () -> map.put(2L, ByteBuffer.allocate(1)));
+            assertThrows(ShmemProcessDiedException.class, () -> map.get(1L));
+        }
+    }
+
+    @Test
+    public void readersNeverSeeTornValues() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(1024L * 1024L).create()) {
+            try (final Shmem existing = new ShmemFactory().setOsId(shmem.getOsId()).open()) {
+                final ShmemHashMap writer = ShmemHashMap.create(shmem, 0L, 1024L * 1024L, 64);
+                final ShmemHashMap reader = ShmemHashMap.existing(existing, 0L);
+                final int updates = 20000;
+                final AtomicReference<String> failure = new AtomicReference<>();
+
+                writer.put(42L, ByteBuffer.allocate(16).putLong(0, 0L).putLong(8, 0L));
+
+                final Thread t = new Thread(() -> {
+                    long last = 0;
+                    while (last < updates - 1 && failure.get() == null) {
+                        final ByteBuffer value = reader.get(42L);
+                        final long a = value.getLong(0);
+                        final long b = value.getLong(8);
+                        if (a != b || a < last) {
+                            failure.set("Read a=" + a + ", b=" + b + " after " + last);
+                        }
+                        last = a;
+                    }
+                });
+                t.start();
+
+                for (long i = 1; i < updates; i++) {
+                    writer.put(42L, ByteBuffer.allocate(16).putLong(0, i).putLong(8, i));
+                }
+                t.join(10000L);
+
+                assertThat(failure.get(), is(nullValue()));
+            }
+        }
+    }
+
+    static private ByteBuffer utf8(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static private String string(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+    }
+
+}
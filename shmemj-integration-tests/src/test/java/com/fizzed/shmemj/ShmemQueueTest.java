@@ -0,0 +1,206 @@
+package com.fizzed.shmemj;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShmemQueueTest {
+
+    @Test
+    public void offerAndPollAcrossMappings() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(4096L).create()) {
+            try (final Shmem existing = new ShmemFactory().setOsId(shmem.getOsId()).open()) {
+                final ShmemQueue producer = ShmemQueue.create(shmem, 64L, 4096L - 64L, 32, null);
+                final ShmemQueue consumer = ShmemQueue.existing(existing, 64L);
+
+                assertThat(consumer.getCapacity(), is(producer.getCapacity()));
+                assertThat(consumer.getMaxEntrySize(), is(32));
+                assertThat(consumer.isBlocking(), is(false));
+                assertThat(consumer.isEmpty(), is(true));
+
+                final ByteBuffer dst = ByteBuffer.allocate(32);
+                assertThat(consumer.poll(dst), is(-1));
+
+                assertThat(producer.offer(utf8("hello")), is(true));
+                assertThat(producer.offer(utf8("")), is(true));
+                assertThat(consumer.size(), is(2));
+
+                assertThat(consumer.poll(dst), is(5));
+                dst.flip();
+                assertThat(StandardCharsets.UTF_8.decode(dst).toString(), is("hello"));
+
+                dst.clear();
+                assertThat(consumer.poll(dst), is(0));
+                assertThat(consumer.poll(dst), is(-1));
+
+                assertThrows(IllegalArgumentException.class, () -> producer.offer(ByteBuffer.allocate(33)));
+            }
+        }
+    }
+
+    @Test
+    public void fullAndWrapAround() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(4096L).create()) {
+            final ShmemQueue queue = ShmemQueue.create(shmem, 0L, 4096L, 100, null);
+            final int capacity = queue.getCapacity();
+
+            // (4096 - 256 byte header) / 120 byte slots
+            assertThat(capacity, is(32));
+
+            for (int lap = 0; lap < 3; lap++) {
+                for (int i = 0; i < capacity; i++) {
+                    assertThat(queue.offer(utf8("entry " + lap + "-" + i)), is(true));
+                }
+                assertThat(queue.offer(utf8("full")), is(false));
+                assertThat(queue.size(), is(capacity));
+
+                final List<String> drained = new ArrayList<>();
+                assertThat(queue.drain(entry -> drained.add(StandardCharsets.UTF_8.decode(entry).toString()), capacity + 1), is(capacity));
+                assertThat(drained.get(0), is("entry " + lap + "-0"));
+                assertThat(drained.get(capacity - 1), is("entry " + lap + "-" + (capacity - 1)));
+                assertThat(queue.isEmpty(), is(true));
+            }
+        }
+    }
+
+    @Test
+    public void slotsOfLargeRegionCappedAt2GB() throws Exception {
+        // 256MB slots, where the region has room for 11 of them, but only 7 fit in 2GB (so 4 as a power of 2)
+        final int maxEntrySize = (1 << 28) - 16;
+        try (final Shmem shmem = new ShmemFactory().setSize(4L * (1 << 28) + 4096L).create()) {
+            final ShmemQueue queue = ShmemQueue.create(shmem, 0L, 3L * 1024L * 1024L * 1024L, maxEntrySize, null);
+
+            assertThat(queue.getCapacity(), is(4));
+
+            // wraps around, so the last slot is written to as well
+            final ByteBuffer dst = ByteBuffer.allocate(8);
+            for (int i = 0; i < 6; i++) {
+                assertThat(queue.offer(ByteBuffer.allocate(8).putLong(0, i)), is(true));
+                dst.clear();
+                assertThat(queue.poll(dst), is(8));
+                assertThat(dst.getLong(0), is((long)i));
+            }
+
+            assertThrows(IllegalArgumentException.class, () -> ShmemQueue.create(shmem, 0L, 4096L, Integer.MAX_VALUE, null));
+        }
+    }
+
+    @Test
+    public void multipleProducersAndConsumers() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(8192L).create()) {
+            try (final Shmem existing = new ShmemFactory().setOsId(shmem.getOsId()).open()) {
+                final ShmemQueue queue1 = ShmemQueue.create(shmem, 0L, 8192L, 8, ShmemLockType.THREAD);
+                final ShmemQueue queue2 = ShmemQueue.existing(existing, 0L);
+                final int producers = 3;
+                final int consumers = 3;
+                final int perProducer = 5000;
+                final Set<Long> received = ConcurrentHashMap.newKeySet();
+
+                final List<Thread> threads = new ArrayList<>();
+                for (int p = 0; p < producers; p++) {
+                    final ShmemQueue queue = p % 2 == 0 ? queue1 : queue2;
+                    final long base = (long)p * perProducer;
+                    threads.add(new Thread(() -> {
+                        try {
+                            final ByteBuffer src = ByteBuffer.allocate(8);
+                            for (int i = 0; i < perProducer; i++) {
+                                src.clear();
+                                src.putLong(base + i).flip();
+                                if (!queue.offer(src, 5, TimeUnit.SECONDS)) {
+                                    throw new IllegalStateException("Timeout offering");
+                                }
+                            }
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }));
+                }
+                for (int c = 0; c < consumers; c++) {
+                    final ShmemQueue queue = c % 2 == 0 ? queue2 : queue1;
+                    threads.add(new Thread(() -> {
+                        try {
+                            while (received.size() < producers * perProducer) {
+                                queue.poll(entry -> received.add(entry.getLong()), 100, TimeUnit.MILLISECONDS);
+                            }
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }));
+                }
+
+                threads.forEach(Thread::start);
+                for (Thread t : threads) {
+                    t.join(30000L);
+                }
+
+                assertThat(received.size(), is(producers * perProducer));
+                assertThat(queue1.isEmpty(), is(true));
+            }
+        }
+    }
+
+    @Test
+    public void blockingPollWakesOnOffer() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(4096L).create()) {
+            try (final Shmem existing = new ShmemFactory().setOsId(shmem.getOsId()).open()) {
+                final ShmemQueue consumer = ShmemQueue.create(shmem, 0L, 4096L, 16, ShmemLockType.THREAD);
+                final ShmemQueue producer = ShmemQueue.existing(existing, 0L);
+
+                assertThat(producer.isBlocking(), is(true));
+
+                // empty queue times out
+                final ByteBuffer dst = ByteBuffer.allocate(16);
+                long start = System.nanoTime();
+                assertThat(consumer.poll(e -> dst.put(e), 50, TimeUnit.MILLISECONDS), is(false));
+                assertThat(System.nanoTime() - start, greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50)));
+
+                final Thread t = new Thread(() -> {
+                    try {
+                        Thread.sleep(50L);
+                        producer.offer(utf8("wake"));
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                t.start();
+
+                assertThat(consumer.poll(e -> dst.put(e), 5, TimeUnit.SECONDS), is(true));
+                dst.flip();
+                assertThat(StandardCharsets.UTF_8.decode(dst).toString(), is("wake"));
+                t.join();
+            }
+        }
+    }
+
+    @Test
+    public void nonBlockingQueueCannotWait() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(4096L).create()) {
+            final ShmemQueue queue = ShmemQueue.create(shmem, 0L, 4096L, 16, null);
+
+            assertThrows(IllegalStateException.class, () -> queue.poll(e -> {}, 10, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void existingRequiresInitializedQueue() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(4096L).create()) {
+            assertThrows(IllegalStateException.class, () -> ShmemQueue.existing(shmem, 0L));
+        }
+    }
+
+    static private ByteBuffer utf8(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.fizzed.shmemj;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShmemReconnectingClientTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ShmemChannelFixture fixture = new ShmemChannelFixture().setAlive(true);
+    private ProcessProvider serverProcessProvider;
+    private ProcessProvider clientProcessProvider;
+    private Path address;
+
+    @BeforeEach
+    public void beforeEach() throws Exception {
+        this.serverProcessProvider = this.fixture.getServerProcessProvider();
+        this.clientProcessProvider = this.fixture.getClientProcessProvider();
+
+        this.address = Files.createTempFile("shmemj-reconnect", ".shm");
+        Files.deleteIfExists(this.address);
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception {
+        this.fixture.close();
+        this.executor.shutdownNow();
+    }
+
+    private ShmemServerChannel createServer() {
+        return new ShmemChannelFactory()
+            .setSize(4096L)
+            .setAddress(this.address)
+            .setProcessProvider(this.serverProcessProvider)
+            .createServerChannel();
+    }
+
+    private ShmemReconnectingClient createClient() {
+        return new ShmemReconnectingClient(new ShmemChannelFactory()
+                .setAddress(this.address)
+                .setProcessProvider(this.clientProcessProvider))
+            .setBackoff(1, 100, TimeUnit.MILLISECONDS);
+    }
+
+    // accepts one client and answers each int request with the int + 1. if the last one is not answered, the server
+    // goes away right after reading it like a crashed or restarted server would, otherwise it waits for the client to
+    // hang up (a response is only delivered while the connection is open)
+    private Future<?> serve(ShmemServerChannel channel, int requests, boolean answerLast) {
+        return this.executor.submit(() -> {
+            try (ShmemChannelConnection conn = channel.accept(5, TimeUnit.SECONDS)) {
+                for (int i = 0; i < requests; i++) {
+                    final int value;
+                    try (ShmemChannel.Read read = conn.read(5, TimeUnit.SECONDS)) {
+                        value = read.getBuffer().getInt();
+                    }
+                    if (i < requests - 1 || answerLast) {
+                        try (ShmemChannel.Write write = conn.write(5, TimeUnit.SECONDS)) {
+                            write.getBuffer().putInt(value + 1);
+                        }
+                    }
+                }
+                if (answerLast) {
+                    try {
+                        conn.read(5, TimeUnit.SECONDS).close();
+                    } catch (ShmemClosedConnectionException e) {
+                        // client hung up
+                    }
+                }
+            }
+            channel.close();
+            channel.getShmem().close();
+            return null;
+        });
+    }
+
+    static private int request(ShmemReconnectingClient client, int value) throws Exception {
+        final ByteBuffer request = ByteBuffer.allocate(4).putInt(0, value);
+        return client.request(request, response -> response.getInt(), 5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void reconnectsToRestartedServerAndReplaysUnansweredRequest() throws Exception {
+        try (ShmemReconnectingClient client = this.createClient().setReplay(true)) {
+            final Future<?> server1 = this.serve(this.createServer(), 2, false);
+
+            assertThat(request(client, 1), is(2));
+            final long generation = client.getGeneration();
+            assertThat(generation, is(not(0L)));
+
+            // server goes away after reading this request but before answering it
+            final Future<Integer> response = this.executor.submit(() -> request(client, 10));
+            server1.get(5, TimeUnit.SECONDS);
+
+            // client keeps retrying until the server is back at the same address
+            Thread.sleep(100L);
+            final Future<?> server2 = this.serve(this.createServer(), 1, true);
+
+            assertThat(response.get(5, TimeUnit.SECONDS), is(11));
+            assertThat(client.getGeneration(), is(not(generation)));
+            assertThat(client.getReconnectCount(), is(1));
+            assertThat(client.getRestartCount(), is(1));
+
+            client.close();
+            server2.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void unansweredRequestFailsWithoutReplay() throws Exception {
+        try (ShmemReconnectingClient client = this.createClient()) {
+            final Future<?> server1 = this.serve(this.createServer(), 1, false);
+
+            // the server may have acted on it, so it is not sent again
+            assertThrows(ShmemClosedConnectionException.class, () -> request(client, 5));
+            assertThat(client.isConnected(), is(false));
+            server1.get(5, TimeUnit.SECONDS);
+
+            // while the next request reconnects
+            final Future<?> server2 = this.serve(this.createServer(), 1, true);
+            assertThat(request(client, 6), is(7));
+            assertThat(client.getRestartCount(), is(1));
+
+            client.close();
+            server2.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void timesOutWithoutServer() throws Exception {
+        try (ShmemReconnectingClient client = this.createClient()) {
+            final ByteBuffer request = ByteBuffer.allocate(4);
+            assertThrows(TimeoutException.class, () -> client.request(request, response -> response.getInt(), 250, TimeUnit.MILLISECONDS));
+            assertThat(client.getGeneration(), is(0L));
+            assertThat(client.isConnected(), is(false));
+        }
+    }
+
+    @Test
+    public void failsRightAwayIfNotRetryable() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        final ShmemChannelFactory factory = new ShmemChannelFactory() {
+            @Override
+            public ShmemClientChannel createClientChannel() {
+                attempts.incrementAndGet();
+                throw new IllegalArgumentException("Misconfigured");
+            }
+        };
+
+        try (ShmemReconnectingClient client = new ShmemReconnectingClient(factory)) {
+            final long start = System.currentTimeMillis();
+            assertThrows(IllegalArgumentException.class, () -> client.getConnection(5, TimeUnit.SECONDS));
+            assertThat(attempts.get(), is(1));
+            assertThat(System.currentTimeMillis() - start, lessThan(1000L));
+        }
+    }
+
+    @Test
+    public void retriesOnlyWhileServerIsNotYetAvailable() {
+        assertThat(ShmemReconnectingClient.isNotYetAvailable(new TimeoutException()), is(true));
+        assertThat(ShmemReconnectingClient.isNotYetAvailable(new ShmemClosedConnectionException("closed")), is(true));
+        assertThat(ShmemReconnectingClient.isNotYetAvailable(new ShmemProcessDiedException("died")), is(true));
+        assertThat(ShmemReconnectingClient.isNotYetAvailable(new ShmemChannelNotInitializedException("not yet")), is(true));
+        assertThat(ShmemReconnectingClient.isNotYetAvailable(new ShmemNotFoundException("MapOpenFailed(2)", null)), is(true));
+
+        assertThat(ShmemReconnectingClient.isNotYetAvailable(new IllegalStateException("bug")), is(false));
+        assertThat(ShmemReconnectingClient.isNotYetAvailable(new RuntimeException("MapOpenFailed(13)")), is(false));
+        assertThat(ShmemReconnectingClient.isNotYetAvailable(new IllegalArgumentException("Misconfigured")), is(false));
+    }
+
+}
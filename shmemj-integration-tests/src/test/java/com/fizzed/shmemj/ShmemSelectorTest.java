@@ -0,0 +1,242 @@
+package com.fizzed.shmemj;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class ShmemSelectorTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private ProcessProvider serverProcessProvider;
+    private ProcessProvider clientProcessProvider;
+    private Shmem serverShmem;
+    private SlottedShmemChannel serverChannel;
+    private SlottedShmemChannel[] clientChannels;
+    private ShmemChannelConnection[] serverConns;
+    private ShmemChannelConnection[] clientConns;
+
+    @BeforeEach
+    public void beforeEach() throws Exception {
+        this.serverProcessProvider = mock(ProcessProvider.class);
+        doReturn(12345L).when(this.serverProcessProvider).getCurrentPid();
+        this.clientProcessProvider = mock(ProcessProvider.class);
+        doReturn(98765L).when(this.clientProcessProvider).getCurrentPid();
+
+        // 3 slots sharing a doorbell
+        this.serverShmem = new ShmemFactory().setSize(3 * 2048L + 512L).create();
+        this.serverChannel = SlottedShmemChannel.create(this.serverProcessProvider, this.serverShmem, ShmemLockType.THREAD, false, 3);
+        this.clientChannels = new SlottedShmemChannel[3];
+        this.serverConns = new ShmemChannelConnection[3];
+        this.clientConns = new ShmemChannelConnection[3];
+        for (int i = 0; i < 3; i++) {
+            final Shmem clientShmem = new ShmemFactory().setOsId(this.serverShmem.getOsId()).open();
+            final DefaultShmemChannel firstSlot = DefaultShmemChannel.existing(this.clientProcessProvider, clientShmem);
+            this.clientChannels[i] = SlottedShmemChannel.existing(this.clientProcessProvider, clientShmem, firstSlot);
+            final Future<ShmemChannelConnection> acceptFuture = this.executor.submit(() -> this.serverChannel.accept(2, TimeUnit.SECONDS));
+            this.clientConns[i] = this.clientChannels[i].connect(2, TimeUnit.SECONDS);
+            this.serverConns[i] = acceptFuture.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception {
+        for (SlottedShmemChannel clientChannel : this.clientChannels) {
+            clientChannel.close();
+        }
+        this.serverChannel.close();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void selectReadable() throws Exception {
+        try (final ShmemSelector selector = new ShmemSelector()) {
+            for (int i = 0; i < 3; i++) {
+                selector.register(this.serverConns[i], ShmemSelector.OP_READ, i);
+            }
+
+            assertThat(selector.selectNow(), is(0));
+
+            final long start = System.nanoTime();
+            assertThat(selector.select(50L, TimeUnit.MILLISECONDS), is(0));
+            assertThat(System.nanoTime() - start, greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50L)));
+
+            // the doorbell wakes the selector as soon as any slot is written to
+            final Future<?> writeFuture = this.executor.submit(() -> {
+                Thread.sleep(50L);
+                try (ShmemChannel.Write write = this.clientConns[1].write(2, TimeUnit.SECONDS)) {
+                    write.getBuffer().putInt(42);
+                }
+                return null;
+            });
+
+            assertThat(selector.select(5, TimeUnit.SECONDS), is(1));
+            final ShmemSelector.Key key = selector.selectedKeys().get(0);
+            assertThat(key.getAttachment(), is(1));
+            assertThat(key.isReadable(), is(true));
+            assertThat(key.isWritable(), is(false));
+            writeFuture.get(5, TimeUnit.SECONDS);
+
+            try (ShmemChannel.Read read = key.getConnection().tryRead()) {
+                assertThat(read, is(notNullValue()));
+                assertThat(read.getBuffer().getInt(), is(42));
+            }
+
+            assertThat(selector.selectNow(), is(0));
+        }
+    }
+
+    @Test
+    public void selectWritable() throws Exception {
+        try (final ShmemSelector selector = new ShmemSelector()) {
+            final ShmemSelector.Key key = selector.register(this.serverConns[0], ShmemSelector.OP_READ | ShmemSelector.OP_WRITE);
+
+            assertThat(selector.selectNow(), is(1));
+            assertThat(key.isWritable(), is(true));
+            assertThat(key.isReadable(), is(false));
+
+            try (ShmemChannel.Write write = this.serverConns[0].tryWrite()) {
+                write.getBuffer().putInt(1);
+            }
+
+            // not writable again until the client reads it
+            assertThat(selector.selectNow(), is(0));
+
+            try (ShmemChannel.Read read = this.clientConns[0].read(2, TimeUnit.SECONDS)) {
+                assertThat(read.getBuffer().getInt(), is(1));
+            }
+
+            assertThat(selector.select(2, TimeUnit.SECONDS), is(1));
+            assertThat(key.isWritable(), is(true));
+
+            key.cancel();
+            assertThat(key.isCancelled(), is(true));
+            assertThat(selector.keys().size(), is(0));
+            assertThat(selector.selectNow(), is(0));
+
+            assertThrows(IllegalArgumentException.class, () -> selector.register(this.serverConns[0], 0));
+        }
+    }
+
+    @Test
+    public void closedConnectionIsSelected() throws Exception {
+        try (final ShmemSelector selector = new ShmemSelector()) {
+            selector.register(this.serverConns[2], ShmemSelector.OP_READ);
+
+            this.executor.submit(() -> {
+                Thread.sleep(50L);
+                this.clientConns[2].close();
+                return null;
+            });
+
+            assertThat(selector.select(5, TimeUnit.SECONDS), is(1));
+            assertThrows(ShmemClosedConnectionException.class, () -> selector.selectedKeys().get(0).getConnection().tryRead());
+        }
+    }
+
+    @Test
+    public void wakeup() throws Exception {
+        try (final ShmemSelector selector = new ShmemSelector()) {
+            selector.register(this.serverConns[0], ShmemSelector.OP_READ);
+
+            this.executor.submit(() -> {
+                Thread.sleep(50L);
+                selector.wakeup();
+                return null;
+            });
+
+            final long start = System.nanoTime();
+            assertThat(selector.select(5, TimeUnit.SECONDS), is(0));
+            assertThat(System.nanoTime() - start, lessThan(TimeUnit.SECONDS.toNanos(4L)));
+        }
+    }
+
+    @Test
+    public void selectSingleChannelOnItsDoorbell() throws Exception {
+        try (final Shmem shmem = new ShmemFactory().setSize(2048L).create();
+             final Shmem clientShmem = new ShmemFactory().setOsId(shmem.getOsId()).open()) {
+
+            final DefaultShmemChannel server = DefaultShmemChannel.create(this.serverProcessProvider, shmem, ShmemLockType.THREAD, false);
+            final DefaultShmemChannel client = DefaultShmemChannel.existing(this.clientProcessProvider, clientShmem);
+            final Future<ShmemChannelConnection> acceptFuture = this.executor.submit(() -> server.accept(2, TimeUnit.SECONDS));
+            final ShmemChannelConnection clientConn = client.connect(2, TimeUnit.SECONDS);
+            final ShmemChannelConnection serverConn = acceptFuture.get(5, TimeUnit.SECONDS);
+
+            try (final ShmemSelector selector = new ShmemSelector()) {
+                // both ends ring the same doorbell, which the selector blocks on
+                assertThat(server.getDoorbell(), is(notNullValue()));
+                assertThat(client.getDoorbell(), is(notNullValue()));
+                assertThat(client.getDoorbellOffset(), is(server.getDoorbellOffset()));
+
+                selector.register(serverConn, ShmemSelector.OP_READ);
+
+                final long start = System.nanoTime();
+                assertThat(selector.select(50L, TimeUnit.MILLISECONDS), is(0));
+                assertThat(System.nanoTime() - start, greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50L)));
+
+                this.executor.submit(() -> {
+                    Thread.sleep(50L);
+                    try (ShmemChannel.Write write = clientConn.write(2, TimeUnit.SECONDS)) {
+                        write.getBuffer().putInt(7);
+                    }
+                    return null;
+                });
+
+                assertThat(selector.select(5, TimeUnit.SECONDS), is(1));
+                try (ShmemChannel.Read read = serverConn.tryRead()) {
+                    assertThat(read.getBuffer().getInt(), is(7));
+                }
+            } finally {
+                client.close();
+                server.close();
+            }
+        }
+    }
+
+    @Test
+    public void selectAcrossSegments() throws Exception {
+        // connections of different segments ring different doorbells, so the selector falls back to polling
+        try (final Shmem shmem = new ShmemFactory().setSize(2048L).create();
+             final Shmem clientShmem = new ShmemFactory().setOsId(shmem.getOsId()).open()) {
+
+            final DefaultShmemChannel server = DefaultShmemChannel.create(this.serverProcessProvider, shmem, ShmemLockType.SPIN, false);
+            final DefaultShmemChannel client = DefaultShmemChannel.existing(this.clientProcessProvider, clientShmem);
+            final Future<ShmemChannelConnection> acceptFuture = this.executor.submit(() -> server.accept(2, TimeUnit.SECONDS));
+            final ShmemChannelConnection clientConn = client.connect(2, TimeUnit.SECONDS);
+            final ShmemChannelConnection serverConn = acceptFuture.get(5, TimeUnit.SECONDS);
+
+            try (final ShmemSelector selector = new ShmemSelector()) {
+                selector.register(serverConn, ShmemSelector.OP_READ, "single");
+                selector.register(this.serverConns[0], ShmemSelector.OP_READ, "slotted");
+
+                this.executor.submit(() -> {
+                    Thread.sleep(50L);
+                    try (ShmemChannel.Write write = clientConn.write(2, TimeUnit.SECONDS)) {
+                        write.getBuffer().putInt(7);
+                    }
+                    return null;
+                });
+
+                assertThat(selector.select(5, TimeUnit.SECONDS), is(1));
+                assertThat(selector.selectedKeys().get(0).getAttachment(), is("single"));
+            } finally {
+                client.close();
+                server.close();
+            }
+        }
+    }
+
+}
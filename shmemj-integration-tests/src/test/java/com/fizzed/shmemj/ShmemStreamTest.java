@@ -0,0 +1,165 @@
+package com.fizzed.shmemj;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShmemStreamTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final ShmemChannelFixture fixture = new ShmemChannelFixture().setAlive(true);
+    private DefaultShmemChannel serverChannel;
+    private ShmemChannelConnection serverConn;
+    private ShmemChannelConnection clientConn;
+
+    private void connect(boolean ringBuffers) throws Exception {
+        this.fixture.connect(4096L, ShmemLockType.THREAD, ringBuffers);
+        this.serverChannel = this.fixture.getServerChannel();
+        this.serverConn = this.fixture.getServerConn();
+        this.clientConn = this.fixture.getClientConn();
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception {
+        this.fixture.close();
+        this.executor.shutdownNow();
+    }
+
+    static private byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    static private byte[] readFully(InputStream input) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final byte[] b = new byte[777];
+        int n;
+        while ((n = input.read(b)) >= 0) {
+            output.write(b, 0, n);
+        }
+        return output.toByteArray();
+    }
+
+    @Test
+    public void payloadLargerThanBuffer() throws Exception {
+        this.connect(false);
+
+        // many times the size of the shared buffers
+        final byte[] payload = randomBytes(1024 * 1024 + 13);
+        assertThat(payload.length > this.serverChannel.getWriteBufferSize() * 100, is(true));
+
+        final Future<?> writeFuture = this.executor.submit(() -> {
+            try (OutputStream output = this.serverConn.newOutputStream(5, TimeUnit.SECONDS)) {
+                output.write(payload, 0, 10);
+                output.write(payload[10]);
+                output.write(payload, 11, payload.length - 11);
+            }
+            return null;
+        });
+
+        try (ShmemInputStream input = this.clientConn.newInputStream(5, TimeUnit.SECONDS)) {
+            assertThat(Arrays.equals(readFully(input), payload), is(true));
+            // end of stream stays the end
+            assertThat(input.read(), is(-1));
+        }
+
+        writeFuture.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void byteChannelsWithRingBuffersPipelineChunks() throws Exception {
+        this.connect(true);
+
+        final byte[] payload = randomBytes(256 * 1024 + 5);
+
+        final Future<?> writeFuture = this.executor.submit(() -> {
+            // small chunks so several are in the ring at once
+            try (ShmemOutputStream output = this.serverConn.newOutputStream(100, 5, TimeUnit.SECONDS)) {
+                final ByteBuffer src = ByteBuffer.wrap(payload);
+                while (src.hasRemaining()) {
+                    final ByteBuffer part = src.duplicate();
+                    part.limit(Math.min(src.limit(), src.position() + 1000));
+                    src.position(src.position() + output.write(part));
+                }
+            }
+            return null;
+        });
+
+        // one spare byte so the end of the stream is reached before the buffer is full
+        final ByteBuffer received = ByteBuffer.allocateDirect(payload.length + 1);
+        try (ShmemInputStream input = this.clientConn.newInputStream(5, TimeUnit.SECONDS)) {
+            while (input.read(received) >= 0) {
+                // keep reading
+            }
+            assertThat(input.isOpen(), is(true));
+        }
+
+        writeFuture.get(5, TimeUnit.SECONDS);
+
+        received.flip();
+        assertThat(received.remaining(), is(payload.length));
+        assertThat(received.equals(ByteBuffer.wrap(payload)), is(true));
+    }
+
+    @Test
+    public void streamsBackToBackAndFlush() throws Exception {
+        this.connect(false);
+
+        final Future<?> writeFuture = this.executor.submit(() -> {
+            try (OutputStream output = this.serverConn.newOutputStream(5, TimeUnit.SECONDS)) {
+                output.write(new byte[] { 1, 2, 3 });
+                // reader sees these before the stream is closed
+                output.flush();
+                Thread.sleep(100L);
+            }
+            // an empty stream
+            this.serverConn.newOutputStream(5, TimeUnit.SECONDS).close();
+            return null;
+        });
+
+        try (InputStream input = this.clientConn.newInputStream(5, TimeUnit.SECONDS)) {
+            assertThat(input.read(), is(1));
+            assertThat(input.available(), is(2));
+            assertThat(readFully(input), is(new byte[] { 2, 3 }));
+        }
+
+        try (InputStream input = this.clientConn.newInputStream(5, TimeUnit.SECONDS)) {
+            assertThat(input.read(), is(-1));
+        }
+
+        writeFuture.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void readTimesOutAndClosedStreamFails() throws Exception {
+        this.connect(false);
+
+        final ShmemInputStream input = this.clientConn.newInputStream(50, TimeUnit.MILLISECONDS);
+        assertThrows(InterruptedIOException.class, input::read);
+        input.close();
+        assertThrows(ClosedChannelException.class, input::read);
+
+        final ShmemOutputStream output = this.serverConn.newOutputStream(5, TimeUnit.SECONDS);
+        output.close();
+        assertThrows(ClosedChannelException.class, () -> output.write(1));
+    }
+
+}
@@ -8,6 +8,7 @@ import java.util.concurrent.TimeUnit;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.fail;
 
 public class ShmemTest {
 
@@ -49,6 +50,48 @@ public class ShmemTest {
         }
     }
 
+    @Test
+    public void cachedPropertiesInvalidatedByDestroy() {
+        final Shmem shmem = new ShmemFactory()
+            .setSize(2048L)
+            .create();
+
+        final Shmem existing = new ShmemFactory()
+            .setOsId(shmem.getOsId())
+            .open();
+
+        try {
+            // asking more than once returns the same (cached) values
+            assertThat(shmem.getSize(), is(2048L));
+            assertThat(shmem.getSize(), is(2048L));
+            assertThat(shmem.isOwner(), is(true));
+            assertThat(shmem.isOwner(), is(true));
+            assertThat(existing.isOwner(), is(false));
+            assertThat(existing.isOwner(), is(false));
+            assertThat(existing.getOsId(), is(shmem.getOsId()));
+
+            existing.close();
+
+            // but a destroyed shmem must not hand them out
+            try {
+                existing.getSize();
+                fail("expected exception");
+            } catch (IllegalStateException e) {
+                assertThat(e.getMessage(), containsString("no native resource"));
+            }
+
+            try {
+                existing.isOwner();
+                fail("expected exception");
+            } catch (IllegalStateException e) {
+                assertThat(e.getMessage(), containsString("no native resource"));
+            }
+        } finally {
+            existing.close();
+            shmem.close();
+        }
+    }
+
     @Test
     public void destroyingMulipleTimes() {
         final Shmem shmem = new ShmemFactory()